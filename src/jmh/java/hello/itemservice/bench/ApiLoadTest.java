@@ -0,0 +1,149 @@
+package hello.itemservice.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 실행 중인 서버에 상품 등록 요청을 동시에 보내서 /save(톰캣 쓰레드가 기다림)와
+ * /save/async(Servlet async)의 처리량, 지연 시간을 비교한다.
+ *
+ * ./gradlew bootRun --args='--itemservice.persistence.enabled=true --server.tomcat.threads.max=50'
+ * ./gradlew loadTest -PloadTestArgs='http://localhost:8080 400 20'
+ *
+ * 인자: 서버 주소, 동시 요청 수, 경로별 측정 시간(초). 측정 전에 경로마다 5초씩 워밍업한다.
+ * 동시 요청 수가 server.tomcat.threads.max보다 클 때 두 방식의 차이가 드러난다.
+ */
+public class ApiLoadTest {
+
+    private static final String[] PATHS = {"/validation/api/items/save", "/validation/api/items/save/async"};
+    private static final String BODY = "{\"itemName\":\"itemA\",\"price\":10000,\"quantity\":10}";
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+
+    public static void main(String[] args) throws InterruptedException {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 20);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        System.out.printf("%-36s %10s %10s %10s %10s %8s%n", "path", "req/s", "p50(ms)", "p99(ms)", "max(ms)", "errors");
+        for (String path : PATHS) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofString(BODY))
+                    .build();
+            run(client, request, concurrency, WARMUP);
+            Result result = run(client, request, concurrency, duration);
+            System.out.printf("%-36s %10.0f %10.2f %10.2f %10.2f %8d%n", path,
+                    result.count / (duration.toNanos() / 1e9),
+                    result.percentile(50) / 1e6, result.percentile(99) / 1e6, result.percentile(100) / 1e6,
+                    result.errors);
+        }
+    }
+
+    /**
+     * 쓰레드 하나가 요청 하나를 보내고 응답을 받으면 다음 요청을 보낸다. (closed loop)
+     * 지연 시간은 쓰레드마다 따로 모았다가 끝나고 합친다.
+     */
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, Duration duration)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Worker> workers = new ArrayList<>(concurrency);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(client, request, deadline, done);
+            workers.add(worker);
+            Thread thread = new Thread(worker, "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        Result result = new Result();
+        for (Worker worker : workers) {
+            result.add(worker);
+        }
+        result.sort();
+        return result;
+    }
+
+    private static final class Worker implements Runnable {
+
+        private final HttpClient client;
+        private final HttpRequest request;
+        private final long deadline;
+        private final CountDownLatch done;
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        Worker(HttpClient client, HttpRequest request, long deadline, CountDownLatch done) {
+            this.client = client;
+            this.request = request;
+            this.deadline = deadline;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors++;
+                            continue;
+                        }
+                    } catch (Exception e) {
+                        errors++;
+                        continue;
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    private static final class Result {
+
+        private long[] latencies = new long[0];
+        private int count;
+        private int errors;
+
+        void add(Worker worker) {
+            latencies = Arrays.copyOf(latencies, count + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, count, worker.count);
+            count += worker.count;
+            errors += worker.errors;
+        }
+
+        void sort() {
+            Arrays.sort(latencies);
+        }
+
+        long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(count * percentile / 100);
+            return latencies[Math.max(0, rank - 1)];
+        }
+    }
+}
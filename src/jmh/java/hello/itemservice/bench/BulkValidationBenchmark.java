@@ -0,0 +1,52 @@
+package hello.itemservice.bench;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.web.validation.ItemValidator;
+import hello.itemservice.web.validation.bulk.BulkValidationReport;
+import hello.itemservice.web.validation.bulk.BulkValidationService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 전체 상품 재검증을 쓰레드 수별로 잰다. parallelism=1 대비 몇배 빨라지는지 본다.
+ * 상품의 10%는 통과하지 못한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkValidationBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    int parallelism;
+
+    @Param({"1000000"})
+    int items;
+
+    ItemRepository itemRepository;
+    BulkValidationService bulkValidationService;
+
+    @Setup
+    public void setup() {
+        itemRepository = new ItemRepository();
+        for (int i = 0; i < items; i++) {
+            itemRepository.save(i % 10 == 0 ? new Item("item" + i, 500, 10) : new Item("item" + i, 10000, 10));
+        }
+        bulkValidationService = new BulkValidationService(itemRepository, new ItemValidator(), parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        bulkValidationService.close();
+        itemRepository.clearStore();
+    }
+
+    @Benchmark
+    public BulkValidationReport validateAll() {
+        return bulkValidationService.validateAll();
+    }
+}
@@ -0,0 +1,68 @@
+package hello.itemservice.bench;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 보조 인덱스 조회와 findAll()을 훑어서 거르는 방식의 비교.
+ *
+ * 상품 가격은 1000 ~ 1000000 사이에 고르게 퍼져있고,
+ * 조회 범위는 전체의 약 0.1% 정도가 걸리도록 잡았다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemIndexBenchmark {
+
+    @Param({"100000", "1000000"})
+    int items;
+
+    ItemRepository itemRepository;
+
+    @Setup
+    public void setup() {
+        itemRepository = new ItemRepository();
+        itemRepository.clearStore();
+        for (int i = 0; i < items; i++) {
+            int price = 1000 + (int) ((i * 7919L) % 999001);
+            itemRepository.save(new Item("item" + i, price, i % 10000));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        itemRepository.clearStore();
+    }
+
+    @Benchmark
+    public List<Item> priceRangeIndexed() {
+        return itemRepository.findByPriceBetween(500000, 501000);
+    }
+
+    @Benchmark
+    public List<Item> priceRangeScan() {
+        return itemRepository.findAll().stream()
+                .filter(item -> item.getPrice() >= 500000 && item.getPrice() <= 501000)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Item> namePrefixIndexed() {
+        return itemRepository.findByItemNamePrefix("item1234");
+    }
+
+    @Benchmark
+    public List<Item> namePrefixScan() {
+        return itemRepository.findAll().stream()
+                .filter(item -> item.getItemName().startsWith("item1234"))
+                .collect(Collectors.toList());
+    }
+}
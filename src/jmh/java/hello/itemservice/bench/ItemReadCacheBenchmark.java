@@ -0,0 +1,63 @@
+package hello.itemservice.bench;
+
+import hello.itemservice.domain.item.ColumnarItemStore;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.MapItemStore;
+import hello.itemservice.domain.item.cache.ItemReadCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상세 화면처럼 findById만 계속 부르는 경우. 요청의 80%는 상품 20%에 몰린다.
+ *
+ * - none: 캐시 없이 저장소를 바로 읽는다.
+ * - heap: ItemReadCache (힙 캐시에 상품 20%가 들어간다)
+ * - offheap: 힙 캐시는 5%만, 나머지는 off-heap에서 올린다.
+ *
+ * columnar 저장소는 읽을 때마다 Item을 새로 만들기 때문에 캐시에서 읽으면 -prof gc의 할당이 거의 없어진다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ItemReadCacheBenchmark {
+
+    @Param({"map", "columnar"})
+    String store;
+
+    @Param({"none", "heap", "offheap"})
+    String cache;
+
+    @Param({"100000"})
+    int items;
+
+    ItemRepository itemRepository;
+
+    @Setup
+    public void setup() {
+        itemRepository = new ItemRepository("columnar".equals(store) ? new ColumnarItemStore() : new MapItemStore());
+        if ("heap".equals(cache)) {
+            itemRepository.setReadCache(new ItemReadCache(items / 5, Duration.ZERO, 0));
+        } else if ("offheap".equals(cache)) {
+            itemRepository.setReadCache(new ItemReadCache(items / 20, Duration.ZERO, (long) items * 128));
+        }
+        for (int i = 0; i < items; i++) {
+            itemRepository.save(new Item("item" + i, 1000 + i, i % 100));
+        }
+    }
+
+    @Benchmark
+    public Item findById() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int hot = items / 5;
+        long id = random.nextInt(10) < 8 ? random.nextInt(hot) + 1 : random.nextInt(items) + 1;
+        return itemRepository.findById(id);
+    }
+}
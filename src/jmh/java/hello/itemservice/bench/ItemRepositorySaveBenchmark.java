@@ -0,0 +1,53 @@
+package hello.itemservice.bench;
+
+import hello.itemservice.domain.item.ColumnarItemStore;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.MapItemStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 톰캣 쓰레드 여러개가 동시에 저장하고 조회할 때 처리량이 쓰레드 수만큼 늘어나는지 본다.
+ * 쓰레드 1개와 4개의 ops/s를 비교한다. (코어가 4개보다 적으면 4개 쪽이 늘지 않는다)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemRepositorySaveBenchmark {
+
+    @Param({"map", "columnar"})
+    String store;
+
+    ItemRepository itemRepository;
+
+    /**
+     * 반복마다 비워서 저장한 상품이 계속 쌓이지 않게 한다.
+     */
+    @Setup(Level.Iteration)
+    public void setup() {
+        itemRepository = new ItemRepository("columnar".equals(store) ? new ColumnarItemStore() : new MapItemStore());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Item saveAndFindOneThread() {
+        return saveAndFind();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Item saveAndFindFourThreads() {
+        return saveAndFind();
+    }
+
+    private Item saveAndFind() {
+        Item saved = itemRepository.save(new Item("item", 10000, 10));
+        return itemRepository.findById(ThreadLocalRandom.current().nextLong(saved.getId()) + 1);
+    }
+}
@@ -0,0 +1,75 @@
+package hello.itemservice.bench;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.MapItemStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 읽기가 많은 상황에서 전체 목록(values) 조회 비교. 쓰레드 7개는 목록을 끝까지 읽고, 1개는 계속 상품을 수정한다.
+ *
+ * - snapshot: MapItemStore가 돌려주는 불변 스냅샷
+ * - copy: 예전처럼 조회할 때마다 ArrayList로 복사
+ *
+ * -prof gc로 보면 copy는 조회마다 items개 크기의 배열을, snapshot은 수정마다 트리 경로만큼의 배열을 만든다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class ItemSnapshotBenchmark {
+
+    @Param({"snapshot", "copy"})
+    String store;
+
+    @Param({"1000", "100000"})
+    int items;
+
+    MapItemStore itemStore;
+
+    @Setup
+    public void setup() {
+        itemStore = "copy".equals(store) ? new CopyingItemStore() : new MapItemStore();
+        for (long id = 1; id <= items; id++) {
+            Item item = new Item("item" + id, 1000, 10);
+            item.setId(id);
+            itemStore.compute(id, oldItem -> item);
+        }
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(7)
+    public void findAll(Blackhole blackhole) {
+        for (Item item : itemStore.values()) {
+            blackhole.consume(item.getPrice());
+        }
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(1)
+    public Item update() {
+        long id = ThreadLocalRandom.current().nextLong(items) + 1;
+        return itemStore.computeIfPresent(id, oldItem -> {
+            Item item = new Item(oldItem.getItemName(), oldItem.getPrice() + 1, oldItem.getQuantity());
+            item.setId(id);
+            return item;
+        });
+    }
+
+    static class CopyingItemStore extends MapItemStore {
+
+        @Override
+        public List<Item> values() {
+            return new ArrayList<>(super.values());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package hello.itemservice.bench;
+
+import hello.itemservice.domain.item.ColumnarItemStore;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.MapItemStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 저장소별 상품 하나가 차지하는 힙 크기 비교.
+ *
+ * ItemRepository.save로 상품을 items개 채우기 전후로 GC를 돌려서 사용 중인 힙의 차이를 재고,
+ * 결과의 bytesPerItem(AuxCounters)에 남긴다. 시간(ms/op)은 채우는데 걸린 시간이다.
+ * 상품명은 1000종류가 반복되고, 저장소와 보조 인덱스(상품명, 가격, 수량)를 모두 포함한다.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ItemStoreFootprintBenchmark {
+
+    @Param({"map", "columnar"})
+    String store;
+
+    @Param({"1000000"})
+    int items;
+
+    String[] itemNames;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public double bytesPerItem;
+    }
+
+    @Setup
+    public void setup() {
+        itemNames = new String[1000];
+        for (int i = 0; i < itemNames.length; i++) {
+            itemNames[i] = "item" + i;
+        }
+    }
+
+    @Benchmark
+    public ItemRepository fill(Footprint footprint) {
+        long before = usedHeap();
+        ItemRepository itemRepository = new ItemRepository("columnar".equals(store) ? new ColumnarItemStore() : new MapItemStore());
+        for (int i = 1; i <= items; i++) {
+            itemRepository.save(new Item(itemNames[i % itemNames.length], 1000 + i % 999001, i % 10000));
+        }
+        footprint.bytesPerItem = (usedHeap() - before) / (double) items;
+        return itemRepository;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,64 @@
+package hello.itemservice.bench;
+
+import hello.itemservice.domain.item.ColumnarItemStore;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemStore;
+import hello.itemservice.domain.item.MapItemStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 쓰레드가 서로 다른 상품을 계속 수정할 때 저장소의 쓰기 처리량.
+ *
+ * MapItemStore는 수정마다 전체 목록 스냅샷(ItemSnapshot)도 바꿔야 해서 쓰레드끼리 스냅샷 하나를 두고 경쟁한다.
+ * 스냅샷이 없는 columnar와 비교하면 그 경쟁 비용이 보이고, 쓰레드 1개와 4개를 비교하면 쓰레드를 늘렸을 때 얼마나 늘어나는지 보인다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemStoreWriteBenchmark {
+
+    @Param({"map", "columnar"})
+    String store;
+
+    @Param({"100000"})
+    int items;
+
+    ItemStore itemStore;
+
+    @Setup
+    public void setup() {
+        itemStore = "columnar".equals(store) ? new ColumnarItemStore() : new MapItemStore();
+        for (long id = 1; id <= items; id++) {
+            Item item = new Item("item" + id, 1000, 10);
+            item.setId(id);
+            itemStore.compute(id, oldItem -> item);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Item updateOneThread() {
+        return update();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Item updateFourThreads() {
+        return update();
+    }
+
+    private Item update() {
+        long id = ThreadLocalRandom.current().nextLong(items) + 1;
+        return itemStore.computeIfPresent(id, oldItem -> {
+            Item item = new Item(oldItem.getItemName(), oldItem.getPrice() + 1, oldItem.getQuantity());
+            item.setId(id);
+            return item;
+        });
+    }
+}
@@ -0,0 +1,83 @@
+package hello.itemservice.bench;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.web.validation.ItemValidator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ItemValidator 검증 방식별로 상품 1000개를 검증하는 비용.
+ *
+ * invalidRatio 만큼의 상품은 이름, 가격, 수량 중 여러 개가 틀려 있다. (틀린 상품이 많은 대량 사전 검사를 흉내낸다)
+ * 할당량은 -prof gc 의 gc.alloc.rate.norm(B/op)을 본다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemValidatorModeBenchmark {
+
+    @Param({"0.2", "0.8"})
+    double invalidRatio;
+
+    Item[] items;
+    ItemValidator full;
+    ItemValidator failFast;
+    ItemValidator shortCircuit;
+
+    @Setup
+    public void setup() {
+        full = new ItemValidator(ItemValidator.Mode.FULL);
+        failFast = new ItemValidator(ItemValidator.Mode.FAIL_FAST);
+        shortCircuit = new ItemValidator(ItemValidator.Mode.SHORT_CIRCUIT);
+
+        Random random = new Random(42);
+        items = new Item[1000];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = random.nextDouble() < invalidRatio
+                    ? new Item(random.nextBoolean() ? " " : "item" + i, random.nextInt(2000), 10001)
+                    : new Item("item" + i, 10000, 10);
+        }
+    }
+
+    @Benchmark
+    public void full(Blackhole blackhole) {
+        validateAll(full, blackhole);
+    }
+
+    @Benchmark
+    public void failFast(Blackhole blackhole) {
+        validateAll(failFast, blackhole);
+    }
+
+    @Benchmark
+    public void shortCircuit(Blackhole blackhole) {
+        validateAll(shortCircuit, blackhole);
+    }
+
+    @Benchmark
+    public int isValid() {
+        int valid = 0;
+        for (Item item : items) {
+            if (full.isValid(item)) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    private void validateAll(ItemValidator itemValidator, Blackhole blackhole) {
+        for (Item item : items) {
+            BindingResult bindingResult = new BeanPropertyBindingResult(item, "item");
+            itemValidator.validate(item, bindingResult);
+            blackhole.consume(bindingResult.hasErrors());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package hello.itemservice.bench;
+
+import hello.itemservice.message.CachingMessageSource;
+import hello.itemservice.message.FlatMessageSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.context.support.ResourceBundleMessageSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MessageSourceTest의 경우들과 검증 에러 메시지 하나를 MessageSource 별로 잰다.
+ *
+ * - bundle: 스프링 부트 기본 ResourceBundleMessageSource
+ * - caching: CachingMessageSource
+ * - flat: FlatMessageSource
+ *
+ * @Threads(4)로 재서, MessageFormat에 락을 잡는 방식과 락이 없는 방식의 차이도 같이 본다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class MessageSourceBenchmark {
+
+    @Param({"bundle", "caching", "flat"})
+    String source;
+
+    MessageSource ms;
+
+    DefaultMessageSourceResolvable rangeError = new DefaultMessageSourceResolvable(
+            new String[]{"range.item.price", "range.price", "range.java.lang.Integer", "range"},
+            new Object[]{1000, 1000000});
+
+    @Setup
+    public void setup() {
+        ResourceBundleMessageSource bundles = new ResourceBundleMessageSource();
+        bundles.setBasenames("messages", "errors");
+        bundles.setDefaultEncoding("UTF-8");
+        switch (source) {
+            case "caching":
+                ms = new CachingMessageSource(bundles, -1, false);
+                break;
+            case "flat":
+                ms = new FlatMessageSource(bundles, new String[]{"messages", "errors"}, StandardCharsets.UTF_8, true, false);
+                break;
+            default:
+                ms = bundles;
+        }
+    }
+
+    @Benchmark
+    public String helloMessage() {
+        return ms.getMessage("hello", null, Locale.KOREA);
+    }
+
+    @Benchmark
+    public String notFoundMessageCodeDefaultMessage() {
+        return ms.getMessage("no_code", null, "기본 메시지", Locale.KOREA);
+    }
+
+    @Benchmark
+    public String argumentMessage() {
+        return ms.getMessage("hello.name", new Object[]{"Spring"}, Locale.KOREA);
+    }
+
+    @Benchmark
+    public String enLang() {
+        return ms.getMessage("hello", null, Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public String rangeError() {
+        return ms.getMessage(rangeError, Locale.KOREA);
+    }
+}
@@ -0,0 +1,167 @@
+package hello.itemservice.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ItemServiceApplication을 새 JVM으로 여러 번 띄워서 기본 설정과 fast-start 프로필의 시작 시간을 비교한다.
+ *
+ * ./gradlew startupBenchmark -PstartupBenchmarkArgs='10 18080'
+ *
+ * 인자: 프로필별 실행 횟수, 서버 포트. 처음 한 번은 OS 파일 캐시를 채우는 용도로 버린다.
+ * - started: 로그의 "Started ItemServiceApplication in N seconds" (스프링 부트가 잰 시간)
+ * - ready: 프로세스를 띄운 시점부터 /actuator/health가 200을 돌려줄 때까지 (JVM 시작 포함)
+ * 마지막 실행은 itemservice.startup.report=true로 띄워서 단계별 시간(StartupReport)을 같이 출력한다.
+ */
+public class StartupBenchmark {
+
+    private static final String MAIN_CLASS = "hello.itemservice.ItemServiceApplication";
+    private static final String[] PROFILES = {"default", "fast-start"};
+    private static final Pattern STARTED = Pattern.compile("Started ItemServiceApplication in ([0-9.]+) seconds");
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 18080;
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        List<String> reports = new ArrayList<>();
+
+        System.out.printf("%-12s %12s %12s %12s %12s%n", "profile", "started p50", "started min", "ready p50", "ready min");
+        for (String profile : PROFILES) {
+            launch(client, profile, port, false);
+            long[] started = new long[runs];
+            long[] ready = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                Run run = launch(client, profile, port, i == runs - 1);
+                started[i] = run.startedMillis;
+                ready[i] = run.readyMillis;
+                if (run.report != null) {
+                    reports.add(profile + "\n" + run.report);
+                }
+            }
+            Arrays.sort(started);
+            Arrays.sort(ready);
+            System.out.printf("%-12s %10dms %10dms %10dms %10dms%n", profile,
+                    started[runs / 2], started[0], ready[runs / 2], ready[0]);
+        }
+        for (String report : reports) {
+            System.out.println();
+            System.out.print(report);
+        }
+    }
+
+    private static Run launch(HttpClient client, String profile, int port, boolean report) throws Exception {
+        List<String> command = new ArrayList<>(List.of(
+                new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-cp", System.getProperty("java.class.path"),
+                MAIN_CLASS,
+                "--server.port=" + port,
+                "--itemservice.startup.report=" + report));
+        if (!"default".equals(profile)) {
+            command.add("--spring.profiles.active=" + profile);
+        }
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try {
+            CompletableFuture<String[]> output = CompletableFuture.supplyAsync(() -> readOutput(process));
+            HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health"))
+                    .timeout(Duration.ofMillis(500))
+                    .GET()
+                    .build();
+            while (true) {
+                if (System.nanoTime() - start > TIMEOUT.toNanos() || !process.isAlive()) {
+                    throw new IllegalStateException("server did not start. profile=" + profile);
+                }
+                try {
+                    if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    // 아직 포트가 열리지 않았다.
+                }
+                Thread.sleep(5);
+            }
+            long readyMillis = (System.nanoTime() - start) / 1_000_000;
+
+            // StartupReport는 ApplicationReadyEvent에서 찍히므로 health 보다 조금 늦을 수 있다.
+            if (report) {
+                Thread.sleep(1000);
+            }
+            process.destroy();
+            process.waitFor();
+            String[] lines = output.join();
+            return new Run(startedMillis(lines), readyMillis, report ? reportOf(lines) : null);
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    private static String[] readOutput(Process process) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            return reader.lines().toArray(String[]::new);
+        } catch (IOException e) {
+            return new String[0];
+        }
+    }
+
+    private static long startedMillis(String[] lines) {
+        for (String line : lines) {
+            Matcher matcher = STARTED.matcher(line);
+            if (matcher.find()) {
+                return Math.round(Double.parseDouble(matcher.group(1)) * 1000);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * "startup report" 로그 다음 줄부터 빈 줄이나 다음 로그 줄이 나올 때까지.
+     */
+    private static String reportOf(String[] lines) {
+        StringBuilder report = new StringBuilder();
+        boolean inReport = false;
+        for (String line : lines) {
+            if (line.contains("startup report")) {
+                inReport = true;
+                continue;
+            }
+            if (inReport) {
+                if (line.isBlank() || line.matches("^\\d{4}-\\d{2}-\\d{2}.*")) {
+                    break;
+                }
+                report.append(line).append('\n');
+            }
+        }
+        return report.toString();
+    }
+
+    private static final class Run {
+
+        final long startedMillis;
+        final long readyMillis;
+        final String report;
+
+        Run(long startedMillis, long readyMillis, String report) {
+            this.startedMillis = startedMillis;
+            this.readyMillis = readyMillis;
+            this.report = report;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package hello.itemservice.bench;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.SaveCheck;
+import hello.itemservice.domain.item.UpdateCheck;
+import hello.itemservice.web.validation.ItemValidator;
+import hello.itemservice.web.validation.form.ItemSaveForm;
+import hello.itemservice.web.validation.form.ItemUpdateForm;
+import hello.itemservice.web.validation.rule.ItemRuleEngine;
+import org.hibernate.validator.constraints.Range;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.DefaultMessageCodesResolver;
+import org.springframework.validation.MessageCodesResolver;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import javax.validation.Validation;
+import javax.validation.ValidatorFactory;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 검증 방식별로 요청 한 번에 드는 비용을 잰다.
+ *
+ * 컨트롤러에서 실제로 일어나는 것처럼 매번 새 BindingResult를 만들어서 검증한다.
+ * input=valid / input=invalid 결과를 따로 보고,
+ * 할당량은 -prof gc 의 gc.alloc.rate.norm(B/op)을 본다.
+ *
+ * Item의 groups 어노테이션은 주석 처리되어 있어서(폼 객체로 분리) 그룹 검증은 같은 어노테이션을 단 GroupItem으로 잰다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    @Param({"valid", "invalid"})
+    String input;
+
+    ItemValidator itemValidator;
+    SpringValidatorAdapter beanValidator;
+    ItemRuleEngine ruleEngine;
+    MessageCodesResolver codesResolver;
+
+    Item item;
+    GroupItem groupItem;
+    ItemSaveForm saveForm;
+    ItemUpdateForm updateForm;
+
+    @Setup
+    public void setup() {
+        itemValidator = new ItemValidator();
+        ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
+        beanValidator = new SpringValidatorAdapter(factory.getValidator());
+        codesResolver = new DefaultMessageCodesResolver();
+        ruleEngine = new ItemRuleEngine(new ClassPathResource("validation/item-rules.json"), Duration.ZERO);
+
+        boolean valid = "valid".equals(input);
+
+        item = new Item(valid ? "itemA" : " ", valid ? 10000 : 0, valid ? 10 : 10000);
+
+        groupItem = new GroupItem();
+        groupItem.setId(valid ? 1L : null);
+        groupItem.setItemName(item.getItemName());
+        groupItem.setPrice(item.getPrice());
+        groupItem.setQuantity(item.getQuantity());
+
+        saveForm = new ItemSaveForm();
+        saveForm.setItemName(item.getItemName());
+        saveForm.setPrice(item.getPrice());
+        saveForm.setQuantity(item.getQuantity());
+
+        updateForm = new ItemUpdateForm();
+        updateForm.setId(valid ? 1L : null);
+        updateForm.setItemName(item.getItemName());
+        updateForm.setPrice(item.getPrice());
+        updateForm.setQuantity(item.getQuantity());
+        updateForm.setVersion(0L);
+    }
+
+    @Benchmark
+    public BindingResult itemValidator() {
+        BindingResult bindingResult = new BeanPropertyBindingResult(item, "item");
+        itemValidator.validate(item, bindingResult);
+        return bindingResult;
+    }
+
+    @Benchmark
+    public BindingResult beanValidationSaveForm() {
+        BindingResult bindingResult = new BeanPropertyBindingResult(saveForm, "item");
+        beanValidator.validate(saveForm, bindingResult);
+        return bindingResult;
+    }
+
+    @Benchmark
+    public BindingResult beanValidationUpdateForm() {
+        BindingResult bindingResult = new BeanPropertyBindingResult(updateForm, "item");
+        beanValidator.validate(updateForm, bindingResult);
+        return bindingResult;
+    }
+
+    @Benchmark
+    public BindingResult groupValidationSaveCheck() {
+        BindingResult bindingResult = new BeanPropertyBindingResult(groupItem, "item");
+        beanValidator.validate(groupItem, bindingResult, SaveCheck.class);
+        return bindingResult;
+    }
+
+    @Benchmark
+    public BindingResult groupValidationUpdateCheck() {
+        BindingResult bindingResult = new BeanPropertyBindingResult(groupItem, "item");
+        beanValidator.validate(groupItem, bindingResult, UpdateCheck.class);
+        return bindingResult;
+    }
+
+    @Benchmark
+    public BindingResult ruleEngineSaveCheck() {
+        BindingResult bindingResult = new BeanPropertyBindingResult(item, "item");
+        ruleEngine.validate(item, bindingResult, SaveCheck.class);
+        return bindingResult;
+    }
+
+    @Benchmark
+    public BindingResult ruleEngineUpdateCheck() {
+        BindingResult bindingResult = new BeanPropertyBindingResult(item, "item");
+        ruleEngine.validate(item, bindingResult, UpdateCheck.class);
+        return bindingResult;
+    }
+
+    /**
+     * rejectValue("price", "range") 한번에 호출되는 부분.
+     */
+    @Benchmark
+    public String[] resolveMessageCodes() {
+        return codesResolver.resolveMessageCodes("range", "item", "price", Integer.class);
+    }
+
+    /**
+     * Item에서 주석 처리된 groups 어노테이션을 그대로 단 벤치마크용 상품.
+     */
+    public static class GroupItem {
+
+        @NotNull(groups = UpdateCheck.class)
+        private Long id;
+
+        @NotBlank(groups = {SaveCheck.class, UpdateCheck.class})
+        private String itemName;
+
+        @NotNull(groups = {SaveCheck.class, UpdateCheck.class})
+        @Range(min = 1000, max = 1000000, groups = {SaveCheck.class, UpdateCheck.class})
+        private Integer price;
+
+        @NotNull(groups = {SaveCheck.class, UpdateCheck.class})
+        @Max(value = 9999, groups = {SaveCheck.class})
+        private Integer quantity;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getItemName() {
+            return itemName;
+        }
+
+        public void setItemName(String itemName) {
+            this.itemName = itemName;
+        }
+
+        public Integer getPrice() {
+            return price;
+        }
+
+        public void setPrice(Integer price) {
+            this.price = price;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
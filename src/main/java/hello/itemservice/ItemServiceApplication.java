@@ -2,12 +2,16 @@ package hello.itemservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
-@SpringBootApplication
+@SpringBootApplication(proxyBeanMethods = false)
 public class ItemServiceApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(ItemServiceApplication.class, args);
+		SpringApplication application = new SpringApplication(ItemServiceApplication.class);
+		// 시작 단계별 시간 기록 (StartupReport, /actuator/startup)
+		application.setApplicationStartup(new BufferingApplicationStartup(4096));
+		application.run(args);
 	}
 
 }
@@ -0,0 +1,335 @@
+package hello.itemservice.domain.item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * 상품을 Item 객체가 아니라 열(column) 단위의 기본형 배열에 담는 저장소.
+ *
+ * MapItemStore는 상품 하나에 Item, Long(id), Integer(price, quantity), Map.Node 객체가 생긴다.
+ * 여기서는 상품 하나가 long id, int price, int quantity, long version, byte null 여부, 상품명 참조 한 칸씩만 차지하고,
+ * id -> 행 번호는 int[] 오픈 어드레싱 해시 테이블로 찾는다. (Long 키, Node 객체가 없다)
+ * 상품명은 같은 문자열을 하나만 들고 있도록 intern 해둔다. 몇 개의 행이 쓰고 있는지 세어서, 아무 행도 쓰지 않는 이름은 지운다.
+ *
+ * get()은 저장된 값으로 Item을 새로 만들어서 돌려준다. 돌려받은 Item을 고쳐도 저장소는 바뀌지 않는다.
+ *
+ * id로 나눈 세그먼트마다 StampedLock을 둔다.
+ * - 읽기: 낙관적 읽기(tryOptimisticRead)로 락 없이 읽고, 그 사이에 쓰기가 있었으면 읽기 락으로 다시 읽는다.
+ * - 쓰기: 세그먼트의 쓰기 락 안에서 remapping 함수를 호출하고 배열을 고친다.
+ *
+ * id 순서로 읽을 때(after)는 지금까지 들어온 가장 큰 id까지 id를 하나씩 찾아본다. id는 sequence로 발급해서 거의 비어있지 않다.
+ */
+public class ColumnarItemStore implements ItemStore {
+
+    private static final int SEGMENTS = 16;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final byte NULL_ITEM_NAME = 1;
+    private static final byte NULL_PRICE = 1 << 1;
+    private static final byte NULL_QUANTITY = 1 << 2;
+    private static final byte NULL_VERSION = 1 << 3;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final Map<String, ItemName> itemNames = new ConcurrentHashMap<>();
+    private final AtomicLong highestId = new AtomicLong();
+
+    public ColumnarItemStore() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    @Override
+    public Item get(long id) {
+        return segmentFor(id).get(id);
+    }
+
+    @Override
+    public Item compute(long id, UnaryOperator<Item> remapping) {
+        return segmentFor(id).compute(id, remapping, false);
+    }
+
+    @Override
+    public Item computeIfPresent(long id, UnaryOperator<Item> remapping) {
+        return segmentFor(id).compute(id, remapping, true);
+    }
+
+    @Override
+    public List<Item> values() {
+        List<Item> items = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.addTo(items);
+        }
+        return items;
+    }
+
+    @Override
+    public List<Item> after(long afterId, int limit) {
+        List<Item> items = new ArrayList<>(limit + 1);
+        long highest = highestId.get();
+        for (long id = Math.max(afterId, 0) + 1; id <= highest && items.size() < limit; id++) {
+            Item item = get(id);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Segment segment : segments) {
+            if (segment.columns.size > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * intern 해둔 상품명도 같이 비운다.
+     */
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+        itemNames.clear();
+        highestId.set(0);
+    }
+
+    /**
+     * intern 해둔 상품명 수 (테스트용)
+     */
+    int internedNames() {
+        return itemNames.size();
+    }
+
+    private Segment segmentFor(long id) {
+        return segments[(int) (mix(id) >>> 60) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * 행 하나가 itemName을 쓰기 시작한다. intern 해둔 같은 문자열을 돌려준다.
+     */
+    private String acquire(String itemName) {
+        if (itemName == null) {
+            return null;
+        }
+        return itemNames.compute(itemName, (key, name) -> {
+            ItemName interned = name == null ? new ItemName(key) : name;
+            interned.refs++;
+            return interned;
+        }).value;
+    }
+
+    /**
+     * 행 하나가 itemName을 더 이상 쓰지 않는다. 쓰는 행이 없으면 지운다.
+     */
+    private void release(String itemName) {
+        if (itemName == null) {
+            return;
+        }
+        itemNames.computeIfPresent(itemName, (key, name) -> --name.refs == 0 ? null : name);
+    }
+
+    private static long mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+
+        Item get(long id) {
+            long stamp = lock.tryOptimisticRead();
+            Item item = columns.read(id);
+            if (lock.validate(stamp)) {
+                return item;
+            }
+            stamp = lock.readLock();
+            try {
+                return columns.read(id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        Item compute(long id, UnaryOperator<Item> remapping, boolean onlyIfPresent) {
+            long stamp = lock.writeLock();
+            try {
+                Columns current = columns;
+                int row = current.rowOf(id);
+                if (row < 0 && onlyIfPresent) {
+                    return null;
+                }
+                Item item = remapping.apply(row < 0 ? null : current.view(row));
+                if (item == null) {
+                    throw new IllegalStateException("null 상품은 저장할 수 없습니다.");
+                }
+                String oldItemName = null;
+                if (row < 0) {
+                    if (current.size == current.ids.length) {
+                        current = current.grow();
+                        columns = current;
+                    }
+                    row = current.insert(id);
+                    highestId.accumulateAndGet(id, Math::max);
+                } else {
+                    oldItemName = current.itemNames[row];
+                }
+                current.write(row, acquire(item.getItemName()), item.getPrice(), item.getQuantity(), item.getVersion());
+                release(oldItemName);
+                return item;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void addTo(List<Item> items) {
+            long stamp = lock.readLock();
+            try {
+                Columns current = columns;
+                for (int row = 0; row < current.size; row++) {
+                    items.add(current.view(row));
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                columns = new Columns(INITIAL_CAPACITY);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * intern 해둔 상품명과 그 이름을 쓰는 행 수. refs는 itemNames.compute 안에서만 고친다.
+     */
+    private static final class ItemName {
+
+        final String value;
+        int refs;
+
+        ItemName(String value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * 한 세그먼트의 배열들. 모두 같은 capacity로 함께 커지기 때문에,
+     * 낙관적 읽기 중에 값이 어긋나더라도 배열 범위를 벗어나지는 않는다. (어긋난 값은 validate에서 버려진다)
+     */
+    private static final class Columns {
+
+        final long[] ids;
+        final int[] prices;
+        final int[] quantities;
+        final long[] versions;
+        final byte[] nulls;
+        final String[] itemNames;
+        /**
+         * id 해시 -> 행 번호 + 1. 0은 빈 칸이다. 크기는 capacity의 2배(2의 제곱수)라서 항상 절반 이상 비어있다.
+         */
+        final int[] slots;
+        int size;
+
+        Columns(int capacity) {
+            ids = new long[capacity];
+            prices = new int[capacity];
+            quantities = new int[capacity];
+            versions = new long[capacity];
+            nulls = new byte[capacity];
+            itemNames = new String[capacity];
+            slots = new int[capacity * 2];
+        }
+
+        private Columns(Columns from, int capacity) {
+            ids = Arrays.copyOf(from.ids, capacity);
+            prices = Arrays.copyOf(from.prices, capacity);
+            quantities = Arrays.copyOf(from.quantities, capacity);
+            versions = Arrays.copyOf(from.versions, capacity);
+            nulls = Arrays.copyOf(from.nulls, capacity);
+            itemNames = Arrays.copyOf(from.itemNames, capacity);
+            slots = new int[capacity * 2];
+            size = from.size;
+            for (int row = 0; row < size; row++) {
+                slots[freeSlot(ids[row])] = row + 1;
+            }
+        }
+
+        Columns grow() {
+            return new Columns(this, ids.length * 2);
+        }
+
+        int rowOf(long id) {
+            int mask = slots.length - 1;
+            for (int slot = (int) mix(id) & mask; ; slot = (slot + 1) & mask) {
+                int row = slots[slot] - 1;
+                if (row < 0) {
+                    return -1;
+                }
+                if (ids[row] == id) {
+                    return row;
+                }
+            }
+        }
+
+        int insert(long id) {
+            int row = size;
+            ids[row] = id;
+            slots[freeSlot(id)] = row + 1;
+            size = row + 1;
+            return row;
+        }
+
+        void write(int row, String itemName, Integer price, Integer quantity, Long version) {
+            itemNames[row] = itemName;
+            prices[row] = price == null ? 0 : price;
+            quantities[row] = quantity == null ? 0 : quantity;
+            versions[row] = version == null ? 0 : version;
+            nulls[row] = (byte) ((itemName == null ? NULL_ITEM_NAME : 0)
+                    | (price == null ? NULL_PRICE : 0)
+                    | (quantity == null ? NULL_QUANTITY : 0)
+                    | (version == null ? NULL_VERSION : 0));
+        }
+
+        Item read(long id) {
+            int row = rowOf(id);
+            return row < 0 ? null : view(row);
+        }
+
+        Item view(int row) {
+            byte flags = nulls[row];
+            Item item = new Item(
+                    (flags & NULL_ITEM_NAME) != 0 ? null : itemNames[row],
+                    (flags & NULL_PRICE) != 0 ? null : prices[row],
+                    (flags & NULL_QUANTITY) != 0 ? null : quantities[row]);
+            item.setId(ids[row]);
+            item.setVersion((flags & NULL_VERSION) != 0 ? null : versions[row]);
+            return item;
+        }
+
+        private int freeSlot(long id) {
+            int mask = slots.length - 1;
+            int slot = (int) mix(id) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package hello.itemservice.domain.item;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 클라이언트가 보낸 페이지 커서를 읽을 수 없을 때. (Base64가 아니거나, "키:id" 모양이 아니거나, 키가 정렬과 맞지 않는다)
+ * 목록 화면의 cursor 파라미터로 들어오는 값이므로 400으로 응답한다.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidItemCursorException extends IllegalArgumentException {
+
+    public InvalidItemCursorException(String cursor, Throwable cause) {
+        super("잘못된 커서입니다. cursor=" + cursor, cause);
+    }
+}
@@ -32,6 +32,12 @@ public class Item {
 //    @Max(value = 9999, groups = {SaveCheck.class})
     private Integer quantity;
 
+    /**
+     * 저장할 때 0이고 수정할 때마다 1씩 올라간다.
+     * 수정 폼에 담아 보냈다가, 그 사이에 다른 수정이 있었는지 확인하는데 쓴다. (ItemRepository.update)
+     */
+    private Long version;
+
     public Item() {
     }
 
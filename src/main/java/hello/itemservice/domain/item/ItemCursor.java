@@ -0,0 +1,57 @@
+package hello.itemservice.domain.item;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * 페이지 커서 = 마지막으로 본 상품의 (정렬 키, id).
+ * 쿼리 파라미터로 주고받기 위해 "키:id"를 URL-safe Base64로 인코딩한다.
+ * 상품명에 ':'가 들어갈 수 있으므로 마지막 ':' 뒤를 id로 본다.
+ */
+final class ItemCursor {
+
+    final String key;
+    final long id;
+
+    private ItemCursor(String key, long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    static String encode(Object key, long id) {
+        String raw = key + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 잘못된 커서는 InvalidItemCursorException
+     */
+    static ItemCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("구분자(:)가 없습니다.");
+            }
+            long id = Long.parseLong(raw.substring(separator + 1));
+            if (id < 0 || id > ItemIndex.MAX_PACKED_ID) {
+                throw new IllegalArgumentException("id 범위를 벗어났습니다. id=" + id);
+            }
+            return new ItemCursor(raw.substring(0, separator), id);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidItemCursorException(cursor, e);
+        }
+    }
+
+    /**
+     * 키를 정렬 키 타입으로 바꾼다. 다른 정렬의 커서라서 바꿀 수 없으면 InvalidItemCursorException
+     */
+    <K> K key(String cursor, Function<String, K> keyParser) {
+        try {
+            return keyParser.apply(key);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidItemCursorException(cursor, e);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package hello.itemservice.domain.item;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 상품의 한 필드(상품명, 가격, 수량)를 (값, id) 순으로 정렬해서 들고 있는 보조 인덱스.
+ *
+ * ConcurrentSkipListSet을 사용하기 때문에 락 없이 읽을 수 있고,
+ * 범위 조회(subSet)는 전체를 훑지 않고 범위에 해당하는 부분만 본다.
+ *
+ * 같은 값을 가진 상품이 여러개일 수 있으므로 id를 같이 넣어서 구분한다.
+ * - of: (값, id)를 Entry 객체로 담는다. (상품명)
+ * - ofInt: int 값과 id를 long 하나로 묶어서 담는다. 항목마다 Entry, Integer 객체가 생기지 않는다. (가격, 수량)
+ *   id는 0 ~ MAX_PACKED_ID 사이여야 한다.
+ *
+ * id 순서는 인덱스를 따로 두지 않고 store를 id 순으로 읽는다. (ItemStore.after)
+ */
+abstract class ItemIndex<K extends Comparable<K>> {
+
+    static final long MAX_PACKED_ID = 0xFFFF_FFFFL;
+
+    private final Function<Item, K> keyExtractor;
+
+    private ItemIndex(Function<Item, K> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    static <K extends Comparable<K>> ItemIndex<K> of(Function<Item, K> keyExtractor) {
+        return new EntryIndex<>(keyExtractor);
+    }
+
+    static ItemIndex<Integer> ofInt(Function<Item, Integer> keyExtractor) {
+        return new PackedIntIndex(keyExtractor);
+    }
+
+    K keyOf(Item item) {
+        return keyExtractor.apply(item);
+    }
+
+    void add(Item item) {
+        K key = keyOf(item);
+        if (key != null) {
+            add(key, item.getId());
+        }
+    }
+
+    void remove(Item item) {
+        K key = keyOf(item);
+        if (key != null) {
+            remove(key, item.getId());
+        }
+    }
+
+    abstract void add(K key, long id);
+
+    abstract void remove(K key, long id);
+
+    abstract void clear();
+
+    /**
+     * from <= key <= to 인 상품 id를 (key, id) 순서로 돌려준다.
+     */
+    abstract List<Long> range(K from, K to);
+
+    /**
+     * from <= key 인 상품 id를 (key, id) 순서로, key가 inRange를 만족하는 동안 돌려준다.
+     * 위쪽 끝을 값 하나로 정하기 어려운 범위(상품명 prefix)에 쓴다.
+     */
+    abstract List<Long> rangeWhile(K from, Predicate<? super K> inRange);
+
+    /**
+     * (afterKey, afterId) 바로 다음 항목부터 limit개를 돌려준다. afterKey가 null이면 처음부터 읽는다.
+     */
+    abstract List<Entry<K>> after(K afterKey, long afterId, int limit);
+
+    static final class Entry<K> {
+
+        final K key;
+        final long id;
+
+        Entry(K key, long id) {
+            this.key = key;
+            this.id = id;
+        }
+    }
+
+    private static final class EntryIndex<K extends Comparable<K>> extends ItemIndex<K> {
+
+        private final NavigableSet<Entry<K>> entries = new ConcurrentSkipListSet<>(
+                Comparator.<Entry<K>, K>comparing(entry -> entry.key).thenComparingLong(entry -> entry.id));
+
+        EntryIndex(Function<Item, K> keyExtractor) {
+            super(keyExtractor);
+        }
+
+        @Override
+        void add(K key, long id) {
+            entries.add(new Entry<>(key, id));
+        }
+
+        @Override
+        void remove(K key, long id) {
+            entries.remove(new Entry<>(key, id));
+        }
+
+        @Override
+        void clear() {
+            entries.clear();
+        }
+
+        @Override
+        List<Long> range(K from, K to) {
+            NavigableSet<Entry<K>> range = entries.subSet(
+                    new Entry<>(from, Long.MIN_VALUE), true,
+                    new Entry<>(to, Long.MAX_VALUE), true);
+            List<Long> ids = new ArrayList<>();
+            for (Entry<K> entry : range) {
+                ids.add(entry.id);
+            }
+            return ids;
+        }
+
+        @Override
+        List<Long> rangeWhile(K from, Predicate<? super K> inRange) {
+            List<Long> ids = new ArrayList<>();
+            for (Entry<K> entry : entries.tailSet(new Entry<>(from, Long.MIN_VALUE), true)) {
+                if (!inRange.test(entry.key)) {
+                    break;
+                }
+                ids.add(entry.id);
+            }
+            return ids;
+        }
+
+        @Override
+        List<Entry<K>> after(K afterKey, long afterId, int limit) {
+            NavigableSet<Entry<K>> tail = afterKey == null
+                    ? entries
+                    : entries.tailSet(new Entry<>(afterKey, afterId), false);
+            List<Entry<K>> result = new ArrayList<>(limit);
+            for (Entry<K> entry : tail) {
+                if (result.size() == limit) {
+                    break;
+                }
+                result.add(entry);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 값을 위 32비트, id를 아래 32비트에 넣은 long으로 정렬한다. long 순서가 (값, id) 순서와 같다.
+     */
+    private static final class PackedIntIndex extends ItemIndex<Integer> {
+
+        private final NavigableSet<Long> entries = new ConcurrentSkipListSet<>();
+
+        PackedIntIndex(Function<Item, Integer> keyExtractor) {
+            super(keyExtractor);
+        }
+
+        @Override
+        void add(Integer key, long id) {
+            entries.add(pack(key, id));
+        }
+
+        @Override
+        void remove(Integer key, long id) {
+            entries.remove(pack(key, id));
+        }
+
+        @Override
+        void clear() {
+            entries.clear();
+        }
+
+        @Override
+        List<Long> range(Integer from, Integer to) {
+            List<Long> ids = new ArrayList<>();
+            for (long packed : entries.subSet(pack(from, 0), true, pack(to, MAX_PACKED_ID), true)) {
+                ids.add(packed & MAX_PACKED_ID);
+            }
+            return ids;
+        }
+
+        @Override
+        List<Long> rangeWhile(Integer from, Predicate<? super Integer> inRange) {
+            List<Long> ids = new ArrayList<>();
+            for (long packed : entries.tailSet(pack(from, 0), true)) {
+                if (!inRange.test((int) (packed >> 32))) {
+                    break;
+                }
+                ids.add(packed & MAX_PACKED_ID);
+            }
+            return ids;
+        }
+
+        @Override
+        List<Entry<Integer>> after(Integer afterKey, long afterId, int limit) {
+            NavigableSet<Long> tail = afterKey == null
+                    ? entries
+                    : entries.tailSet(pack(afterKey, afterId), false);
+            List<Entry<Integer>> result = new ArrayList<>(limit);
+            for (long packed : tail) {
+                if (result.size() == limit) {
+                    break;
+                }
+                result.add(new Entry<>((int) (packed >> 32), packed & MAX_PACKED_ID));
+            }
+            return result;
+        }
+
+        private static long pack(int key, long id) {
+            if (id < 0 || id > MAX_PACKED_ID) {
+                throw new IllegalArgumentException("id는 0 ~ " + MAX_PACKED_ID + " 사이여야 합니다. id=" + id);
+            }
+            return ((long) key << 32) | id;
+        }
+    }
+}
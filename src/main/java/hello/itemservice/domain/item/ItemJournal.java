@@ -0,0 +1,54 @@
+package hello.itemservice.domain.item;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * ItemRepository의 변경(save, update)을 디스크에 남기는 저널.
+ *
+ * append는 store를 고치는 compute 안에서 호출되므로 같은 상품에 대한 변경 순서대로 기록된다.
+ * 그 대신 append는 기록할 위치만 잡고 바로 돌아와야 하고,
+ * 디스크에 실제로 쓰여질 때까지 기다리는 것(awaitDurable, whenDurable)은 compute 밖에서 한다.
+ */
+public interface ItemJournal {
+
+    ItemJournal NONE = new ItemJournal() {
+        @Override
+        public void recover(Consumer<Item> restore) {
+        }
+
+        @Override
+        public long append(Item item) {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long position) {
+        }
+    };
+
+    /**
+     * 저장되어 있던 상품들을 restore로 다시 넣어주고, 그 다음부터 append를 받을 수 있게 연다.
+     * restore는 여러 쓰레드에서 동시에 호출될 수 있다.
+     */
+    void recover(Consumer<Item> restore);
+
+    /**
+     * 상품의 현재 상태를 기록하고, 기록된 위치를 돌려준다.
+     */
+    long append(Item item);
+
+    /**
+     * append가 돌려준 위치까지 디스크에 기록될 때까지 기다린다.
+     */
+    void awaitDurable(long position);
+
+    /**
+     * awaitDurable과 같지만 기다리지 않고, 기록되면 완료되는 CompletableFuture를 돌려준다.
+     * 기본 구현은 호출한 쓰레드에서 기다린 뒤 완료된 future를 돌려준다.
+     */
+    default CompletableFuture<Void> whenDurable(long position) {
+        awaitDurable(position);
+        return CompletableFuture.completedFuture(null);
+    }
+}
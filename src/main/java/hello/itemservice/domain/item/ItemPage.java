@@ -0,0 +1,32 @@
+package hello.itemservice.domain.item;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 키셋(keyset) 페이지 한 장.
+ *
+ * nextCursor는 이 페이지의 마지막 상품의 (정렬 키, id)를 인코딩한 값이다.
+ * 다음 페이지는 offset으로 앞의 상품들을 세면서 건너뛰지 않고, 인덱스에서 이 커서 바로 다음부터 읽는다.
+ * 마지막 페이지면 nextCursor는 null이다.
+ */
+@Getter
+public class ItemPage {
+
+    private final List<Item> items;
+    private final ItemSort sort;
+    private final int size;
+    private final String nextCursor;
+
+    public ItemPage(List<Item> items, ItemSort sort, int size, String nextCursor) {
+        this.items = items;
+        this.sort = sort;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
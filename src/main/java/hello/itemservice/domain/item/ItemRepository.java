@@ -1,41 +1,465 @@
 package hello.itemservice.domain.item;
 
+import hello.itemservice.domain.item.cache.ItemReadCache;
+import hello.itemservice.domain.item.change.ItemChange;
+import hello.itemservice.domain.item.change.ItemChangeStream;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
+/**
+ * 여러 톰캣 쓰레드가 동시에 접근하므로 HashMap, long 대신
+ * ConcurrentHashMap(MapItemStore), AtomicLong을 사용한다.
+ *
+ * - id 발급은 AtomicLong.incrementAndGet()으로 원자적으로 처리한다.
+ * - 조회는 ConcurrentHashMap.get()이므로 락 없이 동작한다.
+ * - 수정은 저장된 Item을 직접 바꾸지 않고, 새 Item을 만들어 교체한다.
+ *   ConcurrentHashMap.computeIfPresent는 해당 키가 속한 bin만 잠그기 때문에
+ *   다른 상품의 수정과는 서로 막지 않는다. (lock striping)
+ * - 상품마다 버전이 있어서, 기대한 버전을 넘기면 그 버전일 때만 교체한다. (낙관적 동시성, compare-and-swap)
+ *
+ * 상품이 많아서 힙이 부족하면 itemservice.store=columnar 로 ColumnarItemStore를 쓸 수 있다.
+ * 빈은 싱글톤이므로 저장소, 인덱스는 인스턴스 필드로 들고 있는다.
+ *
+ * 상품명, 가격, 수량에는 보조 인덱스(ItemIndex)가 있어서
+ * findAll()로 전체를 복사하지 않고도 접두어 검색, 범위 조회를 할 수 있다.
+ * 인덱스는 store와 같은 compute 안에서 고치기 때문에 같은 상품에 대한 저장/수정과 어긋나지 않는다.
+ * 가격, 수량 인덱스는 (값, id)를 long 하나로 담고, id 순서는 인덱스 없이 store에서 읽는다. (ItemStore.after)
+ *
+ * 목록 화면은 findAll() 대신 findPage()로 인덱스에서 한 페이지 분량만 읽는다.
+ *
+ * ItemJournal이 있으면(itemservice.persistence.enabled=true) 저장/수정을 같은 compute 안에서 로그에 남기고,
+ * 디스크에 기록될 때까지 기다린 뒤에 돌아간다. 시작할 때는 로그에서 상품들을 복구한다.
+ *
+ * ItemChangeStream이 있으면 저장/수정을 같은 compute 안에서 번호를 붙여 변경 스트림에 넣는다.
+ * 검색 색인, 캐시는 findAll()을 다시 읽지 않고 마지막으로 받은 번호 다음의 변경만 받아가면 된다.
+ *
+ * ItemReadCache가 있으면(itemservice.read-cache.enabled=true) findById는 캐시를 먼저 보고,
+ * 저장/수정은 compute가 끝난 뒤에 캐시에서 지운다.
+ */
 @Repository
 public class ItemRepository {
 
-    private static final Map<Long, Item> store = new HashMap<>(); //static
-    private static long sequence = 0L; //static
+    private final ItemStore store;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ItemIndex<String> itemNameIndex = ItemIndex.of(Item::getItemName);
+    private final ItemIndex<Integer> priceIndex = ItemIndex.ofInt(Item::getPrice);
+    private final ItemIndex<Integer> quantityIndex = ItemIndex.ofInt(Item::getQuantity);
+
+    private ItemJournal journal = ItemJournal.NONE;
+    private ItemChangeStream changeStream;
+    private ItemReadCache readCache;
+
+    public ItemRepository() {
+        this(new MapItemStore());
+    }
+
+    @Autowired
+    public ItemRepository(ItemStore store) {
+        this.store = store;
+    }
+
+    /**
+     * 로그에 남아있던 상품들을 복구한 뒤부터 저장/수정을 로그에 남긴다.
+     */
+    @Autowired(required = false)
+    public void setJournal(ItemJournal journal) {
+        journal.recover(this::restore);
+        this.journal = journal;
+    }
+
+    @Autowired(required = false)
+    public void setChangeStream(ItemChangeStream changeStream) {
+        this.changeStream = changeStream;
+    }
+
+    @Autowired(required = false)
+    public void setReadCache(ItemReadCache readCache) {
+        this.readCache = readCache;
+    }
 
     public Item save(Item item) {
-        item.setId(++sequence);
-        store.put(item.getId(), item);
+        item.setId(sequence.incrementAndGet());
+        item.setVersion(0L);
+        journal.awaitDurable(put(item));
         return item;
     }
 
+    /**
+     * save와 같지만 디스크에 기록될 때까지 호출한 쓰레드를 붙잡아두지 않는다.
+     * 돌려준 future는 기록이 끝나면 로그의 flusher 쓰레드에서 완료된다.
+     */
+    public CompletableFuture<Item> saveAsync(Item item) {
+        item.setId(sequence.incrementAndGet());
+        item.setVersion(0L);
+        return journal.whenDurable(put(item)).thenApply(durable -> item);
+    }
+
+    /**
+     * 여러 상품을 한번에 저장한다. id는 getAndAdd로 한번에 필요한 만큼 받아온다.
+     */
+    public List<Item> saveAll(List<Item> items) {
+        long id = sequence.getAndAdd(items.size());
+        long position = 0;
+        for (Item item : items) {
+            item.setId(++id);
+            item.setVersion(0L);
+            position = put(item);
+        }
+        // 마지막 상품까지 기록되면 앞의 상품들도 모두 기록된 것이다.
+        journal.awaitDurable(position);
+        return items;
+    }
+
+    /**
+     * 저장하기 전에 id만 먼저 받는다. (ItemWriteBehind는 id를 바로 돌려주고 저장은 나중에 한다)
+     */
+    public long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * ItemWriteBehind가 큐에 모아둔 저장/수정(id, 버전이 이미 정해진 상품들)을 쓴다. 로그에 기록되는 것은 마지막에 한 번만 기다린다.
+     *
+     * 큐에 넣은 뒤에 다른 경로(update)로 먼저 수정됐을 수 있으므로, store의 현재 버전이 expectedVersions의 버전일 때만 교체한다.
+     * 확인은 compute 안에서 하기 때문에 update와 엇갈려도 한쪽만 들어간다. 버전이 다르면 쓰지 않고 conflicts로 넘긴다.
+     * 실패한 배치를 다시 쓰는 경우 앞선 시도에서 이미 들어간 상품(같은 값, 같은 버전)은 로그에만 다시 남긴다.
+     *
+     * @param expectedVersions id -> 쓰기 전에 store에 있어야 하는 버전. null이면(저장) 상품이 없어야 한다.
+     */
+    public void putAll(Collection<Item> items, Map<Long, Long> expectedVersions, Consumer<Item> conflicts) {
+        long position = 0;
+        for (Item item : items) {
+            long itemPosition = putIfVersion(item, expectedVersions.get(item.getId()));
+            if (itemPosition < 0) {
+                conflicts.accept(item);
+            }
+            position = Math.max(position, itemPosition);
+        }
+        journal.awaitDurable(position);
+    }
+
     public Item findById(Long id) {
-        return store.get(id);
+        if (readCache == null) {
+            return store.get(id);
+        }
+        return readCache.get(id, store::get);
     }
 
     public List<Item> findAll() {
-        return new ArrayList<>(store.values());
+        return store.values();
+    }
+
+    public boolean isEmpty() {
+        return store.isEmpty();
+    }
+
+    /**
+     * 키셋 페이지네이션. cursor(이전 페이지의 nextCursor) 바로 다음 상품부터 size개를 sort 순서로 읽는다.
+     * cursor가 null이면 첫 페이지다. 읽을 수 없는 cursor는 InvalidItemCursorException(400)
+     *
+     * 정렬 키가 null인 상품은 해당 정렬의 인덱스에 들어가지 않기 때문에 목록에 나오지 않는다.
+     */
+    public ItemPage findPage(ItemSort sort, String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size는 1 이상이어야 합니다. size=" + size);
+        }
+        switch (sort) {
+            case ITEM_NAME:
+                return findPage(itemNameIndex, Function.identity(), sort, cursor, size);
+            case PRICE:
+                return findPage(priceIndex, Integer::valueOf, sort, cursor, size);
+            case QUANTITY:
+                return findPage(quantityIndex, Integer::valueOf, sort, cursor, size);
+            default:
+                return findPageById(sort, cursor, size);
+        }
+    }
+
+    /**
+     * 상품명이 prefix로 시작하는 상품을 상품명 순으로 조회한다.
+     * prefix 다음 글자가 무엇이든(U+FFFF, 보조 문자 포함) 빠지지 않도록 prefix부터 읽다가 prefix로 시작하지 않는 이름에서 멈춘다.
+     */
+    public List<Item> findByItemNamePrefix(String prefix) {
+        List<Long> ids = itemNameIndex.rangeWhile(prefix, name -> name.startsWith(prefix));
+        return findAllById(ids, item -> item.getItemName() != null && item.getItemName().startsWith(prefix));
     }
 
+    /**
+     * minPrice <= 가격 <= maxPrice 인 상품을 가격 순으로 조회한다.
+     */
+    public List<Item> findByPriceBetween(int minPrice, int maxPrice) {
+        if (minPrice > maxPrice) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = priceIndex.range(minPrice, maxPrice);
+        return findAllById(ids, item -> between(item.getPrice(), minPrice, maxPrice));
+    }
+
+    /**
+     * minQuantity <= 수량 <= maxQuantity 인 상품을 수량 순으로 조회한다.
+     */
+    public List<Item> findByQuantityBetween(int minQuantity, int maxQuantity) {
+        if (minQuantity > maxQuantity) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = quantityIndex.range(minQuantity, maxQuantity);
+        return findAllById(ids, item -> between(item.getQuantity(), minQuantity, maxQuantity));
+    }
+
+    /**
+     * 버전을 확인하지 않고 수정한다. (마지막 수정이 이긴다)
+     * 컨트롤러는 ItemWriteBehind.update를 거친다. write-behind가 켜져 있을 때 여기를 바로 부르면 큐에 있는 수정이 버려질 수 있다.
+     */
     public void update(Long itemId, Item updateParam) {
-        Item findItem = findById(itemId);
-        findItem.setItemName(updateParam.getItemName());
-        findItem.setPrice(updateParam.getPrice());
-        findItem.setQuantity(updateParam.getQuantity());
+        update(itemId, updateParam, null);
+    }
+
+    /**
+     * 읽고 있는 다른 쓰레드가 반쯤 바뀐 상품을 보지 않도록
+     * 기존 Item의 값을 바꾸지 않고, 수정된 값과 다음 버전으로 새 Item을 만들어 통째로 교체한다.
+     *
+     * expectedVersion이 있으면 현재 버전이 같을 때만 교체하고, 다르면 ItemVersionConflictException을 던진다.
+     * 먼저 락 없이 읽어서 확인하고(이미 다르면 bin을 잠그지 않고 실패), computeIfPresent 안에서 한번 더 확인한다.
+     * 같은 상품을 동시에 수정하면 하나만 교체되고 나머지는 충돌로 끝난다.
+     *
+     * @return 교체된 상품. 상품이 없으면 null
+     */
+    public Item update(Long itemId, Item updateParam, Long expectedVersion) {
+        Item current = store.get(itemId);
+        if (current == null) {
+            return null;
+        }
+        checkVersion(current, expectedVersion);
+
+        long[] position = new long[1];
+        Item updated = store.computeIfPresent(itemId, findItem -> {
+            checkVersion(findItem, expectedVersion);
+            Item updatedItem = new Item(updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity());
+            updatedItem.setId(itemId);
+            updatedItem.setVersion(nextVersion(findItem));
+            position[0] = journal.append(updatedItem);
+            publish(ItemChange.Type.UPDATE, updatedItem);
+            return replace(findItem, updatedItem);
+        });
+        signalChanges();
+        invalidateCache(itemId);
+        journal.awaitDurable(position[0]);
+        return updated;
+    }
+
+    /**
+     * 버전이 없는 상품(버전이 생기기 전 로그에서 복구한 상품)은 0으로 본다.
+     */
+    public static long nextVersion(Item item) {
+        return item.getVersion() == null ? 1 : item.getVersion() + 1;
+    }
+
+    public static void checkVersion(Item item, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return;
+        }
+        long currentVersion = version(item);
+        if (currentVersion != expectedVersion) {
+            throw new ItemVersionConflictException(item.getId(), expectedVersion, currentVersion);
+        }
     }
 
+    /**
+     * 메모리만 비운다. 로그는 그대로 남는다. (테스트용)
+     */
     public void clearStore() {
         store.clear();
+        itemNameIndex.clear();
+        priceIndex.clear();
+        quantityIndex.clear();
+        if (readCache != null) {
+            readCache.clear();
+        }
+    }
+
+    /**
+     * 로그에 먼저 남기고 인덱스를 고친다. 로그에 쓰다가 실패하면 store, 인덱스 모두 그대로다.
+     */
+    private long put(Item item) {
+        long[] position = new long[1];
+        store.compute(item.getId(), oldItem -> {
+            position[0] = journal.append(item);
+            publish(oldItem == null ? ItemChange.Type.SAVE : ItemChange.Type.UPDATE, item);
+            return replace(oldItem, item);
+        });
+        signalChanges();
+        invalidateCache(item.getId());
+        return position[0];
+    }
+
+    /**
+     * @return 로그에 기록된 위치. 버전이 맞지 않아 쓰지 않았으면 -1
+     */
+    private long putIfVersion(Item item, Long expectedVersion) {
+        long[] position = {-1};
+        boolean[] written = new boolean[1];
+        UnaryOperator<Item> remapping = oldItem -> {
+            if (item.equals(oldItem)) {
+                position[0] = journal.append(item);
+                return oldItem;
+            }
+            if (expectedVersion == null ? oldItem != null : version(oldItem) != expectedVersion) {
+                return oldItem;
+            }
+            position[0] = journal.append(item);
+            publish(oldItem == null ? ItemChange.Type.SAVE : ItemChange.Type.UPDATE, item);
+            written[0] = true;
+            return replace(oldItem, item);
+        };
+        if (expectedVersion == null) {
+            store.compute(item.getId(), remapping);
+        } else {
+            store.computeIfPresent(item.getId(), remapping);
+        }
+        if (written[0]) {
+            signalChanges();
+            invalidateCache(item.getId());
+        }
+        return position[0];
+    }
+
+    private static long version(Item item) {
+        return item.getVersion() == null ? 0 : item.getVersion();
+    }
+
+    private void publish(ItemChange.Type type, Item item) {
+        if (changeStream != null) {
+            changeStream.append(type, item);
+        }
+    }
+
+    private void signalChanges() {
+        if (changeStream != null) {
+            changeStream.signal();
+        }
+    }
+
+    /**
+     * store를 고친 뒤에 지워야 고치기 전 값을 읽던 쓰레드가 캐시에 다시 넣지 못한다. (ItemReadCache)
+     */
+    private void invalidateCache(long itemId) {
+        if (readCache != null) {
+            readCache.invalidate(itemId);
+        }
+    }
+
+    /**
+     * 로그에서 읽은 상품을 다시 넣는다. 여러 쓰레드에서 동시에 호출된다.
+     */
+    private void restore(Item item) {
+        store.compute(item.getId(), oldItem -> replace(oldItem, item));
+        sequence.accumulateAndGet(item.getId(), Math::max);
+    }
+
+    private Item replace(Item oldItem, Item newItem) {
+        if (oldItem != null) {
+            unindex(oldItem);
+        }
+        index(newItem);
+        return newItem;
+    }
+
+    private void index(Item item) {
+        itemNameIndex.add(item);
+        priceIndex.add(item);
+        quantityIndex.add(item);
+    }
+
+    private void unindex(Item item) {
+        itemNameIndex.remove(item);
+        priceIndex.remove(item);
+        quantityIndex.remove(item);
+    }
+
+    /**
+     * 한 개를 더 읽어서 다음 페이지가 있는지 확인한다.
+     * 인덱스를 읽는 사이에 정렬 키가 바뀐 상품은 건너뛰고(바뀐 위치에서 다시 나온다), 페이지가 찰 때까지 이어서 읽는다.
+     */
+    private <K extends Comparable<K>> ItemPage findPage(ItemIndex<K> index, Function<String, K> keyParser,
+                                                        ItemSort sort, String cursor, int size) {
+        K lastKey = null;
+        long lastId = 0;
+        if (cursor != null) {
+            ItemCursor itemCursor = ItemCursor.decode(cursor);
+            lastKey = itemCursor.key(cursor, keyParser);
+            lastId = itemCursor.id;
+        }
+
+        List<Item> items = new ArrayList<>(size + 1);
+        while (items.size() <= size) {
+            List<ItemIndex.Entry<K>> entries = index.after(lastKey, lastId, size + 1 - items.size());
+            if (entries.isEmpty()) {
+                break;
+            }
+            for (ItemIndex.Entry<K> entry : entries) {
+                lastKey = entry.key;
+                lastId = entry.id;
+                Item item = store.get(entry.id);
+                if (item != null && entry.key.equals(index.keyOf(item))) {
+                    items.add(item);
+                }
+            }
+        }
+
+        String nextCursor = null;
+        if (items.size() > size) {
+            items.remove(size);
+            Item last = items.get(size - 1);
+            nextCursor = ItemCursor.encode(index.keyOf(last), last.getId());
+        }
+        return new ItemPage(items, sort, size, nextCursor);
+    }
+
+    /**
+     * id 순서는 store에서 바로 읽는다. 커서의 키는 다른 정렬과 같은 모양이 되도록 id를 그대로 넣는다.
+     */
+    private ItemPage findPageById(ItemSort sort, String cursor, int size) {
+        long lastId = cursor == null ? 0 : ItemCursor.decode(cursor).id;
+        List<Item> items = new ArrayList<>(store.after(lastId, size + 1));
+
+        String nextCursor = null;
+        if (items.size() > size) {
+            items.remove(size);
+            Item last = items.get(size - 1);
+            nextCursor = ItemCursor.encode(last.getId(), last.getId());
+        }
+        return new ItemPage(items, sort, size, nextCursor);
+    }
+
+    /**
+     * 인덱스를 읽은 뒤 상품이 수정됐을 수 있으므로, store에서 꺼낸 현재 상품이 조건에 맞는지 한번 더 확인한다.
+     */
+    private List<Item> findAllById(List<Long> ids, Predicate<Item> condition) {
+        List<Item> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Item item = store.get(id);
+            if (item != null && condition.test(item)) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    private static boolean between(Integer value, int min, int max) {
+        return value != null && value >= min && value <= max;
     }
 
 }
@@ -0,0 +1,335 @@
+package hello.itemservice.domain.item;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * 어느 한 시점의 상품 전체를 담은 불변 목록. 바꾸면 새 ItemSnapshot이 나오고 이전 것은 그대로다.
+ *
+ * id를 인덱스로 하는 32갈래 트리(persistent vector)라서 한 상품을 바꿀 때 루트에서 그 상품까지의 노드(깊이만큼, 32칸 배열)만
+ * 새로 만들고 나머지 노드는 이전 스냅샷과 같이 쓴다. 상품 100만개면 깊이는 4다.
+ * 여러 변경을 한번에 적용할 때(withAll)는 그 안에서 새로 만든 노드를 다시 복사하지 않고 고친다.
+ *
+ * 목록의 순서는 id 순서다. 노드마다 아래에 있는 상품 수를 들고 있어서
+ * get(i)는 중간에 빈 id가 있어도 상품 수를 보면서 깊이만큼만 내려간다. (빈 id가 없으면 id=i+1을 바로 찾는다)
+ * iterator는 잎 노드(32칸)를 한번 찾으면 그 안의 상품들을 이어서 돌려주고, 상품이 없는 가지는 건너뛴다.
+ */
+final class ItemSnapshot extends AbstractList<Item> implements RandomAccess {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    static final ItemSnapshot EMPTY = new ItemSnapshot(new Node(null), 0, 0);
+
+    private final Node root;
+    private final int shift;
+    private final long highestId;
+
+    private ItemSnapshot(Node root, int shift, long highestId) {
+        this.root = root;
+        this.shift = shift;
+        this.highestId = highestId;
+    }
+
+    Item find(long id) {
+        Node leaf = leafFor(id);
+        return leaf == null ? null : (Item) leaf.slots[(int) id & MASK];
+    }
+
+    /**
+     * id가 afterId보다 큰 상품을 id 순으로 limit개까지 돌려준다. 상품이 없는 가지는 내려가지 않고 건너뛴다.
+     */
+    List<Item> after(long afterId, int limit) {
+        List<Item> items = new ArrayList<>(Math.min(limit, size()) + 1);
+        Itr itr = new Itr(ceilingId(Math.max(afterId, 0) + 1), Math.min(limit, size()));
+        while (itr.hasNext()) {
+            items.add(itr.next());
+        }
+        return items;
+    }
+
+    static void checkId(long id) {
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("id는 0 ~ " + Integer.MAX_VALUE + " 사이여야 합니다. id=" + id);
+        }
+    }
+
+    ItemSnapshot with(long id, Item item) {
+        return withAll(new long[]{id}, new Item[]{item}, 1);
+    }
+
+    /**
+     * ids[i]에 items[i]를 순서대로 넣은 새 스냅샷. 같은 id가 여러번 있으면 뒤의 것이 남는다.
+     */
+    ItemSnapshot withAll(long[] ids, Item[] items, int count) {
+        Object edit = new Object();
+        Node newRoot = root;
+        int newShift = shift;
+        long newHighestId = highestId;
+        for (int i = 0; i < count; i++) {
+            long id = ids[i];
+            checkId(id);
+            while (id > capacity(newShift)) {
+                Node grown = new Node(edit);
+                grown.slots[0] = newRoot;
+                grown.count = newRoot.count;
+                newRoot = grown;
+                newShift += BITS;
+            }
+            newRoot = set(newRoot, newShift, id, items[i], edit);
+            newHighestId = Math.max(newHighestId, id);
+        }
+        return new ItemSnapshot(newRoot, newShift, newHighestId);
+    }
+
+    @Override
+    public Item get(int index) {
+        checkIndex(index, size());
+        if (highestId == size()) {
+            return find(index + 1L);
+        }
+        return find(idAt(index));
+    }
+
+    @Override
+    public int size() {
+        return root.count;
+    }
+
+    @Override
+    public Iterator<Item> iterator() {
+        return new Itr(ceilingId(0), size());
+    }
+
+    @Override
+    public Spliterator<Item> spliterator() {
+        return Spliterators.spliterator(iterator(), size(),
+                Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL);
+    }
+
+    /**
+     * 원래 목록의 get(i)를 쓰는 대신 시작 위치의 id를 한 번 찾은 뒤 잎 노드를 따라 읽는다.
+     */
+    @Override
+    public List<Item> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex=" + fromIndex + ", toIndex=" + toIndex + ", size=" + size());
+        }
+        return new Range(fromIndex, toIndex);
+    }
+
+    private Node leafFor(long id) {
+        if (id < 0 || id > capacity(shift)) {
+            return null;
+        }
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.slots[(int) (id >>> level) & MASK];
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * index번째(0부터) 상품의 id. 노드의 상품 수를 빼가면서 내려간다.
+     */
+    private long idAt(int index) {
+        Node node = root;
+        long id = 0;
+        int remaining = index;
+        for (int level = shift; ; level -= BITS) {
+            for (int slot = 0; slot < WIDTH; slot++) {
+                Object child = node.slots[slot];
+                if (child == null) {
+                    continue;
+                }
+                int count = level == 0 ? 1 : ((Node) child).count;
+                if (remaining < count) {
+                    id |= (long) slot << level;
+                    if (level == 0) {
+                        return id;
+                    }
+                    node = (Node) child;
+                    break;
+                }
+                remaining -= count;
+            }
+        }
+    }
+
+    /**
+     * from 이상이면서 상품이 있는 가장 작은 id. 없으면 -1
+     */
+    private long ceilingId(long from) {
+        if (from > capacity(shift)) {
+            return -1;
+        }
+        return ceiling(root, shift, from);
+    }
+
+    /**
+     * node 아래에서 from 이상인 첫 상품의 id. from이 들어있는 칸부터 보고, 그 다음 칸들은 맨 앞부터 본다.
+     */
+    private static long ceiling(Node node, int level, long from) {
+        int first = (int) (from >>> level) & MASK;
+        long nodeBase = from & ~capacity(level);
+        for (int slot = first; slot < WIDTH; slot++) {
+            Object child = node.slots[slot];
+            if (child == null) {
+                continue;
+            }
+            long childBase = nodeBase | ((long) slot << level);
+            if (level == 0) {
+                return childBase;
+            }
+            long found = ceiling((Node) child, level - BITS, slot == first ? from : childBase);
+            if (found >= 0) {
+                return found;
+            }
+        }
+        return -1;
+    }
+
+    private static Node set(Node node, int level, long id, Item item, Object edit) {
+        Node target = node == null ? new Node(edit) : node.editable(edit);
+        int slot = (int) (id >>> level) & MASK;
+        if (level == 0) {
+            if (target.slots[slot] == null) {
+                target.count++;
+            }
+            target.slots[slot] = item;
+        } else {
+            Node child = (Node) target.slots[slot];
+            int before = child == null ? 0 : child.count;
+            Node newChild = set(child, level - BITS, id, item, edit);
+            target.slots[slot] = newChild;
+            target.count += newChild.count - before;
+        }
+        return target;
+    }
+
+    private static long capacity(int shift) {
+        return (1L << (shift + BITS)) - 1;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+    }
+
+    /**
+     * 트리의 한 노드. 잎 노드(level 0)의 칸에는 Item이, 나머지 노드의 칸에는 아래 Node가 들어간다.
+     *
+     * edit은 이 노드를 만든 withAll 호출의 표시다. 같은 호출 안에서는 복사하지 않고 고치고,
+     * 스냅샷이 만들어진 뒤에는 그 표시를 다시 쓰는 호출이 없으므로 바뀌지 않는다.
+     */
+    private static final class Node {
+
+        final Object[] slots;
+        final Object edit;
+        int count;
+
+        Node(Object edit) {
+            this.slots = new Object[WIDTH];
+            this.edit = edit;
+        }
+
+        private Node(Node from, Object edit) {
+            this.slots = from.slots.clone();
+            this.count = from.count;
+            this.edit = edit;
+        }
+
+        Node editable(Object edit) {
+            return this.edit == edit ? this : new Node(this, edit);
+        }
+    }
+
+    /**
+     * firstId부터 id 순으로 remaining개(그 전에 상품이 끝나면 거기까지)를 돌려준다. 잎 노드 안에서는 다음 칸을 이어서 보고, 잎을 다 보면 다음 상품이 있는 잎으로 내려간다.
+     */
+    private final class Itr implements Iterator<Item> {
+
+        private long id;
+        private Node leaf;
+        private int remaining;
+
+        Itr(long firstId, int remaining) {
+            this.id = firstId;
+            this.remaining = firstId < 0 ? 0 : remaining;
+            this.leaf = firstId < 0 ? null : leafFor(firstId);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Item next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            Item item = (Item) leaf.slots[(int) id & MASK];
+            if (--remaining > 0) {
+                advance();
+            }
+            return item;
+        }
+
+        private void advance() {
+            for (int slot = ((int) id & MASK) + 1; slot < WIDTH; slot++) {
+                if (leaf.slots[slot] != null) {
+                    id = (id & ~MASK) | slot;
+                    return;
+                }
+            }
+            id = ceilingId((id | MASK) + 1);
+            if (id < 0) {
+                remaining = 0;
+                return;
+            }
+            leaf = leafFor(id);
+        }
+    }
+
+    private final class Range extends AbstractList<Item> implements RandomAccess {
+
+        private final int fromIndex;
+        private final int toIndex;
+
+        Range(int fromIndex, int toIndex) {
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        public Item get(int index) {
+            checkIndex(index, size());
+            return ItemSnapshot.this.get(fromIndex + index);
+        }
+
+        @Override
+        public int size() {
+            return toIndex - fromIndex;
+        }
+
+        @Override
+        public Iterator<Item> iterator() {
+            if (size() == 0) {
+                return new Itr(-1, 0);
+            }
+            return new Itr(highestId == ItemSnapshot.this.size() ? fromIndex + 1L : idAt(fromIndex), size());
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package hello.itemservice.domain.item;
+
+/**
+ * 상품 목록 정렬 기준. 어떤 기준이든 같은 값끼리는 id 순으로 정렬한다.
+ */
+public enum ItemSort {
+    ID, ITEM_NAME, PRICE, QUANTITY
+}
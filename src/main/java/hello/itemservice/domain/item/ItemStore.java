@@ -0,0 +1,44 @@
+package hello.itemservice.domain.item;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * ItemRepository가 id로 상품을 담아두는 곳.
+ *
+ * - MapItemStore: ConcurrentHashMap<Long, Item>. 저장한 Item 객체를 그대로 들고 있다.
+ * - ColumnarItemStore: id, 가격, 수량을 기본형 배열에 나누어 담고, 꺼낼 때마다 Item을 새로 만들어준다.
+ *
+ * itemservice.store=columnar 로 바꿀 수 있다. (기본은 map)
+ */
+public interface ItemStore {
+
+    Item get(long id);
+
+    /**
+     * id에 저장된 상품(없으면 null)을 받아 새 상품을 돌려주는 함수를 원자적으로 적용하고, 저장된 상품을 돌려준다.
+     * 같은 id에 대한 다른 compute와는 겹치지 않는다. 함수는 null을 돌려주면 안된다.
+     */
+    Item compute(long id, UnaryOperator<Item> remapping);
+
+    /**
+     * id에 상품이 있을 때만 compute와 같이 동작한다. 없으면 null을 돌려준다.
+     */
+    Item computeIfPresent(long id, UnaryOperator<Item> remapping);
+
+    /**
+     * 저장된 상품들을 돌려준다. 돌려받은 목록은 나중의 저장/수정으로 바뀌지 않는다.
+     * MapItemStore는 불변 스냅샷(ItemSnapshot)을 그대로, ColumnarItemStore는 복사본을 돌려준다.
+     */
+    List<Item> values();
+
+    /**
+     * id가 afterId보다 큰 상품을 id 순으로 limit개까지 돌려준다. (목록의 id 순 정렬)
+     * id 순서는 인덱스를 따로 두지 않고 저장소에서 바로 읽는다.
+     */
+    List<Item> after(long afterId, int limit);
+
+    boolean isEmpty();
+
+    void clear();
+}
@@ -0,0 +1,24 @@
+package hello.itemservice.domain.item;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * itemservice.store 값으로 ItemRepository가 사용할 저장소를 고른다. (map, columnar)
+ */
+@Configuration(proxyBeanMethods = false)
+public class ItemStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "itemservice.store", havingValue = "map", matchIfMissing = true)
+    public ItemStore mapItemStore() {
+        return new MapItemStore();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "itemservice.store", havingValue = "columnar")
+    public ItemStore columnarItemStore() {
+        return new ColumnarItemStore();
+    }
+}
@@ -0,0 +1,22 @@
+package hello.itemservice.domain.item;
+
+import lombok.Getter;
+
+/**
+ * 수정하려는 상품의 버전이 기대한 버전과 다를 때. (수정 폼을 연 뒤에 다른 수정이 먼저 저장됐다)
+ */
+@Getter
+public class ItemVersionConflictException extends RuntimeException {
+
+    private final long itemId;
+    private final Long expectedVersion;
+    private final Long currentVersion;
+
+    public ItemVersionConflictException(long itemId, Long expectedVersion, Long currentVersion) {
+        super("상품이 이미 수정되었습니다. itemId=" + itemId
+                + ", expectedVersion=" + expectedVersion + ", currentVersion=" + currentVersion);
+        this.itemId = itemId;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+}
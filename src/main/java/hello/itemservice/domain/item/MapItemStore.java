@@ -0,0 +1,82 @@
+package hello.itemservice.domain.item;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * ConcurrentHashMap에 Item을 그대로 담는 기본 저장소.
+ * compute는 해당 키가 속한 bin만 잠그고, get은 락 없이 동작한다.
+ *
+ * 전체 목록(values)은 ArrayList로 복사하지 않고 불변 ItemSnapshot을 그대로 돌려준다.
+ * 쓰는 쪽이 compute 안에서 새 스냅샷을 만들어 CAS로 바꿔 끼우기 때문에(copy-on-write, 바뀐 경로만 복사)
+ * 같은 상품의 변경은 스냅샷에도 같은 순서로 반영되고, 읽는 쪽은 락 없이 한 시점의 목록을 받는다.
+ * 스냅샷은 map과 같은 Item 객체를 가리키므로 상품마다 늘어나는 것은 트리의 참조 한 칸 정도다.
+ * CAS에 실패하면 자기 경로(깊이만큼의 노드)만 다시 복사한다. 다른 쓰레드를 기다리지 않으므로
+ * 어떤 쓰레드가 멈춰도 bin 락을 잡은 다른 쓰레드가 그 쓰레드를 기다리는 일은 없다.
+ *
+ * remapping이 기존 Item을 그대로 돌려주면(버전이 맞지 않아 바꾸지 않은 경우 등) 스냅샷은 건드리지 않는다.
+ */
+public class MapItemStore implements ItemStore {
+
+    private final Map<Long, Item> store = new ConcurrentHashMap<>();
+    private final AtomicReference<ItemSnapshot> snapshot = new AtomicReference<>(ItemSnapshot.EMPTY);
+
+    @Override
+    public Item get(long id) {
+        return store.get(id);
+    }
+
+    @Override
+    public Item compute(long id, UnaryOperator<Item> remapping) {
+        ItemSnapshot.checkId(id);
+        return store.compute(id, (key, oldItem) -> publish(id, oldItem, requireItem(remapping.apply(oldItem))));
+    }
+
+    @Override
+    public Item computeIfPresent(long id, UnaryOperator<Item> remapping) {
+        ItemSnapshot.checkId(id);
+        return store.computeIfPresent(id, (key, oldItem) -> publish(id, oldItem, requireItem(remapping.apply(oldItem))));
+    }
+
+    @Override
+    public List<Item> values() {
+        return snapshot.get();
+    }
+
+    @Override
+    public List<Item> after(long afterId, int limit) {
+        return snapshot.get().after(afterId, limit);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return store.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        store.clear();
+        snapshot.set(ItemSnapshot.EMPTY);
+    }
+
+    private Item publish(long id, Item oldItem, Item item) {
+        if (item == oldItem) {
+            return item;
+        }
+        ItemSnapshot current;
+        do {
+            current = snapshot.get();
+        } while (!snapshot.compareAndSet(current, current.with(id, item)));
+        return item;
+    }
+
+    private static Item requireItem(Item item) {
+        if (item == null) {
+            throw new IllegalStateException("null 상품은 저장할 수 없습니다.");
+        }
+        return item;
+    }
+}
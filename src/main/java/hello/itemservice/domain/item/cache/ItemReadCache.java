@@ -0,0 +1,348 @@
+package hello.itemservice.domain.item.cache;
+
+import hello.itemservice.domain.item.Item;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * ItemRepository.findById 앞에 두는 읽기 캐시. (itemservice.read-cache.enabled=true 일 때)
+ *
+ * id로 나눈 shard마다 segmented LRU를 둔다.
+ * - 처음 들어온 상품은 probation 구간에 들어가고, 한번 더 읽히면 protected 구간(전체의 80%)으로 올라간다.
+ *   목록을 한 번 훑는 것처럼 한 번씩만 읽히는 상품들은 probation에서만 돌다가 밀려나서, 자주 읽는 상품을 밀어내지 못한다.
+ * - 찾는 것은 ConcurrentHashMap.get이라 락이 없다. 순서를 고치는 것은 shard 락을 tryLock으로 잡힐 때만 한다.
+ *   (다른 쓰레드가 잡고 있으면 순서만 건너뛴다. 캐시에서 읽는 것은 막히지 않는다)
+ * - ttl이 지난 상품은 없는 것으로 보고 다시 읽는다.
+ * - offHeapBytes가 있으면 밀려난 상품을 OffHeapItemTier(direct ByteBuffer)에 내려두고, 다시 읽히면 올린다.
+ *
+ * 저장/수정은 store를 고친 뒤에 invalidate(id)로 지운다.
+ * 읽어오는(load) 사이에 같은 id에 invalidate가 있었으면 읽어온 값은 캐시에 넣지 않는다.
+ * (수정 전 값을 읽은 쓰레드가 수정 뒤에 캐시를 덮어쓰지 않도록)
+ * 읽기 시작할 때 id마다 표시(loading)를 남기고 invalidate는 그 id의 표시만 지우므로, 다른 상품의 수정은 영향이 없다.
+ */
+public class ItemReadCache {
+
+    static final int SHARDS = 16;
+    private static final int PROTECTED_PERCENT = 80;
+
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long offHeapBytes;
+    private final LongSupplier nanoClock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder offHeapHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder offHeapEvictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param ttl          0이면 만료되지 않는다.
+     * @param offHeapBytes 0이면 힙 캐시만 쓴다.
+     */
+    public ItemReadCache(int maxEntries, Duration ttl, long offHeapBytes) {
+        this(maxEntries, ttl, offHeapBytes, System::nanoTime);
+    }
+
+    ItemReadCache(int maxEntries, Duration ttl, long offHeapBytes, LongSupplier nanoClock) {
+        if (maxEntries < SHARDS) {
+            throw new IllegalArgumentException("maxEntries는 " + SHARDS + " 이상이어야 합니다. maxEntries=" + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.offHeapBytes = offHeapBytes;
+        this.nanoClock = nanoClock;
+        long offHeapSlots = Math.min(offHeapBytes / SHARDS / OffHeapItemTier.SLOT_SIZE,
+                Integer.MAX_VALUE / OffHeapItemTier.SLOT_SIZE);
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(maxEntries / SHARDS, offHeapSlots > 0 ? new OffHeapItemTier((int) offHeapSlots) : null);
+        }
+    }
+
+    /**
+     * 캐시에 있으면 돌려주고, 없으면 loader로 읽어서 넣는다. loader가 null을 돌려주면 넣지 않는다.
+     */
+    public Item get(long id, LongFunction<Item> loader) {
+        Shard shard = shardFor(id);
+        long now = nanoClock.getAsLong();
+        Node node = shard.nodes.get(id);
+        if (node != null && !isExpired(node, now)) {
+            hits.increment();
+            shard.touch(node);
+            return node.item;
+        }
+
+        Object load;
+        shard.lock.lock();
+        try {
+            node = shard.nodes.get(id);
+            if (node != null) {
+                if (!isExpired(node, now)) {
+                    hits.increment();
+                    shard.promote(node);
+                    return node.item;
+                }
+                expirations.increment();
+                shard.remove(node);
+            }
+            if (shard.offHeap != null) {
+                node = shard.offHeap.remove(id);
+                if (node != null && !isExpired(node, now)) {
+                    offHeapHits.increment();
+                    shard.add(node);
+                    return node.item;
+                }
+            }
+            load = shard.loading.computeIfAbsent(id, key -> new Object());
+        } finally {
+            shard.lock.unlock();
+        }
+
+        misses.increment();
+        Item item = null;
+        try {
+            item = loader.apply(id);
+        } finally {
+            shard.fill(id, item == null ? null : new Node(id, item, ttlNanos > 0 ? now + ttlNanos : 0), load);
+        }
+        return item;
+    }
+
+    /**
+     * 상품이 저장/수정된 뒤에 호출한다.
+     */
+    public void invalidate(long id) {
+        Shard shard = shardFor(id);
+        shard.lock.lock();
+        try {
+            shard.loading.remove(id);
+            Node node = shard.nodes.get(id);
+            if (node != null) {
+                shard.remove(node);
+            }
+            if (shard.offHeap != null) {
+                shard.offHeap.remove(id);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+        invalidations.increment();
+    }
+
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                shard.clear();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 적중률과 밀려난 수. (GET /actuator/readcache)
+     */
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long offHeapHitCount = offHeapHits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + offHeapHitCount + missCount;
+        int size = 0;
+        int offHeapSize = 0;
+        for (Shard shard : shards) {
+            size += shard.size;
+            offHeapSize += shard.offHeap == null ? 0 : shard.offHeap.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxEntries", maxEntries);
+        stats.put("size", size);
+        stats.put("ttlSeconds", ttlNanos / 1_000_000_000L);
+        stats.put("hits", hitCount);
+        stats.put("offHeapHits", offHeapHitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", requests == 0 ? 0 : (double) (hitCount + offHeapHitCount) / requests);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("offHeapBytes", offHeapBytes);
+        stats.put("offHeapSize", offHeapSize);
+        stats.put("offHeapEvictions", offHeapEvictions.sum());
+        return stats;
+    }
+
+    private Shard shardFor(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return shards[(int) (h >>> 60) & (SHARDS - 1)];
+    }
+
+    private boolean isExpired(Node node, long now) {
+        return ttlNanos > 0 && now - node.expiresAt >= 0;
+    }
+
+    /**
+     * item, expiresAt은 바뀌지 않는다. 연결(prev, next, segment)은 shard 락 안에서만 고친다.
+     */
+    static final class Node {
+
+        final long id;
+        final Item item;
+        final long expiresAt;
+        Node prev;
+        Node next;
+        byte segment;
+
+        Node(long id, Item item, long expiresAt) {
+            this.id = id;
+            this.item = item;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * probation, protected 구간은 각각 원형 이중 연결 리스트다. head.next가 가장 최근, head.prev가 가장 오래된 것이다.
+     */
+    private final class Shard {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, Node> nodes = new ConcurrentHashMap<>();
+        final OffHeapItemTier offHeap;
+        final Node probation = sentinel();
+        final Node protectedHead = sentinel();
+        final int capacity;
+        final int protectedCapacity;
+        int size;
+        int protectedSize;
+        /**
+         * 읽어오는 중인 id -> 표시. 같은 id를 동시에 읽는 쓰레드들은 표시를 같이 쓴다.
+         * invalidate, clear가 표시를 지우면 그 전에 읽기 시작한 값은 넣지 않는다. 읽기가 끝나면(fill) 지운다.
+         */
+        final Map<Long, Object> loading = new HashMap<>();
+
+        Shard(int capacity, OffHeapItemTier offHeap) {
+            this.capacity = capacity;
+            this.protectedCapacity = Math.max(1, capacity * PROTECTED_PERCENT / 100);
+            this.offHeap = offHeap;
+        }
+
+        void touch(Node node) {
+            if (lock.tryLock()) {
+                try {
+                    if (node.segment != 0) {
+                        promote(node);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * node가 null이면(상품이 없거나 읽다가 실패했으면) 표시만 지운다.
+         */
+        void fill(long id, Node node, Object load) {
+            lock.lock();
+            try {
+                if (loading.remove(id, load) && node != null && !nodes.containsKey(id)) {
+                    add(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * probation에 넣고, 자리가 넘치면 probation(비어있으면 protected)의 가장 오래된 상품을 내보낸다.
+         */
+        void add(Node node) {
+            nodes.put(node.id, node);
+            link(probation, node, PROBATION);
+            size++;
+            while (size > capacity) {
+                Node victim = probation.prev != probation ? probation.prev : protectedHead.prev;
+                remove(victim);
+                evictions.increment();
+                if (offHeap != null && !isExpired(victim, nanoClock.getAsLong())) {
+                    if (offHeap.put(victim.item, victim.expiresAt)) {
+                        offHeapEvictions.increment();
+                    }
+                }
+            }
+        }
+
+        /**
+         * probation에서 다시 읽히면 protected로 올린다. protected가 넘치면 가장 오래된 것을 probation으로 내린다.
+         */
+        void promote(Node node) {
+            unlink(node);
+            if (node.segment == PROBATION) {
+                protectedSize++;
+            }
+            link(protectedHead, node, PROTECTED);
+            if (protectedSize > protectedCapacity) {
+                Node demoted = protectedHead.prev;
+                unlink(demoted);
+                protectedSize--;
+                link(probation, demoted, PROBATION);
+            }
+        }
+
+        void remove(Node node) {
+            nodes.remove(node.id, node);
+            unlink(node);
+            size--;
+            if (node.segment == PROTECTED) {
+                protectedSize--;
+            }
+            node.segment = 0;
+        }
+
+        void clear() {
+            loading.clear();
+            nodes.clear();
+            size = 0;
+            probation.next = probation.prev = probation;
+            protectedHead.next = protectedHead.prev = protectedHead;
+            protectedSize = 0;
+            if (offHeap != null) {
+                offHeap.clear();
+            }
+        }
+
+        private void link(Node head, Node node, byte segment) {
+            node.prev = head;
+            node.next = head.next;
+            head.next.prev = node;
+            head.next = node;
+            node.segment = segment;
+        }
+
+        private void unlink(Node node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+
+        private Node sentinel() {
+            Node head = new Node(0, null, 0);
+            head.prev = head;
+            head.next = head;
+            return head;
+        }
+    }
+}
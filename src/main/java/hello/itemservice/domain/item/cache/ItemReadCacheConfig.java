@@ -0,0 +1,27 @@
+package hello.itemservice.domain.item.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * itemservice.read-cache.enabled=true 일 때만 캐시를 만든다.
+ * 만들어진 캐시는 ItemRepository.setReadCache()로 주입된다.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "itemservice.read-cache", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ItemReadCacheProperties.class)
+public class ItemReadCacheConfig {
+
+    @Bean
+    public ItemReadCache itemReadCache(ItemReadCacheProperties properties) {
+        return new ItemReadCache(properties.getMaxEntries(), properties.getTtl(),
+                properties.getOffHeapSize().toBytes());
+    }
+
+    @Bean
+    public ItemReadCacheEndpoint itemReadCacheEndpoint(ItemReadCache itemReadCache) {
+        return new ItemReadCacheEndpoint(itemReadCache);
+    }
+}
@@ -0,0 +1,22 @@
+package hello.itemservice.domain.item.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Map;
+
+/**
+ * GET /actuator/readcache (캐시가 켜져 있을 때만. ItemReadCacheConfig에서 만든다)
+ */
+@Endpoint(id = "readcache")
+@RequiredArgsConstructor
+public class ItemReadCacheEndpoint {
+
+    private final ItemReadCache itemReadCache;
+
+    @ReadOperation
+    public Map<String, Object> readCache() {
+        return itemReadCache.stats();
+    }
+}
@@ -0,0 +1,32 @@
+package hello.itemservice.domain.item.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("itemservice.read-cache")
+public class ItemReadCacheProperties {
+
+    /**
+     * 켜면 ItemRepository.findById가 ItemReadCache를 거친다.
+     */
+    private boolean enabled;
+
+    /**
+     * 힙에 들고 있는 최대 상품 수.
+     */
+    private int maxEntries = 10000;
+
+    /**
+     * 캐시에 들어온 뒤 이 시간이 지나면 다시 읽는다. 0이면 만료되지 않는다.
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+
+    /**
+     * 힙에서 밀려난 상품을 담아두는 direct 메모리 크기. 0이면 쓰지 않는다. (상품 하나에 128바이트)
+     */
+    private DataSize offHeapSize = DataSize.ofBytes(0);
+}
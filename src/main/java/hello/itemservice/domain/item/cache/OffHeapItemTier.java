@@ -0,0 +1,181 @@
+package hello.itemservice.domain.item.cache;
+
+import hello.itemservice.domain.item.Item;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 힙 캐시에서 밀려난 상품을 direct ByteBuffer에 담아두는 두번째 단계. ItemReadCache의 shard 하나에 하나씩 있고,
+ * shard 락 안에서만 호출된다.
+ *
+ * 칸 하나 = [long id][long version][long 만료 시각][byte null 여부][int price][int quantity][short 이름 길이][이름 UTF-8]
+ * - 칸 크기가 고정이라서 상품명이 MAX_NAME_BYTES보다 길면 담지 않는다.
+ * - 칸은 순서대로 돌아가며 쓴다. (FIFO) 쓸 칸에 다른 상품이 있으면 그 상품은 버려진다.
+ * - id -> 칸 번호는 int[] 오픈 어드레싱 표로 찾는다. 표는 칸 수의 2배 이상인 가장 작은 2의 제곱수라서
+ *   힙에는 상품 하나에 long(id) 하나와 int 2칸(칸 수가 2의 제곱수가 아니면 4칸 미만)이 남는다.
+ */
+final class OffHeapItemTier {
+
+    static final int SLOT_SIZE = 128;
+    private static final int HEADER_SIZE = 8 + 8 + 8 + 1 + 4 + 4 + 2;
+    static final int MAX_NAME_BYTES = SLOT_SIZE - HEADER_SIZE;
+
+    private static final int NULL_ITEM_NAME = 1;
+    private static final int NULL_PRICE = 1 << 1;
+    private static final int NULL_QUANTITY = 1 << 2;
+    private static final int NULL_VERSION = 1 << 3;
+
+    private final ByteBuffer slots;
+    /**
+     * 칸마다 들어있는 상품 id. 0은 빈 칸이다. (id는 1부터 발급된다)
+     */
+    private final long[] ids;
+    /**
+     * id 해시 -> 칸 번호 + 1. 0은 빈 자리다. 크기는 칸 수의 2배 이상인 가장 작은 2의 제곱수다. (절반 이상 비어 있다)
+     */
+    private final int[] table;
+    private int hand;
+    private int size;
+
+    OffHeapItemTier(int slotCount) {
+        slots = ByteBuffer.allocateDirect(slotCount * SLOT_SIZE);
+        ids = new long[slotCount];
+        table = new int[Integer.highestOneBit(slotCount * 2 - 1) << 1];
+    }
+
+    /**
+     * @return 자리를 만들려고 다른 상품을 버렸으면 true
+     */
+    boolean put(Item item, long expiresAt) {
+        byte[] name = item.getItemName() == null ? new byte[0] : item.getItemName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES) {
+            return false;
+        }
+        boolean evicted = false;
+        int slot = find(item.getId());
+        if (slot < 0) {
+            slot = hand;
+            hand = hand + 1 == ids.length ? 0 : hand + 1;
+            if (ids[slot] != 0) {
+                delete(ids[slot]);
+                evicted = true;
+            } else {
+                size++;
+            }
+            ids[slot] = item.getId();
+            insert(item.getId(), slot);
+        }
+        write(slot, item, expiresAt, name);
+        return evicted;
+    }
+
+    /**
+     * 있으면 꺼내서 돌려주고 칸을 비운다. (힙 캐시로 다시 올라간다)
+     */
+    ItemReadCache.Node remove(long id) {
+        int slot = find(id);
+        if (slot < 0) {
+            return null;
+        }
+        ItemReadCache.Node node = read(slot);
+        delete(id);
+        ids[slot] = 0;
+        size--;
+        return node;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(ids, 0);
+        Arrays.fill(table, 0);
+        hand = 0;
+        size = 0;
+    }
+
+    private void write(int slot, Item item, long expiresAt, byte[] name) {
+        int nulls = (item.getItemName() == null ? NULL_ITEM_NAME : 0)
+                | (item.getPrice() == null ? NULL_PRICE : 0)
+                | (item.getQuantity() == null ? NULL_QUANTITY : 0)
+                | (item.getVersion() == null ? NULL_VERSION : 0);
+        int offset = slot * SLOT_SIZE;
+        slots.putLong(offset, item.getId());
+        slots.putLong(offset + 8, item.getVersion() == null ? 0 : item.getVersion());
+        slots.putLong(offset + 16, expiresAt);
+        slots.put(offset + 24, (byte) nulls);
+        slots.putInt(offset + 25, item.getPrice() == null ? 0 : item.getPrice());
+        slots.putInt(offset + 29, item.getQuantity() == null ? 0 : item.getQuantity());
+        slots.putShort(offset + 33, (short) name.length);
+        for (int i = 0; i < name.length; i++) {
+            slots.put(offset + HEADER_SIZE + i, name[i]);
+        }
+    }
+
+    private ItemReadCache.Node read(int slot) {
+        int offset = slot * SLOT_SIZE;
+        long id = slots.getLong(offset);
+        long version = slots.getLong(offset + 8);
+        long expiresAt = slots.getLong(offset + 16);
+        int nulls = slots.get(offset + 24);
+        byte[] name = new byte[slots.getShort(offset + 33)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = slots.get(offset + HEADER_SIZE + i);
+        }
+        Item item = new Item(
+                (nulls & NULL_ITEM_NAME) != 0 ? null : new String(name, StandardCharsets.UTF_8),
+                (nulls & NULL_PRICE) != 0 ? null : slots.getInt(offset + 25),
+                (nulls & NULL_QUANTITY) != 0 ? null : slots.getInt(offset + 29));
+        item.setId(id);
+        item.setVersion((nulls & NULL_VERSION) != 0 ? null : version);
+        return new ItemReadCache.Node(id, item, expiresAt);
+    }
+
+    private int find(long id) {
+        int mask = table.length - 1;
+        for (int i = home(id); table[i] != 0; i = (i + 1) & mask) {
+            if (ids[table[i] - 1] == id) {
+                return table[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long id, int slot) {
+        int mask = table.length - 1;
+        int i = home(id);
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+    }
+
+    /**
+     * 지운 자리 뒤에 이어진 항목들을 당겨와서 빈 자리 때문에 찾지 못하는 항목이 없게 한다. (backward shift)
+     * ids의 칸은 지운 뒤에 비운다.
+     */
+    private void delete(long id) {
+        int mask = table.length - 1;
+        int i = home(id);
+        while (ids[table[i] - 1] != id) {
+            i = (i + 1) & mask;
+        }
+        for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+            int k = home(ids[table[j] - 1]);
+            boolean staysAfterGap = i <= j ? i < k && k <= j : i < k || k <= j;
+            if (!staysAfterGap) {
+                table[i] = table[j];
+                i = j;
+            }
+        }
+        table[i] = 0;
+    }
+
+    private int home(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (table.length - 1);
+    }
+}
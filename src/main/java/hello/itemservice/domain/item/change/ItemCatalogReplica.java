@@ -0,0 +1,121 @@
+package hello.itemservice.domain.item.change;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+
+/**
+ * ItemChangeStream을 받아서 상품 목록을 따로 들고 있는 예제 구독자. (검색 색인, 캐시가 같은 방식으로 따라가면 된다)
+ * itemservice.change-stream.replica.enabled=true 일 때만 만든다.
+ *
+ * - 시작할 때 findAll()로 한 번 읽고, 읽기 전에 버퍼에 남아있던 가장 오래된 변경부터 구독한다.
+ *   sequence는 compute 안에서 store에 보이기 전에 붙기 때문에, lastSequence()까지의 변경이 findAll()에 다 보인다고 할 수 없다.
+ *   (N번을 받은 상품이 아직 store에 없을 수 있다) 그래서 읽은 뒤의 변경만이 아니라 버퍼 전체를 다시 받는다.
+ *   이미 읽은 상품의 변경도 다시 오는데, 버전이 더 낮은 변경은 무시하므로 되돌아가지 않는다.
+ * - BATCH개를 요청해두고 절반을 받을 때마다 절반을 다시 요청한다. 처리가 밀리면 요청도 멈춘다. (backpressure)
+ * - 너무 뒤처져서 ItemChangeGapException을 받으면 처음처럼 다시 읽고 다시 구독한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "itemservice.change-stream.replica", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ItemCatalogReplica implements Flow.Subscriber<ItemChange> {
+
+    static final int BATCH = 256;
+
+    private final ItemRepository itemRepository;
+    private final ItemChangeStream itemChangeStream;
+
+    private volatile Map<Long, Item> items = new ConcurrentHashMap<>();
+    private volatile Flow.Subscription subscription;
+    private volatile long lastSequence;
+    private volatile long resyncs;
+    private int received;
+
+    @PostConstruct
+    public void start() {
+        long from = itemChangeStream.oldestSequence() - 1;
+        Map<Long, Item> loaded = new ConcurrentHashMap<>();
+        for (Item item : itemRepository.findAll()) {
+            loaded.put(item.getId(), item);
+        }
+        items = loaded;
+        lastSequence = from;
+        itemChangeStream.subscribe(this, from);
+        log.info("item catalog replica loaded items={}, fromSequence={}", loaded.size(), from);
+    }
+
+    @PreDestroy
+    public void stop() {
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    public Item findById(Long itemId) {
+        return items.get(itemId);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * 마지막으로 반영한 변경의 sequence.
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public long getResyncs() {
+        return resyncs;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        received = 0;
+        subscription.request(BATCH);
+    }
+
+    @Override
+    public void onNext(ItemChange change) {
+        Item item = change.getItem();
+        items.merge(item.getId(), item, (old, changed) -> versionOf(changed) >= versionOf(old) ? changed : old);
+        lastSequence = change.getSequence();
+        if (++received == BATCH / 2) {
+            received = 0;
+            subscription.request(BATCH / 2);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (throwable instanceof ItemChangeGapException) {
+            resyncs++;
+            log.warn("item catalog replica fell behind, reload. {}", throwable.getMessage());
+            start();
+            return;
+        }
+        log.error("item catalog replica stopped", throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        log.info("item catalog replica completed at sequence={}", lastSequence);
+    }
+
+    private static long versionOf(Item item) {
+        return item.getVersion() == null ? 0 : item.getVersion();
+    }
+}
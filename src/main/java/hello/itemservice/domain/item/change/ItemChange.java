@@ -0,0 +1,29 @@
+package hello.itemservice.domain.item.change;
+
+import hello.itemservice.domain.item.Item;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * ItemRepository에서 일어난 변경 하나.
+ * sequence는 1부터 변경마다 1씩 올라가고, 같은 상품의 변경은 저장소에 반영된 순서대로 번호를 받는다.
+ * item은 변경된 뒤의 상품 전체다. (저장소가 돌려주는 Item과 마찬가지로 고치지 않고 읽기만 한다)
+ */
+@Getter
+@ToString
+public final class ItemChange {
+
+    public enum Type {
+        SAVE, UPDATE
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final Item item;
+
+    public ItemChange(long sequence, Type type, Item item) {
+        this.sequence = sequence;
+        this.type = type;
+        this.item = item;
+    }
+}
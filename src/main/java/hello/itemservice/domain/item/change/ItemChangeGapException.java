@@ -0,0 +1,21 @@
+package hello.itemservice.domain.item.change;
+
+import lombok.Getter;
+
+/**
+ * 이어 받으려는 변경이 이미 버퍼에서 밀려났을 때. (구독자가 버퍼 크기보다 많이 뒤처졌다)
+ * 받은 쪽은 findAll()로 다시 읽고, 읽기 전에 확인한 lastSequence()부터 다시 구독해야 한다.
+ */
+@Getter
+public class ItemChangeGapException extends RuntimeException {
+
+    private final long requestedSequence;
+    private final long oldestSequence;
+
+    public ItemChangeGapException(long requestedSequence, long oldestSequence) {
+        super("변경 기록이 버퍼에서 밀려났습니다. requestedSequence=" + requestedSequence
+                + ", oldestSequence=" + oldestSequence);
+        this.requestedSequence = requestedSequence;
+        this.oldestSequence = oldestSequence;
+    }
+}
@@ -0,0 +1,286 @@
+package hello.itemservice.domain.item.change;
+
+import hello.itemservice.domain.item.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * ItemRepository의 저장/수정을 순서대로 흘려보내는 변경 스트림. (java.util.concurrent.Flow.Publisher)
+ * 검색 색인, 캐시처럼 상품 목록을 따라가야 하는 쪽이 findAll()을 계속 다시 읽지 않고 바뀐 것만 받는다.
+ *
+ * - append는 store를 고치는 compute 안에서 호출되어 sequence를 받는다. 같은 상품의 변경은 반영된 순서대로 번호가 붙는다.
+ * - 최근 capacity개의 변경을 링 버퍼에 들고 있어서, 구독할 때 마지막으로 받은 sequence를 주면 그 다음부터 이어서 받는다.
+ * - 구독자는 request(n)로 받을 만큼만 요청한다. (backpressure)
+ *   쓰는 쪽은 느린 구독자를 기다리지 않는다. 버퍼 크기보다 더 뒤처진 구독자는 ItemChangeGapException으로 끝나고,
+ *   findAll()로 다시 읽은 뒤 다시 구독해야 한다.
+ * - 구독자마다 onNext는 한 번에 한 쓰레드에서만 호출된다. (전용 쓰레드 풀에서, 요청한 만큼 몰아서 보낸다)
+ *
+ * 시작할 때 로그에서 복구한 상품은 흘려보내지 않는다. 구독을 시작할 때 findAll()로 읽으면 된다.
+ */
+@Slf4j
+@Component
+public class ItemChangeStream implements Flow.Publisher<ItemChange> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<ItemChange> changes;
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor;
+    private volatile boolean closed;
+
+    @Autowired
+    public ItemChangeStream(@Value("${itemservice.change-stream.capacity:65536}") int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity는 2의 제곱수여야 합니다. capacity=" + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.changes = new AtomicReferenceArray<>(capacity);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "item-change-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 변경을 버퍼에 넣고 sequence를 돌려준다. 구독자에게 알리는 것은 compute 밖에서 signal()로 한다.
+     */
+    public long append(ItemChange.Type type, Item item) {
+        long next = sequence.incrementAndGet();
+        ItemChange change = new ItemChange(next, type, item);
+        int index = (int) next & mask;
+        while (true) {
+            ItemChange old = changes.get(index);
+            // 이 칸에 한 바퀴 뒤의 변경이 먼저 들어갔으면 이 변경은 이미 밀려난 것이다.
+            if (old != null && old.getSequence() > next) {
+                return next;
+            }
+            if (changes.compareAndSet(index, old, change)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * append한 변경을 구독자들에게 보낸다. 요청(demand)이 남아있는 구독자만 깨운다.
+     */
+    public void signal() {
+        for (ChangeSubscription subscription : subscriptions) {
+            if (subscription.demand.get() > 0) {
+                subscription.signal();
+            }
+        }
+    }
+
+    /**
+     * 마지막으로 번호를 받은 변경의 sequence. 아직 변경이 없으면 0이다.
+     */
+    public long lastSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * 버퍼에 남아있는 가장 오래된 변경의 sequence. 이 번호 - 1 부터 구독하면 버퍼의 변경을 모두 다시 받는다.
+     */
+    public long oldestSequence() {
+        return oldestSequence(lastSequence());
+    }
+
+    /**
+     * 지금부터 일어나는 변경을 받는다.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super ItemChange> subscriber) {
+        subscribe(subscriber, lastSequence());
+    }
+
+    /**
+     * afterSequence 다음 변경부터 받는다. 이전에 받은 마지막 sequence를 주면 빠진 것 없이 이어서 받는다.
+     * 그 변경이 이미 버퍼에서 밀려났으면 onError(ItemChangeGapException)로 끝난다.
+     */
+    public void subscribe(Flow.Subscriber<? super ItemChange> subscriber, long afterSequence) {
+        ChangeSubscription subscription = new ChangeSubscription(subscriber, afterSequence + 1);
+        subscriber.onSubscribe(subscription);
+        if (afterSequence < 0 || afterSequence > lastSequence()) {
+            subscription.fail(new IllegalArgumentException(
+                    "afterSequence는 0 ~ " + lastSequence() + " 이어야 합니다. afterSequence=" + afterSequence));
+            return;
+        }
+        subscriptions.add(subscription);
+        if (closed) {
+            subscriptions.remove(subscription);
+            subscription.fail(new IllegalStateException("change stream is closed"));
+            return;
+        }
+        subscription.signal();
+    }
+
+    /**
+     * 버퍼 크기와 구독자별로 얼마나 뒤처졌는지. (GET /actuator/changes)
+     */
+    public Map<String, Object> stats() {
+        long last = lastSequence();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lastSequence", last);
+        stats.put("oldestSequence", oldestSequence(last));
+        stats.put("capacity", capacity);
+        List<Map<String, Object>> subscribers = new ArrayList<>();
+        for (ChangeSubscription subscription : subscriptions) {
+            Map<String, Object> subscriber = new LinkedHashMap<>();
+            subscriber.put("subscriber", subscription.subscriber.getClass().getSimpleName());
+            subscriber.put("nextSequence", subscription.nextSequence);
+            subscriber.put("lag", Math.max(0, last - subscription.nextSequence + 1));
+            subscriber.put("demand", subscription.demand.get());
+            subscriber.put("delivered", subscription.delivered);
+            subscribers.add(subscriber);
+        }
+        stats.put("subscribers", subscribers);
+        return stats;
+    }
+
+    /**
+     * 구독자들이 이미 번호를 받은 변경까지 받으면 onComplete로 끝낸다.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.signal();
+        }
+        executor.shutdown();
+    }
+
+    private long oldestSequence(long last) {
+        return Math.max(1, last - capacity + 1);
+    }
+
+    /**
+     * nextSequence, delivered는 drain을 실행하는 쓰레드만 고친다.
+     * drain은 wip로 한 번에 하나만 돌고, wip를 거쳐서 다음 drain 쓰레드에게 값이 보인다.
+     */
+    private final class ChangeSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ItemChange> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile long nextSequence;
+        private volatile long delivered;
+        private volatile Throwable error;
+
+        ChangeSubscription(Flow.Subscriber<? super ItemChange> subscriber, long nextSequence) {
+            this.subscriber = subscriber;
+            this.nextSequence = nextSequence;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("request는 1 이상이어야 합니다. n=" + n);
+            } else {
+                demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        void signal() {
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // close() 뒤에 들어온 요청. 호출한 쓰레드에서 마무리한다.
+                    drain();
+                }
+            }
+        }
+
+        void fail(Throwable throwable) {
+            cancelled = true;
+            subscriptions.remove(this);
+            subscriber.onError(throwable);
+        }
+
+        private void drain() {
+            int missed = 1;
+            long next = nextSequence;
+            while (true) {
+                long requested = demand.get();
+                long emitted = 0;
+                while (emitted != requested) {
+                    if (cancelled) {
+                        return;
+                    }
+                    if (error != null) {
+                        fail(error);
+                        return;
+                    }
+                    ItemChange change = changes.get((int) next & mask);
+                    if (change == null || change.getSequence() < next) {
+                        break; // 아직 번호만 받고 버퍼에 들어오지 않았다. append한 쪽의 signal()이 다시 깨운다.
+                    }
+                    if (change.getSequence() > next) {
+                        nextSequence = next;
+                        fail(new ItemChangeGapException(next, oldestSequence(lastSequence())));
+                        return;
+                    }
+                    try {
+                        subscriber.onNext(change);
+                    } catch (RuntimeException e) {
+                        log.warn("change subscriber failed, cancel subscription. subscriber={}", subscriber, e);
+                        cancel();
+                        return;
+                    }
+                    next++;
+                    emitted++;
+                }
+                nextSequence = next;
+                delivered += emitted;
+                if (cancelled) {
+                    return;
+                }
+                if (error != null) {
+                    fail(error);
+                    return;
+                }
+                if (closed && next > lastSequence()) {
+                    cancelled = true;
+                    subscriptions.remove(this);
+                    subscriber.onComplete();
+                    return;
+                }
+                if (emitted > 0 && requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
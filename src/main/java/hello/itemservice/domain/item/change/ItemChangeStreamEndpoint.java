@@ -0,0 +1,24 @@
+package hello.itemservice.domain.item.change;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * GET /actuator/changes
+ */
+@Component
+@Endpoint(id = "changes")
+@RequiredArgsConstructor
+public class ItemChangeStreamEndpoint {
+
+    private final ItemChangeStream itemChangeStream;
+
+    @ReadOperation
+    public Map<String, Object> changes() {
+        return itemChangeStream.stats();
+    }
+}
@@ -0,0 +1,110 @@
+package hello.itemservice.domain.item.persistence;
+
+import hello.itemservice.domain.item.Item;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * 로그 세그먼트와 스냅샷 파일에 쓰는 레코드 형식.
+ *
+ * [int 길이][int CRC32][본문]
+ * 본문 = [byte 형식][long id][long version][byte null 여부][int price][int quantity][int 이름 길이][이름 UTF-8]
+ *
+ * 형식 1은 version이 없다. 형식 1로 쓴 로그도 읽을 수 있고, 그 상품들의 version은 null이다.
+ *
+ * 세그먼트 파일은 미리 0으로 채워진 크기로 매핑되기 때문에 길이가 0이면 데이터의 끝이다.
+ * 쓰다가 프로세스가 죽어서 잘린 레코드는 길이나 CRC가 맞지 않으므로 거기서 읽기를 멈춘다.
+ */
+final class ItemLogFormat {
+
+    static final int HEADER_SIZE = 8;
+
+    private static final byte FORMAT = 2;
+    private static final byte FORMAT_WITHOUT_VERSION = 1;
+    private static final int FIXED_BODY_SIZE = 1 + 8 + 8 + 1 + 4 + 4 + 4;
+    private static final int FIXED_BODY_SIZE_WITHOUT_VERSION = FIXED_BODY_SIZE - 8;
+
+    private static final int NULL_ITEM_NAME = 1;
+    private static final int NULL_PRICE = 1 << 1;
+    private static final int NULL_QUANTITY = 1 << 2;
+    private static final int NULL_VERSION = 1 << 3;
+
+    private ItemLogFormat() {
+    }
+
+    static byte[] encode(Item item) {
+        byte[] name = item.getItemName() == null ? new byte[0] : item.getItemName().getBytes(StandardCharsets.UTF_8);
+        int nulls = (item.getItemName() == null ? NULL_ITEM_NAME : 0)
+                | (item.getPrice() == null ? NULL_PRICE : 0)
+                | (item.getQuantity() == null ? NULL_QUANTITY : 0)
+                | (item.getVersion() == null ? NULL_VERSION : 0);
+
+        int bodySize = FIXED_BODY_SIZE + name.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bodySize);
+        buffer.putInt(bodySize);
+        buffer.putInt(0); // CRC는 본문을 쓴 뒤에 채운다.
+        buffer.put(FORMAT);
+        buffer.putLong(item.getId());
+        buffer.putLong(item.getVersion() == null ? 0 : item.getVersion());
+        buffer.put((byte) nulls);
+        buffer.putInt(item.getPrice() == null ? 0 : item.getPrice());
+        buffer.putInt(item.getQuantity() == null ? 0 : item.getQuantity());
+        buffer.putInt(name.length);
+        buffer.put(name);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, bodySize);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    /**
+     * buffer의 현재 위치에서 레코드 하나를 읽는다.
+     * 데이터의 끝이거나 잘린 레코드면 null을 돌려주고 위치를 옮기지 않는다.
+     */
+    static Item decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int bodySize = buffer.getInt(start);
+        if (bodySize < FIXED_BODY_SIZE_WITHOUT_VERSION || bodySize > buffer.remaining() - HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer body = buffer.duplicate();
+        body.position(start + HEADER_SIZE).limit(start + HEADER_SIZE + bodySize);
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+            return null;
+        }
+        byte format = body.get();
+        if (format != FORMAT && format != FORMAT_WITHOUT_VERSION
+                || format == FORMAT && bodySize < FIXED_BODY_SIZE) {
+            return null;
+        }
+
+        long id = body.getLong();
+        long version = format == FORMAT ? body.getLong() : 0;
+        int nulls = format == FORMAT ? body.get() : body.get() | NULL_VERSION;
+        int price = body.getInt();
+        int quantity = body.getInt();
+        int nameLength = body.getInt();
+        if (nameLength != body.remaining()) {
+            return null;
+        }
+        byte[] name = new byte[nameLength];
+        body.get(name);
+
+        Item item = new Item(
+                (nulls & NULL_ITEM_NAME) != 0 ? null : new String(name, StandardCharsets.UTF_8),
+                (nulls & NULL_PRICE) != 0 ? null : price,
+                (nulls & NULL_QUANTITY) != 0 ? null : quantity);
+        item.setId(id);
+        item.setVersion((nulls & NULL_VERSION) != 0 ? null : version);
+        buffer.position(start + HEADER_SIZE + bodySize);
+        return item;
+    }
+}
@@ -0,0 +1,27 @@
+package hello.itemservice.domain.item.persistence;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * itemservice.persistence.enabled=true 일 때만 로그를 만든다.
+ * 만들어진 로그는 ItemRepository.setJournal()로 주입되어 그 자리에서 복구된다.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "itemservice.persistence", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ItemPersistenceProperties.class)
+public class ItemPersistenceConfig {
+
+    @Bean(destroyMethod = "close")
+    public ItemWriteAheadLog itemWriteAheadLog(ItemPersistenceProperties properties) {
+        return new ItemWriteAheadLog(
+                Paths.get(properties.getDirectory()),
+                (int) properties.getSegmentSize().toBytes(),
+                properties.getCommitInterval(),
+                properties.getSnapshotInterval());
+    }
+}
@@ -0,0 +1,31 @@
+package hello.itemservice.domain.item.persistence;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("itemservice.persistence")
+public class ItemPersistenceProperties {
+
+    /**
+     * 켜면 상품을 directory에 로그로 남기고, 재시작할 때 복구한다.
+     */
+    private boolean enabled;
+
+    private String directory = "data";
+
+    /**
+     * 세그먼트 파일 하나의 크기. 이 크기만큼 미리 매핑해두고 다 차면 다음 파일로 넘어간다.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 이 간격마다 모아서 fsync한다. 저장/수정 응답은 최대 이만큼 늦어진다.
+     */
+    private Duration commitInterval = Duration.ofMillis(2);
+
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+}
@@ -0,0 +1,588 @@
+package hello.itemservice.domain.item.persistence;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemJournal;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 메모리 매핑 파일에 쌓는 append-only 로그 + 주기적인 스냅샷.
+ *
+ * - append: 레코드를 현재 세그먼트(wal-번호.log)의 매핑된 버퍼에 복사만 한다. 시스템 콜이 없으므로 메모리에 쓰는 속도와 비슷하다.
+ *   ItemRepository는 store의 bin 락 안에서 append하므로 append에서는 디스크를 기다리지 않는다.
+ *   다음 세그먼트 파일은 flusher 쓰레드가 미리 만들어서 매핑해두고, 세그먼트가 차면 append는 준비된 세그먼트로 바꾸기만 한다.
+ *   다 쓴 세그먼트의 force와 닫기도 flusher가 한다.
+ * - group commit: flusher 쓰레드가 commitInterval마다 한번 force(fsync)하고,
+ *   그 사이에 append된 레코드를 기다리던 쓰레드들을 한번에 깨운다. 요청마다 fsync하지 않는다.
+ *   whenDurable로 받은 future도 이때 flusher 쓰레드에서 완료된다. (기다리는 쓰레드가 없다)
+ * - 스냅샷: snapshotInterval마다 현재 세그먼트를 닫고, 이전 스냅샷 + 닫힌 세그먼트들을 id별 마지막 상태로 합쳐서
+ *   snapshot-번호 디렉토리에 여러 파일로 나누어 쓴다. 다 쓰면 이름을 바꾸고, 합쳐진 세그먼트는 지운다.
+ *   store가 아니라 로그에서 스냅샷을 만들기 때문에 저장/수정을 멈추지 않아도 된다.
+ * - 복구: 스냅샷 파일들을 병렬로 읽고, 그 뒤의 세그먼트를 순서대로 읽는다. 레코드는 항상 상품의 전체 상태이므로
+ *   같은 상품이 여러번 나오면 마지막 것이 남는다. 잘린 레코드(쓰다가 죽은 경우)를 만나면 그 세그먼트는 거기까지만 읽는다.
+ * - 실패: force가 한번 실패하면 어디까지 기록됐는지 알 수 없으므로 로그는 실패 상태로 남는다.
+ *   그 뒤의 append는 바로 예외를 던져서, ItemRepository는 store와 인덱스를 바꾸기 전에 실패한다. 다시 쓰려면 재시작해서 복구한다.
+ * - 세그먼트 파일을 만든 뒤, 스냅샷 디렉토리 이름을 바꾼 뒤에는 디렉토리도 fsync해서 죽어도 파일 이름이 남게 한다.
+ */
+@Slf4j
+public class ItemWriteAheadLog implements ItemJournal, Closeable {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long commitIntervalNanos;
+    private final Duration snapshotInterval;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private volatile Segment segment; // 바꾸는 것은 appendLock
+    private long written; // appendLock
+
+    /**
+     * 세그먼트 파일을 만드는 곳(roll, flusher의 준비)이 번호를 순서대로 받도록 잡는 락. append 경로에서는 준비된 세그먼트가 없을 때만 기다린다.
+     */
+    private final Object segmentFileLock = new Object();
+    private long lastSegmentNumber; // segmentFileLock
+    private Segment nextSegment; // segmentFileLock
+    /**
+     * 다 쓰고 바꿔 끼운 세그먼트. flusher가 force하고 닫는다.
+     */
+    private final ConcurrentLinkedQueue<Segment> sealedSegments = new ConcurrentLinkedQueue<>();
+
+    private volatile long appended;
+    private volatile long durable;
+    private volatile IOException failure;
+    private final Object durableMonitor = new Object();
+    private final ConcurrentLinkedQueue<DurableWaiter> waiters = new ConcurrentLinkedQueue<>();
+
+    private final Object snapshotLock = new Object();
+    private volatile boolean open;
+    private Thread flusher;
+    private ScheduledExecutorService snapshotScheduler;
+
+    /**
+     * @param snapshotInterval 0이면 스냅샷을 자동으로 만들지 않는다. (snapshot()을 직접 호출)
+     */
+    public ItemWriteAheadLog(Path directory, int segmentSize, Duration commitInterval, Duration snapshotInterval) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.commitIntervalNanos = commitInterval.toNanos();
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    @Override
+    public void recover(Consumer<Item> restore) {
+        try {
+            Files.createDirectories(directory);
+            deleteTemporaryFiles();
+
+            long snapshotNumber = latestSnapshot();
+            long restored = snapshotNumber < 0 ? 0 : readSnapshot(snapshotPath(snapshotNumber), restore);
+            long lastNumber = snapshotNumber;
+            for (long number : segmentNumbers()) {
+                if (number <= snapshotNumber) {
+                    // 스냅샷에 합쳐졌지만 지우기 전에 종료된 세그먼트
+                    Files.deleteIfExists(segmentPath(number));
+                    continue;
+                }
+                restored += readRecords(segmentPath(number), restore);
+                lastNumber = number;
+            }
+
+            // 마지막 세그먼트는 잘려 있을 수 있으므로 이어 쓰지 않고 새 세그먼트를 연다.
+            appendLock.lock();
+            try {
+                synchronized (segmentFileLock) {
+                    lastSegmentNumber = lastNumber;
+                    segment = createSegment();
+                }
+            } finally {
+                appendLock.unlock();
+            }
+            start();
+            log.info("item log recovered. records={}, directory={}", restored, directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long append(Item item) {
+        byte[] record = ItemLogFormat.encode(item);
+        if (record.length > segmentSize) {
+            throw new IllegalArgumentException("레코드가 세그먼트보다 큽니다. size=" + record.length);
+        }
+        appendLock.lock();
+        try {
+            if (!open) {
+                throw new IllegalStateException("item log is not open");
+            }
+            if (failure != null) {
+                throw new UncheckedIOException(failure);
+            }
+            if (segment.buffer.remaining() < record.length) {
+                roll();
+            }
+            segment.buffer.put(record);
+            written += record.length;
+            appended = written;
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void awaitDurable(long position) {
+        if (position <= durable) {
+            return;
+        }
+        synchronized (durableMonitor) {
+            while (durable < position) {
+                if (failure != null) {
+                    throw new UncheckedIOException(failure);
+                }
+                try {
+                    durableMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted while waiting for item log", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 대기열에 넣은 뒤에 durable을 한번 더 확인한다.
+     * 넣기 직전에 flush가 끝났다면 flusher가 이 waiter를 못 봤을 수 있기 때문이다.
+     */
+    @Override
+    public CompletableFuture<Void> whenDurable(long position) {
+        if (position <= durable) {
+            return CompletableFuture.completedFuture(null);
+        }
+        DurableWaiter waiter = new DurableWaiter(position);
+        waiters.add(waiter);
+        if (position <= durable || failure != null || !open) {
+            completeWaiters();
+        }
+        return waiter.future;
+    }
+
+    /**
+     * 현재 세그먼트를 닫고, 이전 스냅샷과 닫힌 세그먼트들을 합쳐 새 스냅샷을 만든다.
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            if (!open) {
+                return;
+            }
+            long sealed;
+            appendLock.lock();
+            try {
+                if (segment.buffer.position() > 0) {
+                    roll();
+                }
+                sealed = segment.number - 1;
+            } finally {
+                appendLock.unlock();
+            }
+
+            long previous = latestSnapshot();
+            List<Long> segments = segmentNumbers().stream()
+                    .filter(number -> number > previous && number <= sealed)
+                    .collect(Collectors.toList());
+            if (segments.isEmpty()) {
+                return;
+            }
+
+            Map<Long, Item> items = new ConcurrentHashMap<>();
+            Consumer<Item> merge = item -> items.put(item.getId(), item);
+            if (previous >= 0) {
+                readSnapshot(snapshotPath(previous), merge);
+            }
+            for (long number : segments) {
+                readRecords(segmentPath(number), merge);
+            }
+
+            long snapshotNumber = segments.get(segments.size() - 1);
+            writeSnapshot(snapshotNumber, new ArrayList<>(items.values()));
+            if (previous >= 0) {
+                deleteRecursively(snapshotPath(previous));
+            }
+            for (long number : segments) {
+                Files.deleteIfExists(segmentPath(number));
+            }
+            log.info("item log snapshot written. items={}, segments={}", items.size(), segments.size());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!open) {
+            return;
+        }
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdown();
+        }
+        synchronized (snapshotLock) {
+            appendLock.lock();
+            try {
+                open = false;
+            } finally {
+                appendLock.unlock();
+            }
+        }
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        completeWaiters();
+        try {
+            segment.channel.close();
+            synchronized (segmentFileLock) {
+                if (nextSegment != null) {
+                    nextSegment.channel.close();
+                    Files.deleteIfExists(segmentPath(nextSegment.number));
+                    nextSegment = null;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("failed to close item log segment", e);
+        }
+    }
+
+    private void start() {
+        open = true;
+        flusher = new Thread(this::flushLoop, "item-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        if (!snapshotInterval.isZero()) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "item-log-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = snapshotInterval.toMillis();
+            snapshotScheduler.scheduleWithFixedDelay(this::scheduledSnapshot, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushLoop() {
+        while (open) {
+            LockSupport.parkNanos(commitIntervalNanos);
+            flush();
+            prepareNextSegment();
+        }
+    }
+
+    /**
+     * appended를 먼저 읽고 segment를 읽는다. 그 사이에 세그먼트가 바뀌었다면 roll()이 segment를 바꾸기 전에
+     * 이전 세그먼트를 sealedSegments에 넣었으므로, sealedSegments와 segment를 모두 force하면 target까지 기록된다.
+     */
+    private void flush() {
+        long target = appended;
+        if (target <= durable && sealedSegments.isEmpty()) {
+            return;
+        }
+        Segment current = segment;
+        try {
+            Segment sealed;
+            while ((sealed = sealedSegments.poll()) != null) {
+                sealed.buffer.force();
+                sealed.channel.close();
+            }
+            current.buffer.force();
+        } catch (IOException | RuntimeException e) {
+            failure = new IOException("failed to force item log", e);
+            log.error("failed to force item log", e);
+        }
+        synchronized (durableMonitor) {
+            if (failure == null) {
+                durable = target;
+            }
+            durableMonitor.notifyAll();
+        }
+        completeWaiters();
+    }
+
+    /**
+     * 기록된 위치까지의 waiter를 완료한다. 로그가 실패했거나 닫혔으면 남은 waiter를 모두 실패로 끝낸다.
+     */
+    private void completeWaiters() {
+        long current = durable;
+        IOException currentFailure = failure;
+        boolean closed = !open;
+        for (Iterator<DurableWaiter> it = waiters.iterator(); it.hasNext(); ) {
+            DurableWaiter waiter = it.next();
+            if (waiter.position <= current) {
+                it.remove();
+                waiter.future.complete(null);
+            } else if (currentFailure != null) {
+                it.remove();
+                waiter.future.completeExceptionally(new UncheckedIOException(currentFailure));
+            } else if (closed) {
+                it.remove();
+                waiter.future.completeExceptionally(new IllegalStateException("item log is closed"));
+            }
+        }
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("failed to write item log snapshot", e);
+        }
+    }
+
+    /**
+     * 준비된 세그먼트로 바꾼다. 준비된 것이 없으면(flusher가 아직 만들지 못했으면) 여기서 만든다.
+     */
+    private void roll() throws IOException {
+        Segment next;
+        synchronized (segmentFileLock) {
+            next = nextSegment != null ? nextSegment : createSegment();
+            nextSegment = null;
+        }
+        sealedSegments.add(segment);
+        segment = next;
+    }
+
+    /**
+     * flusher 쓰레드에서 다음 세그먼트 파일을 미리 만들어 매핑해둔다. 실패하면 roll()에서 다시 만든다.
+     */
+    private void prepareNextSegment() {
+        synchronized (segmentFileLock) {
+            if (nextSegment != null || !open) {
+                return;
+            }
+            try {
+                nextSegment = createSegment();
+            } catch (IOException e) {
+                log.warn("failed to prepare item log segment", e);
+            }
+        }
+    }
+
+    private Segment createSegment() throws IOException {
+        long number = lastSegmentNumber + 1;
+        FileChannel channel = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            syncDirectory(directory);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            Files.deleteIfExists(segmentPath(number));
+            throw e;
+        }
+        lastSegmentNumber = number;
+        return new Segment(number, channel, buffer);
+    }
+
+    /**
+     * 스냅샷 파일들은 서로 다른 상품을 담고 있으므로 순서에 상관없이 병렬로 읽는다.
+     */
+    private long readSnapshot(Path snapshot, Consumer<Item> restore) throws IOException {
+        List<Path> parts;
+        try (Stream<Path> files = Files.list(snapshot)) {
+            parts = files.collect(Collectors.toList());
+        }
+        try {
+            return parts.parallelStream()
+                    .mapToLong(part -> {
+                        try {
+                            return readRecords(part, restore);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .sum();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long readRecords(Path file, Consumer<Item> restore) throws IOException {
+        try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+            long count = 0;
+            Item item;
+            while ((item = ItemLogFormat.decode(buffer)) != null) {
+                restore.accept(item);
+                count++;
+            }
+            if (buffer.remaining() >= ItemLogFormat.HEADER_SIZE && buffer.getInt(buffer.position()) != 0) {
+                log.warn("item log truncated at {} of {}", buffer.position(), file);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * CPU 수만큼 파일을 나누어 병렬로 쓴다. 임시 디렉토리에 다 쓴 뒤 이름을 바꾸므로
+     * 복구할 때 반쯤 쓰여진 스냅샷을 읽는 일은 없다.
+     */
+    private void writeSnapshot(long number, List<Item> items) throws IOException {
+        Path temp = directory.resolve(SNAPSHOT_PREFIX + number + TEMP_SUFFIX);
+        deleteRecursively(temp);
+        Files.createDirectories(temp);
+
+        int parts = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), items.size()));
+        int chunk = (items.size() + parts - 1) / parts;
+        try {
+            IntStream.range(0, parts).parallel().forEach(part -> {
+                List<Item> partItems = items.subList(Math.min(items.size(), part * chunk),
+                        Math.min(items.size(), (part + 1) * chunk));
+                try {
+                    writeRecords(temp.resolve(String.format("part-%03d", part)), partItems);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        syncDirectory(temp);
+        Files.move(temp, snapshotPath(number), StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(directory);
+    }
+
+    /**
+     * 디렉토리의 항목(새 파일, 바뀐 이름)을 디스크에 기록한다. 디렉토리를 열 수 없는 Windows에서는 하지 않는다.
+     */
+    private static void syncDirectory(Path path) throws IOException {
+        if (WINDOWS) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private static void writeRecords(Path file, List<Item> items) throws IOException {
+        try (FileOutputStream fileOut = new FileOutputStream(file.toFile());
+             BufferedOutputStream out = new BufferedOutputStream(fileOut, 1 << 16)) {
+            for (Item item : items) {
+                out.write(ItemLogFormat.encode(item));
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+    }
+
+    private long latestSnapshot() throws IOException {
+        return numbers(SNAPSHOT_PREFIX, "").stream().mapToLong(Long::longValue).max().orElse(-1);
+    }
+
+    private List<Long> segmentNumbers() throws IOException {
+        return numbers(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * prefix + 숫자 + suffix 모양의 파일 이름에서 숫자만 뽑아 오름차순으로 돌려준다.
+     */
+    private List<Long> numbers(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> name.substring(prefix.length(), name.length() - suffix.length()))
+                    .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                    .map(Long::valueOf)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void deleteTemporaryFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(path -> path.getFileName().toString().endsWith(TEMP_SUFFIX))
+                    .collect(Collectors.toList())) {
+                deleteRecursively(path);
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%020d", number) + SEGMENT_SUFFIX);
+    }
+
+    private Path snapshotPath(long number) {
+        return directory.resolve(SNAPSHOT_PREFIX + String.format("%020d", number));
+    }
+
+    private static final class Segment {
+
+        final long number;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        Segment(long number, FileChannel channel, MappedByteBuffer buffer) {
+            this.number = number;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private static final class DurableWaiter {
+
+        final long position;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        DurableWaiter(long position) {
+            this.position = position;
+        }
+    }
+}
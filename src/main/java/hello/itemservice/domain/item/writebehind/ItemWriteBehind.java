@@ -0,0 +1,317 @@
+package hello.itemservice.domain.item.writebehind;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 컨트롤러의 저장/수정을 요청 쓰레드에서 하지 않고, 큐에 넣은 뒤 writer 쓰레드가 모아서 ItemRepository에 쓴다.
+ * (itemservice.write-behind.enabled=true 일 때. 아니면 ItemRepository를 바로 호출한다)
+ *
+ * - save는 id만 먼저 받아서 바로 돌려준다. update는 지금 보이는 상품이 없으면 ItemRepository.update처럼 아무것도 하지 않는다.
+ *   버전 확인도 지금 보이는 상품(pending 포함)으로 한다. 확인하고 큐에 넣는 것을 같은 stripe 락 안에서 하므로
+ *   같은 상품을 같은 버전으로 동시에 수정하면 하나만 들어간다.
+ * - 큐는 MpscRingBuffer다. 가득 차면 넣는 쪽이 잠깐씩 쉬면서 자리가 날 때까지 기다린다. (backpressure)
+ * - writer는 큐에서 maxBatch개까지 꺼내서 같은 id의 변경은 마지막 것 하나로 합치고,
+ *   ItemRepository.putAll로 한 번에 쓴다. 로그가 켜져 있으면 fsync도 배치마다 한 번만 기다린다.
+ * - 켜져 있을 때는 모든 수정(V1~V4)이 update를 거쳐야 한다. 그래야 stripe 락 안의 버전 확인이 최종 판단이 되고,
+ *   확인을 통과해서 응답한 수정은 반드시 쓰인다.
+ * - putAll은 상품마다 큐에 넣을 때 확인한 버전(합쳐진 변경이면 첫 변경의 버전)이 store에 그대로 있을 때만 쓴다.
+ *   그래도 누군가 ItemRepository.update를 바로 호출해서 먼저 들어갔으면 큐의 변경은 버려지고 conflicts로 센다.
+ *   (먼저 저장된 수정을 덮어쓰지 않는다) 이미 응답한 수정을 잃은 것이므로 error로 남긴다.
+ * - 쓰다가 실패한 배치(로그 기록 실패 등)는 버리지 않는다. pending에 그대로 두고 점점 길게 쉬면서 다시 쓴다.
+ *   다시 쓰는 동안에는 큐에서 더 꺼내지 않는다. 이때 큐가 가득 차 있으면 새 저장/수정은 기다리지 않고
+ *   IllegalStateException으로 바로 실패한다. (로그가 실패 상태이면 다시 써도 계속 실패하므로 요청 쓰레드가 모두 묶이지 않게 한다)
+ * - 아직 쓰지 않은 상품은 pending에 들고 있어서 findById가 방금 저장/수정한 값을 바로 본다. (read-your-writes)
+ *   목록(findPage) 같은 인덱스 조회에는 writer가 쓴 뒤에 나타난다.
+ *
+ * pending에 넣는 것과 큐에 넣는 것을 id로 나눈 락(stripes) 안에서 하기 때문에,
+ * 같은 상품의 변경은 pending과 큐에 같은 순서로 들어간다. writer는 자기가 쓴 Item이 아직 pending에 있을 때만 지운다.
+ * (pending.compute 안에서 큐를 기다리면 writer가 pending.remove에서 같은 bin을 기다리느라 멈출 수 있어서 락을 따로 둔다)
+ */
+@Slf4j
+@Component
+public class ItemWriteBehind {
+
+    private static final int STRIPES = 64;
+    private static final long MAX_RETRY_WAIT_NANOS = 1_000_000_000L;
+    private static final int CLOSE_ATTEMPTS = 5;
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final MpscRingBuffer<Item> queue;
+    private final Map<Long, Item> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong backpressureWaits = new AtomicLong();
+    private volatile long written;
+    private volatile long batches;
+    private volatile long coalesced;
+    private volatile long failed;
+    private volatile long conflicts;
+    private volatile int maxBatchSize;
+
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean sleeping;
+
+    /**
+     * writer 쓰레드만 고친다. (close에서는 writer가 끝난 뒤에)
+     * expectedVersions는 id -> 배치에서 그 상품의 첫 변경을 큐에 넣을 때 확인한 버전이다. 저장이면 null.
+     */
+    private final Map<Long, Item> batch = new LinkedHashMap<>();
+    private final Map<Long, Long> expectedVersions = new HashMap<>();
+    private int batchDrained;
+    private volatile boolean retrying;
+
+    @Autowired
+    public ItemWriteBehind(ItemRepository itemRepository,
+                           @Value("${itemservice.write-behind.enabled:false}") boolean enabled,
+                           @Value("${itemservice.write-behind.capacity:8192}") int capacity,
+                           @Value("${itemservice.write-behind.max-batch:256}") int maxBatch) {
+        this.itemRepository = itemRepository;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.queue = enabled ? new MpscRingBuffer<>(capacity) : null;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        if (enabled) {
+            writer = new Thread(this::writeLoop, "item-write-behind");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+    public Item save(Item item) {
+        if (!enabled) {
+            return itemRepository.save(item);
+        }
+        item.setId(itemRepository.nextId());
+        item.setVersion(0L);
+        enqueue(item);
+        return item;
+    }
+
+    public void update(Long itemId, Item updateParam) {
+        update(itemId, updateParam, null);
+    }
+
+    /**
+     * ItemRepository.update(itemId, updateParam, expectedVersion)과 같다.
+     * 버전이 다르면 ItemVersionConflictException을 던지고, 상품이 없으면 null을 돌려준다.
+     */
+    public Item update(Long itemId, Item updateParam, Long expectedVersion) {
+        if (!enabled) {
+            return itemRepository.update(itemId, updateParam, expectedVersion);
+        }
+        ReentrantLock stripe = stripeFor(itemId);
+        stripe.lock();
+        try {
+            Item current = findById(itemId);
+            if (current == null) {
+                return null;
+            }
+            ItemRepository.checkVersion(current, expectedVersion);
+            Item updatedItem = new Item(updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity());
+            updatedItem.setId(itemId);
+            updatedItem.setVersion(ItemRepository.nextVersion(current));
+            enqueue(updatedItem);
+            return updatedItem;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    public Item findById(Long itemId) {
+        if (enabled) {
+            Item item = pending.get(itemId);
+            if (item != null) {
+                return item;
+            }
+        }
+        return itemRepository.findById(itemId);
+    }
+
+    /**
+     * 큐 깊이와 배치 크기. (GET /actuator/writebehind)
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (!enabled) {
+            return stats;
+        }
+        long batchCount = batches;
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", queue.capacity());
+        stats.put("pending", pending.size());
+        stats.put("enqueued", enqueued.get());
+        stats.put("written", written);
+        stats.put("coalesced", coalesced);
+        stats.put("failed", failed);
+        stats.put("retrying", retrying);
+        stats.put("conflicts", conflicts);
+        stats.put("batches", batchCount);
+        stats.put("meanBatchSize", batchCount == 0 ? 0 : (double) written / batchCount);
+        stats.put("maxBatchSize", maxBatchSize);
+        stats.put("backpressureWaits", backpressureWaits.get());
+        return stats;
+    }
+
+    /**
+     * 큐에 남은 변경을 모두 쓰고 writer를 멈춘다. 그래도 쓰지 못한 변경은 로그에 남긴다.
+     */
+    @PreDestroy
+    public void close() {
+        if (!enabled || !running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 다시 쓰던 배치와 writer가 끝나는 사이에 들어온 변경. 실패하면 몇 번만 더 쓰고 포기한다.
+        int attempts = 0;
+        while (!batch.isEmpty() || drain() > 0) {
+            if (write()) {
+                attempts = 0;
+                continue;
+            }
+            if (++attempts == CLOSE_ATTEMPTS) {
+                log.error("write-behind closed with unwritten items. items={}, queued={}", batch.keySet(), queue.size());
+                return;
+            }
+            LockSupport.parkNanos(1_000_000L << attempts);
+        }
+    }
+
+    private ReentrantLock stripeFor(long itemId) {
+        return stripes[(int) (itemId & (STRIPES - 1))];
+    }
+
+    private void enqueue(Item item) {
+        ReentrantLock stripe = stripeFor(item.getId());
+        stripe.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("write-behind queue is closed");
+            }
+            if (retrying && queue.size() >= queue.capacity()) {
+                throw new IllegalStateException("write-behind queue is full while retrying a failed batch");
+            }
+            pending.put(item.getId(), item);
+            long waitNanos = 1_000;
+            while (!queue.offer(item)) {
+                backpressureWaits.incrementAndGet();
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(waitNanos);
+                waitNanos = Math.min(waitNanos * 2, 1_000_000);
+            }
+        } finally {
+            stripe.unlock();
+        }
+        enqueued.incrementAndGet();
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * 실패한 배치가 있으면 큐에서 더 꺼내지 않고 그 배치부터 다시 쓴다. 멈추라고 하면 다시 쓰는 것은 close에 넘긴다.
+     */
+    private void writeLoop() {
+        long retryWaitNanos = 1_000_000;
+        while (true) {
+            if (!batch.isEmpty() || drain() > 0) {
+                if (write()) {
+                    retryWaitNanos = 1_000_000;
+                } else if (running) {
+                    LockSupport.parkNanos(retryWaitNanos);
+                    retryWaitNanos = Math.min(retryWaitNanos * 2, MAX_RETRY_WAIT_NANOS);
+                } else {
+                    return;
+                }
+                continue;
+            }
+            if (!running) {
+                return;
+            }
+            sleeping = true;
+            if (queue.size() == 0) {
+                LockSupport.parkNanos(1_000_000);
+            }
+            sleeping = false;
+        }
+    }
+
+    /**
+     * 같은 상품의 변경은 마지막 것만 남기고, 확인할 버전은 첫 변경의 것(item.version - 1)을 남긴다.
+     */
+    private int drain() {
+        int drained = 0;
+        Item item;
+        while (drained < maxBatch && (item = queue.poll()) != null) {
+            if (!batch.containsKey(item.getId())) {
+                expectedVersions.put(item.getId(), item.getVersion() == 0 ? null : item.getVersion() - 1);
+            }
+            batch.put(item.getId(), item);
+            drained++;
+        }
+        batchDrained += drained;
+        return drained;
+    }
+
+    /**
+     * @return 실패해서 다시 써야 하면 false. 배치와 pending은 그대로 남는다.
+     */
+    private boolean write() {
+        try {
+            itemRepository.putAll(batch.values(), expectedVersions, this::conflicted);
+        } catch (RuntimeException e) {
+            failed += batch.size();
+            retrying = true;
+            log.error("write-behind batch failed, retrying. items={}", batch.size(), e);
+            return false;
+        }
+        retrying = false;
+        for (Item item : batch.values()) {
+            pending.remove(item.getId(), item);
+        }
+        written += batchDrained;
+        coalesced += batchDrained - batch.size();
+        batches++;
+        if (batchDrained > maxBatchSize) {
+            maxBatchSize = batchDrained;
+        }
+        batch.clear();
+        expectedVersions.clear();
+        batchDrained = 0;
+        return true;
+    }
+
+    private void conflicted(Item item) {
+        conflicts++;
+        log.error("write-behind dropped an acknowledged change because the item was updated outside the write-behind. itemId={}, version={}",
+                item.getId(), item.getVersion());
+    }
+}
@@ -0,0 +1,24 @@
+package hello.itemservice.domain.item.writebehind;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * GET /actuator/writebehind
+ */
+@Component
+@Endpoint(id = "writebehind")
+@RequiredArgsConstructor
+public class ItemWriteBehindEndpoint {
+
+    private final ItemWriteBehind itemWriteBehind;
+
+    @ReadOperation
+    public Map<String, Object> writeBehind() {
+        return itemWriteBehind.stats();
+    }
+}
@@ -0,0 +1,82 @@
+package hello.itemservice.domain.item.writebehind;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 여러 쓰레드가 넣고(offer) 한 쓰레드만 꺼내는(poll) 크기가 고정된 링 버퍼. 락을 쓰지 않는다.
+ *
+ * 칸마다 sequence를 두고 (Dmitry Vyukov의 bounded queue)
+ * - sequence == tail 이면 비어있는 칸이라서 tail을 CAS로 하나 올린 생산자가 그 칸에 쓴다.
+ * - 값을 다 쓴 뒤에 sequence를 tail + 1로 바꿔서 소비자에게 알린다.
+ * - 소비자는 꺼낸 뒤 sequence를 한 바퀴 뒤(head + capacity)로 바꿔서 다음 바퀴의 생산자에게 칸을 돌려준다.
+ * 가득 차면 offer는 기다리지 않고 false를 돌려준다. 기다릴지는 호출하는 쪽에서 정한다.
+ */
+final class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    MpscRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity는 2의 제곱수여야 합니다. capacity=" + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false;
+            }
+            // 다른 생산자가 먼저 칸을 가져갔다. 다시 읽는다.
+        }
+    }
+
+    /**
+     * 소비자 쓰레드에서만 호출한다. 비어 있거나, 칸을 가져간 생산자가 아직 값을 다 쓰지 않았으면 null이다.
+     */
+    E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = buffer.get(index);
+        buffer.lazySet(index, null);
+        sequences.lazySet(index, position + capacity);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * 동시에 넣고 꺼내는 중에는 근사값이다.
+     */
+    int size() {
+        return (int) Math.max(0, Math.min(capacity, tail.get() - head));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,264 @@
+package hello.itemservice.message;
+
+import org.springframework.context.MessageSource;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.context.NoSuchMessageException;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * rejectValue("price", "range", ...) 한번에
+ * range.item.price -> range.price -> range.java.lang.Integer -> range
+ * 순서로 메시지를 찾는데, 화면을 그릴 때마다 이 코드들을 하나씩 properties에서 찾는다.
+ *
+ * 이 MessageSource는 (코드 목록, locale) 별로 "실제로 찾아진 코드"와 그 메시지로 만든 MessageFormat을 기억해서
+ * 두번째부터는 map 조회 한번 + format만 한다.
+ *
+ * 찾는 코드가 하나도 없었다는 결과도 기억한다. 기본 메시지를 그대로 돌려주면 되는 경우(인자가 없을 때)는
+ * 원래 MessageSource에 다시 묻지 않는다.
+ *
+ * locale은 Accept-Language로 아무 값이나 올 수 있으므로 MAX_LOCALES개의 locale까지만 캐시한다.
+ * 그 뒤에 처음 보는 locale은 캐시하지 않고 매번 원래 MessageSource에서 찾는다.
+ *
+ * 메시지 파일이 다시 로딩될 수 있도록(spring.messages.cache-duration) 같은 주기로 캐시를 비운다.
+ * 캐시 적중 수는 /actuator/messages 에서 볼 수 있다. (MessageSourceEndpoint)
+ */
+public class CachingMessageSource implements MessageSource {
+
+    /**
+     * 메시지가 없는지 확인할 때 기본 메시지로 넘기는 값. 실제 메시지와 겹치지 않도록 제어문자를 넣었다.
+     */
+    private static final String MISSING = "\u0000missing\u0000";
+    private static final int MAX_LOCALES = 32;
+
+    private final MessageSource delegate;
+    private final long cacheMillis;
+    private final boolean alwaysUseMessageFormat;
+
+    private final Map<Locale, Map<Codes, Resolution>> resolutions = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile long expiresAt;
+
+    /**
+     * @param cacheMillis 캐시를 유지하는 시간. 음수면 계속 유지한다. (spring.messages.cache-duration과 같은 의미)
+     */
+    public CachingMessageSource(MessageSource delegate, long cacheMillis, boolean alwaysUseMessageFormat) {
+        this.delegate = delegate;
+        this.cacheMillis = cacheMillis;
+        this.alwaysUseMessageFormat = alwaysUseMessageFormat;
+        this.expiresAt = nextExpiry();
+    }
+
+    @Override
+    public String getMessage(String code, Object[] args, String defaultMessage, Locale locale) {
+        Resolution resolution = resolve(new String[]{code}, locale);
+        if (resolution == Resolution.NONE && defaultMessage != null && isPlain(args)) {
+            return defaultMessage;
+        }
+        if (resolution == Resolution.NONE) {
+            return delegate.getMessage(code, args, defaultMessage, locale);
+        }
+        return resolution.format(resolveArguments(args, locale), alwaysUseMessageFormat);
+    }
+
+    @Override
+    public String getMessage(String code, Object[] args, Locale locale) throws NoSuchMessageException {
+        Resolution resolution = resolve(new String[]{code}, locale);
+        if (resolution == Resolution.NONE) {
+            return delegate.getMessage(code, args, locale);
+        }
+        return resolution.format(resolveArguments(args, locale), alwaysUseMessageFormat);
+    }
+
+    @Override
+    public String getMessage(MessageSourceResolvable resolvable, Locale locale) throws NoSuchMessageException {
+        String[] codes = resolvable.getCodes();
+        Resolution resolution = codes == null || codes.length == 0 ? Resolution.NONE : resolve(codes, locale);
+        if (resolution == Resolution.NONE && resolvable.getDefaultMessage() != null && isPlain(resolvable.getArguments())) {
+            return resolvable.getDefaultMessage();
+        }
+        if (resolution == Resolution.NONE) {
+            // 찾아지는 코드가 없으면 기본 메시지 처리, 예외는 원래 MessageSource에 맡긴다.
+            return delegate.getMessage(resolvable, locale);
+        }
+        return resolution.format(resolveArguments(resolvable.getArguments(), locale), alwaysUseMessageFormat);
+    }
+
+    public void clearCache() {
+        resolutions.clear();
+        expiresAt = nextExpiry();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int getCacheSize() {
+        int size = 0;
+        for (Map<Codes, Resolution> byCodes : resolutions.values()) {
+            size += byCodes.size();
+        }
+        return size;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("source", "caching");
+        stats.put("entries", getCacheSize());
+        stats.put("locales", resolutions.keySet().stream().map(Locale::toString).collect(Collectors.toList()));
+        stats.put("hits", getHitCount());
+        stats.put("misses", getMissCount());
+        return stats;
+    }
+
+    /**
+     * 찾은 메시지. 찾는 코드가 없으면 Resolution.NONE
+     */
+    private Resolution resolve(String[] codes, Locale locale) {
+        Locale target = locale == null ? Locale.getDefault() : locale;
+        if (cacheMillis == 0) {
+            misses.increment();
+            return lookup(codes, target);
+        }
+        if (cacheMillis > 0 && System.currentTimeMillis() > expiresAt) {
+            clearCache();
+        }
+
+        Map<Codes, Resolution> byCodes = resolutions.get(target);
+        if (byCodes == null && resolutions.size() < MAX_LOCALES) {
+            byCodes = resolutions.computeIfAbsent(target, key -> new ConcurrentHashMap<>());
+        }
+        if (byCodes == null) {
+            misses.increment();
+            return lookup(codes, target);
+        }
+
+        Codes key = new Codes(codes);
+        Resolution resolution = byCodes.get(key);
+        if (resolution != null) {
+            hits.increment();
+            return resolution;
+        }
+
+        misses.increment();
+        resolution = lookup(codes, target);
+        byCodes.put(key, resolution);
+        return resolution;
+    }
+
+    /**
+     * 우선순위가 높은 코드부터 원래 MessageSource에서 찾아본다.
+     */
+    private Resolution lookup(String[] codes, Locale locale) {
+        for (String code : codes) {
+            String pattern = delegate.getMessage(code, null, MISSING, locale);
+            if (pattern != null && !MISSING.equals(pattern)) {
+                return new Resolution(pattern, locale);
+            }
+        }
+        return Resolution.NONE;
+    }
+
+    /**
+     * 인자 중에 MessageSourceResolvable(Bean Validation의 필드명 같은 것)이 있으면 먼저 메시지로 바꿔준다.
+     */
+    private Object[] resolveArguments(Object[] args, Locale locale) {
+        if (args == null || args.length == 0) {
+            return args;
+        }
+        Object[] resolved = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof MessageSourceResolvable) {
+                if (resolved == null) {
+                    resolved = args.clone();
+                }
+                resolved[i] = getMessage((MessageSourceResolvable) args[i], locale);
+            }
+        }
+        return resolved == null ? args : resolved;
+    }
+
+    /**
+     * AbstractMessageSource는 인자가 없으면 기본 메시지를 MessageFormat으로 만들지 않고 그대로 돌려준다.
+     */
+    private boolean isPlain(Object[] args) {
+        return !alwaysUseMessageFormat && (args == null || args.length == 0);
+    }
+
+    private long nextExpiry() {
+        return cacheMillis > 0 ? System.currentTimeMillis() + cacheMillis : Long.MAX_VALUE;
+    }
+
+    private static final class Codes {
+
+        private final String[] codes;
+        private final int hash;
+
+        Codes(String[] codes) {
+            this.codes = codes;
+            this.hash = Arrays.hashCode(codes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Codes)) {
+                return false;
+            }
+            Codes other = (Codes) o;
+            return hash == other.hash && Arrays.equals(codes, other.codes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 코드 목록 중 실제로 찾아진 코드의 메시지와, 미리 파싱해둔 MessageFormat.
+     * MessageFormat은 쓰레드에 안전하지 않으므로 락을 잡지 않고 복사해서 쓴다. (다시 파싱하는 것보다 싸다)
+     */
+    private static final class Resolution {
+
+        static final Resolution NONE = new Resolution(null, null);
+
+        private final String pattern;
+        private final Locale locale;
+        private volatile MessageFormat messageFormat;
+
+        Resolution(String pattern, Locale locale) {
+            this.pattern = pattern;
+            this.locale = locale;
+        }
+
+        /**
+         * AbstractMessageSource와 같이 인자가 없으면 MessageFormat을 거치지 않고 메시지를 그대로 돌려준다.
+         */
+        String format(Object[] args, boolean alwaysUseMessageFormat) {
+            if (!alwaysUseMessageFormat && (args == null || args.length == 0)) {
+                return pattern;
+            }
+            MessageFormat format = messageFormat;
+            if (format == null) {
+                format = new MessageFormat(pattern, locale);
+                messageFormat = format;
+            }
+            return ((MessageFormat) format.clone()).format(args == null ? new Object[0] : args);
+        }
+    }
+}
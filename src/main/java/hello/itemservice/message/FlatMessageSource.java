@@ -0,0 +1,514 @@
+package hello.itemservice.message;
+
+import org.springframework.context.MessageSource;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.text.DateFormat;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * messages, errors 같은 properties 파일들을 시작할 때 locale 별로 하나의 표(Table)로 펼쳐두는 MessageSource.
+ *
+ * ResourceBundleMessageSource는 코드를 찾을 때마다 basename 마다 ResourceBundle을 꺼내서
+ * messages_en -> messages 처럼 부모 번들을 따라가며 찾는다. 여기서는 그 결과를 미리 계산해둔다.
+ * - basename 순서, locale 후보(en_US -> en -> 시스템 locale -> 기본 파일) 순서대로 먼저 나온 메시지를 코드에 붙인다.
+ *   ResourceBundleMessageSource가 찾는 순서와 같다.
+ * - 표는 완전 해시(perfect hash)라서 코드 하나를 찾을 때 칸 하나만 보면 된다. (hash and displace)
+ *   코드를 버킷으로 나누고, 버킷마다 모든 코드가 빈 칸에 들어가는 displacement를 찾아서 기록해둔다.
+ * - 메시지 패턴도 미리 나눠둔다. {0} 같은 단순한 인자만 있으면 문자열 조각과 인자 번호로 바로 만들고,
+ *   작은따옴표나 {0,number,#} 같은 형식이 있으면 미리 파싱해둔 MessageFormat을 복사해서 쓴다.
+ *   어느 쪽도 락을 잡지 않는다.
+ *
+ * 표는 시작할 때 파일이 있는 locale마다 하나, 파일이 없는 locale이 쓸 표(fallback) 하나만 만들고 바뀌지 않는다.
+ * Accept-Language로 어떤 locale이 올지 모르므로 요청한 locale마다 표를 만들지 않고,
+ * locale 후보(en_US -> en) 중 파일이 있는 첫 locale의 표를 쓴다. 없으면 fallback 표(시스템 locale 또는 기본 파일)를 쓴다.
+ * (Locale.ROOT는 ResourceBundle처럼 기본 파일의 표를 쓴다)
+ * 찾는 메시지는 요청한 locale로 만든 표와 같고, 숫자/날짜 형식은 그 표의 locale을 따른다.
+ * 자주 오는 locale은 어느 표를 쓰는지 MAX_ALIASES개까지만 기억한다.
+ * 표에 없는 코드(기본 메시지, NoSuchMessageException, useCodeAsDefaultMessage)는 원래 MessageSource에 맡긴다.
+ * 파일을 다시 읽지 않으므로 spring.messages.cache-duration을 쓸 때는 CachingMessageSource를 사용한다. (MessageSourceConfig)
+ */
+public class FlatMessageSource implements MessageSource {
+
+    private static final ResourceBundle.Control CONTROL = ResourceBundle.Control.getControl(ResourceBundle.Control.FORMAT_DEFAULT);
+    private static final Map<String, String> NO_BUNDLE = Collections.emptyMap();
+    private static final int MAX_ALIASES = 64;
+
+    private final MessageSource delegate;
+    private final String[] basenames;
+    private final Charset encoding;
+    private final boolean fallbackToSystemLocale;
+    private final boolean alwaysUseMessageFormat;
+    private final ClassLoader classLoader;
+
+    private final Map<String, Map<String, String>> bundles = new ConcurrentHashMap<>();
+    private final Set<Locale> bundleLocales;
+    private final Locale fallbackLocale;
+    private final Map<Locale, Table> tables;
+    private final Map<Locale, Table> aliases = new ConcurrentHashMap<>();
+
+    public FlatMessageSource(MessageSource delegate, String[] basenames, Charset encoding,
+                             boolean fallbackToSystemLocale, boolean alwaysUseMessageFormat) {
+        this.delegate = delegate;
+        this.basenames = basenames.clone();
+        this.encoding = encoding;
+        this.fallbackToSystemLocale = fallbackToSystemLocale;
+        this.alwaysUseMessageFormat = alwaysUseMessageFormat;
+        this.classLoader = getClass().getClassLoader();
+
+        this.bundleLocales = bundleLocales();
+        Locale systemLocale = bundleLocale(Locale.getDefault());
+        this.fallbackLocale = fallbackToSystemLocale && systemLocale != null ? systemLocale : Locale.ROOT;
+
+        Map<Locale, Table> tables = new LinkedHashMap<>();
+        for (Locale locale : bundleLocales) {
+            tables.put(locale, buildTable(locale));
+        }
+        tables.computeIfAbsent(fallbackLocale, this::buildTable);
+        tables.computeIfAbsent(Locale.ROOT, this::buildTable);
+        this.tables = Collections.unmodifiableMap(tables);
+    }
+
+    @Override
+    public String getMessage(String code, Object[] args, String defaultMessage, Locale locale) {
+        Locale target = locale == null ? Locale.getDefault() : locale;
+        Message message = table(target).find(code);
+        if (message == null) {
+            return delegate.getMessage(code, args, defaultMessage, locale);
+        }
+        return message.format(resolveArguments(args, target), alwaysUseMessageFormat);
+    }
+
+    @Override
+    public String getMessage(String code, Object[] args, Locale locale) throws NoSuchMessageException {
+        Locale target = locale == null ? Locale.getDefault() : locale;
+        Message message = table(target).find(code);
+        if (message == null) {
+            return delegate.getMessage(code, args, locale);
+        }
+        return message.format(resolveArguments(args, target), alwaysUseMessageFormat);
+    }
+
+    @Override
+    public String getMessage(MessageSourceResolvable resolvable, Locale locale) throws NoSuchMessageException {
+        String[] codes = resolvable.getCodes();
+        if (codes != null) {
+            Locale target = locale == null ? Locale.getDefault() : locale;
+            Table table = table(target);
+            for (String code : codes) {
+                Message message = table.find(code);
+                if (message != null) {
+                    return message.format(resolveArguments(resolvable.getArguments(), target), alwaysUseMessageFormat);
+                }
+            }
+        }
+        // 찾아지는 코드가 없으면 기본 메시지 처리, 예외는 원래 MessageSource에 맡긴다.
+        return delegate.getMessage(resolvable, locale);
+    }
+
+    /**
+     * 만들어둔 표의 locale과 코드 수. 표는 시작할 때 만든 것뿐이라 요청이 오면서 늘어나지 않는다.
+     */
+    public Map<Locale, Integer> getTableSizes() {
+        Map<Locale, Integer> sizes = new LinkedHashMap<>();
+        tables.forEach((locale, table) -> sizes.put(locale, table.size));
+        return sizes;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Integer> tableSizes = new LinkedHashMap<>();
+        getTableSizes().forEach((locale, size) -> tableSizes.put(locale.toString(), size));
+        stats.put("source", "flat");
+        stats.put("tables", tableSizes);
+        stats.put("aliases", aliases.size());
+        return stats;
+    }
+
+    private Table table(Locale locale) {
+        Table table = tables.get(locale);
+        if (table != null) {
+            return table;
+        }
+        table = aliases.get(locale);
+        if (table != null) {
+            return table;
+        }
+        Locale bundleLocale = bundleLocale(locale);
+        if (bundleLocale == null) {
+            bundleLocale = locale.equals(Locale.ROOT) ? Locale.ROOT : fallbackLocale;
+        }
+        table = tables.get(bundleLocale);
+        if (aliases.size() < MAX_ALIASES) {
+            aliases.putIfAbsent(locale, table);
+        }
+        return table;
+    }
+
+    /**
+     * locale 후보 중 파일이 있는 첫 locale. ResourceBundle.getBundle이 번들을 찾는 순서와 같으므로,
+     * 이 locale로 만든 표는 요청한 locale로 만든 표와 같은 메시지를 가진다. 없으면 null
+     */
+    private Locale bundleLocale(Locale locale) {
+        for (Locale candidate : CONTROL.getCandidateLocales("", locale)) {
+            if (bundleLocales.contains(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private Object[] resolveArguments(Object[] args, Locale locale) {
+        if (args == null || args.length == 0) {
+            return args;
+        }
+        Object[] resolved = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof MessageSourceResolvable) {
+                if (resolved == null) {
+                    resolved = args.clone();
+                }
+                resolved[i] = getMessage((MessageSourceResolvable) args[i], locale);
+            }
+        }
+        return resolved == null ? args : resolved;
+    }
+
+    private Table buildTable(Locale locale) {
+        Map<String, String> patterns = new LinkedHashMap<>();
+        for (String basename : basenames) {
+            for (Map<String, String> bundle : chain(basename, locale)) {
+                bundle.forEach(patterns::putIfAbsent);
+            }
+        }
+        return Table.build(patterns, locale);
+    }
+
+    /**
+     * ResourceBundle.getBundle과 같은 순서의 번들 목록.
+     * 요청한 locale의 파일이 하나도 없으면 시스템 locale의 파일을 보고, 마지막은 기본 파일(locale 없는 파일)이다.
+     * Locale.ROOT를 요청하면 기본 파일만 본다.
+     */
+    private List<Map<String, String>> chain(String basename, Locale locale) {
+        List<Map<String, String>> chain = new ArrayList<>();
+        addCandidates(chain, basename, locale);
+        Locale systemLocale = Locale.getDefault();
+        if (chain.isEmpty() && fallbackToSystemLocale && !locale.equals(systemLocale) && !locale.equals(Locale.ROOT)) {
+            addCandidates(chain, basename, systemLocale);
+        }
+        Map<String, String> root = bundle(basename);
+        if (root != NO_BUNDLE) {
+            chain.add(root);
+        }
+        return chain;
+    }
+
+    private void addCandidates(List<Map<String, String>> chain, String basename, Locale locale) {
+        for (Locale candidate : CONTROL.getCandidateLocales(basename, locale)) {
+            if (candidate.equals(Locale.ROOT)) {
+                continue;
+            }
+            Map<String, String> bundle = bundle(CONTROL.toBundleName(basename, candidate));
+            if (bundle != NO_BUNDLE) {
+                chain.add(bundle);
+            }
+        }
+    }
+
+    private Map<String, String> bundle(String bundleName) {
+        return bundles.computeIfAbsent(bundleName, this::load);
+    }
+
+    private Map<String, String> load(String bundleName) {
+        String resourceName = CONTROL.toResourceName(bundleName, "properties");
+        try (InputStream in = classLoader.getResourceAsStream(resourceName)) {
+            if (in == null) {
+                return NO_BUNDLE;
+            }
+            Properties properties = new Properties();
+            try (Reader reader = new InputStreamReader(in, encoding)) {
+                properties.load(reader);
+            }
+            Map<String, String> messages = new LinkedHashMap<>();
+            for (String code : properties.stringPropertyNames()) {
+                messages.put(code, properties.getProperty(code));
+            }
+            return messages;
+        } catch (IOException e) {
+            throw new UncheckedIOException("메시지 파일을 읽을 수 없습니다. " + resourceName, e);
+        }
+    }
+
+    /**
+     * classpath에 있는 basename_xx.properties 파일들의 locale.
+     */
+    private Set<Locale> bundleLocales() {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        Set<Locale> locales = new LinkedHashSet<>();
+        for (String basename : basenames) {
+            String path = basename.replace('.', '/');
+            String prefix = path.substring(path.lastIndexOf('/') + 1) + "_";
+            try {
+                for (Resource resource : resolver.getResources("classpath*:" + path + "_*.properties")) {
+                    String filename = resource.getFilename();
+                    if (filename == null || !filename.startsWith(prefix)) {
+                        continue;
+                    }
+                    String[] parts = filename.substring(prefix.length(), filename.length() - ".properties".length()).split("_", 3);
+                    locales.add(new Locale(parts[0], parts.length > 1 ? parts[1] : "", parts.length > 2 ? parts[2] : ""));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("메시지 파일 목록을 읽을 수 없습니다. " + basename, e);
+            }
+        }
+        return locales;
+    }
+
+    /**
+     * 한 locale의 코드 -> 메시지 완전 해시 표.
+     *
+     * 코드는 hashCode로 버킷을 고르고, 버킷의 displacement를 seed로 한 두번째 해시로 칸을 고른다.
+     * 칸 수는 코드 수의 2배 이상인 2의 제곱수라서 displacement는 금방 찾아진다.
+     * 찾을 때는 버킷 -> displacement -> 칸 한번이고, 표에 없는 코드일 수 있어서 칸의 코드와 equals로 확인한다.
+     */
+    static final class Table {
+
+        private static final int MAX_DISPLACEMENT = 1 << 20;
+
+        private final String[] codes;
+        private final Message[] messages;
+        private final int[] displacements;
+        private final int bucketMask;
+        private final int slotMask;
+        private final int size;
+
+        private Table(String[] codes, Message[] messages, int[] displacements, int size) {
+            this.codes = codes;
+            this.messages = messages;
+            this.displacements = displacements;
+            this.bucketMask = displacements.length - 1;
+            this.slotMask = codes.length - 1;
+            this.size = size;
+        }
+
+        static Table build(Map<String, String> patterns, Locale locale) {
+            int size = patterns.size();
+            int slotCount = Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1;
+            int bucketCount = Integer.highestOneBit(Math.max(1, size / 2 + 1) * 2 - 1);
+
+            List<List<String>> buckets = new ArrayList<>(bucketCount);
+            for (int i = 0; i < bucketCount; i++) {
+                buckets.add(new ArrayList<>());
+            }
+            for (String code : patterns.keySet()) {
+                buckets.get(bucket(code, bucketCount - 1)).add(code);
+            }
+            Integer[] order = new Integer[bucketCount];
+            for (int i = 0; i < bucketCount; i++) {
+                order[i] = i;
+            }
+            // 코드가 많은 버킷부터 자리를 잡는다.
+            Arrays.sort(order, Comparator.comparingInt(i -> -buckets.get(i).size()));
+
+            String[] codes = new String[slotCount];
+            Message[] messages = new Message[slotCount];
+            int[] displacements = new int[bucketCount];
+            int[] slots = new int[size];
+            for (int bucket : order) {
+                List<String> bucketCodes = buckets.get(bucket);
+                if (bucketCodes.isEmpty()) {
+                    continue;
+                }
+                int displacement = place(bucketCodes, codes, slots, slotCount - 1);
+                displacements[bucket] = displacement;
+                for (int i = 0; i < bucketCodes.size(); i++) {
+                    String code = bucketCodes.get(i);
+                    codes[slots[i]] = code;
+                    messages[slots[i]] = Message.of(patterns.get(code), locale);
+                }
+            }
+            return new Table(codes, messages, displacements, size);
+        }
+
+        Message find(String code) {
+            int displacement = displacements[bucket(code, bucketMask)];
+            int slot = slot(code, displacement, slotMask);
+            return code.equals(codes[slot]) ? messages[slot] : null;
+        }
+
+        private static int place(List<String> bucketCodes, String[] codes, int[] slots, int slotMask) {
+            for (int displacement = 0; displacement < MAX_DISPLACEMENT; displacement++) {
+                if (fits(bucketCodes, codes, slots, displacement, slotMask)) {
+                    return displacement;
+                }
+            }
+            throw new IllegalStateException("메시지 코드의 완전 해시를 만들 수 없습니다. codes=" + bucketCodes);
+        }
+
+        private static boolean fits(List<String> bucketCodes, String[] codes, int[] slots, int displacement, int slotMask) {
+            for (int i = 0; i < bucketCodes.size(); i++) {
+                int slot = slot(bucketCodes.get(i), displacement, slotMask);
+                if (codes[slot] != null) {
+                    return false;
+                }
+                for (int j = 0; j < i; j++) {
+                    if (slots[j] == slot) {
+                        return false;
+                    }
+                }
+                slots[i] = slot;
+            }
+            return true;
+        }
+
+        private static int bucket(String code, int bucketMask) {
+            int h = code.hashCode() * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & bucketMask;
+        }
+
+        /**
+         * displacement를 초기값으로 한 FNV-1a. hashCode가 같은 코드들도 displacement에 따라 다른 칸으로 갈 수 있다.
+         */
+        private static int slot(String code, int displacement, int slotMask) {
+            int h = 0x811C9DC5 ^ (displacement * 0x9E3779B9);
+            for (int i = 0; i < code.length(); i++) {
+                h = (h ^ code.charAt(i)) * 0x01000193;
+            }
+            h ^= h >>> 15;
+            h *= 0x2C1B3C6D;
+            h ^= h >>> 12;
+            return h & slotMask;
+        }
+    }
+
+    /**
+     * 미리 나눠둔 메시지 패턴.
+     * AbstractMessageSource처럼 인자가 없으면(alwaysUseMessageFormat=false) 패턴을 그대로 돌려준다.
+     */
+    static final class Message {
+
+        private final String pattern;
+        private final Locale locale;
+        /**
+         * {0} 같은 단순한 인자만 있는 패턴: literals[0] arg[0] literals[1] arg[1] ... literals[n]
+         */
+        private final String[] literals;
+        private final int[] argumentIndexes;
+        /**
+         * 작은따옴표나 형식({0,number} 등)이 있는 패턴. 쓰레드에 안전하지 않으므로 복사해서 쓴다.
+         */
+        private final MessageFormat messageFormat;
+        private final ThreadLocal<NumberFormat> numberFormat;
+
+        private Message(String pattern, Locale locale, String[] literals, int[] argumentIndexes, MessageFormat messageFormat) {
+            this.pattern = pattern;
+            this.locale = locale;
+            this.literals = literals;
+            this.argumentIndexes = argumentIndexes;
+            this.messageFormat = messageFormat;
+            this.numberFormat = literals == null ? null : ThreadLocal.withInitial(() -> NumberFormat.getInstance(locale));
+        }
+
+        static Message of(String pattern, Locale locale) {
+            List<String> literals = new ArrayList<>();
+            List<Integer> indexes = new ArrayList<>();
+            int start = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '\'' || c == '}') {
+                    return new Message(pattern, locale, null, null, new MessageFormat(pattern, locale));
+                }
+                if (c != '{') {
+                    continue;
+                }
+                int end = pattern.indexOf('}', i);
+                int index = end < 0 ? -1 : argumentIndex(pattern, i + 1, end);
+                if (index < 0) {
+                    return new Message(pattern, locale, null, null, new MessageFormat(pattern, locale));
+                }
+                literals.add(pattern.substring(start, i));
+                indexes.add(index);
+                start = end + 1;
+                i = end;
+            }
+            literals.add(pattern.substring(start));
+            return new Message(pattern, locale, literals.toArray(new String[0]),
+                    indexes.stream().mapToInt(Integer::intValue).toArray(), null);
+        }
+
+        String format(Object[] args, boolean alwaysUseMessageFormat) {
+            if (!alwaysUseMessageFormat && (args == null || args.length == 0)) {
+                return pattern;
+            }
+            Object[] arguments = args == null ? new Object[0] : args;
+            if (messageFormat != null) {
+                return ((MessageFormat) messageFormat.clone()).format(arguments);
+            }
+            StringBuilder message = new StringBuilder(pattern.length() + 16);
+            for (int i = 0; i < argumentIndexes.length; i++) {
+                message.append(literals[i]);
+                appendArgument(message, argumentIndexes[i], arguments);
+            }
+            return message.append(literals[argumentIndexes.length]).toString();
+        }
+
+        /**
+         * MessageFormat이 형식 없는 인자를 쓰는 방식과 같다.
+         */
+        private void appendArgument(StringBuilder message, int index, Object[] args) {
+            if (index >= args.length) {
+                message.append('{').append(index).append('}');
+                return;
+            }
+            Object arg = args[index];
+            if (arg == null) {
+                message.append("null");
+            } else if (arg instanceof Number) {
+                message.append(numberFormat.get().format(arg));
+            } else if (arg instanceof Date) {
+                message.append(DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale).format(arg));
+            } else {
+                message.append(arg);
+            }
+        }
+
+        private static int argumentIndex(String pattern, int from, int to) {
+            if (from == to || to - from > 9) {
+                return -1;
+            }
+            int index = 0;
+            for (int i = from; i < to; i++) {
+                char c = pattern.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                index = index * 10 + (c - '0');
+            }
+            return index;
+        }
+    }
+}
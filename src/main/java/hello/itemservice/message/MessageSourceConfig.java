@@ -0,0 +1,64 @@
+package hello.itemservice.message;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.context.MessageSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * 스프링 부트가 spring.messages.* 로 만들어주는 ResourceBundleMessageSource를 그대로 만들고,
+ * 그 앞에 itemservice.messages.source 로 고른 MessageSource를 씌워서 messageSource 빈으로 등록한다.
+ * - flat (기본): 시작할 때 locale 별로 펼쳐둔 완전 해시 표에서 찾는다. (FlatMessageSource)
+ * - caching: 찾은 결과를 캐시한다. (CachingMessageSource)
+ * spring.messages.cache-duration 으로 파일을 다시 읽어야 하면 flat이어도 caching을 사용한다.
+ *
+ * messageSource 이름의 빈이 있으면 부트의 MessageSourceAutoConfiguration은 동작하지 않는다.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MessageSourceConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.messages")
+    public MessageSourceProperties messageSourceProperties() {
+        return new MessageSourceProperties();
+    }
+
+    @Bean
+    public MessageSource messageSource(MessageSourceProperties properties,
+                                       @Value("${itemservice.messages.source:flat}") String source) {
+        ResourceBundleMessageSource bundleMessageSource = new ResourceBundleMessageSource();
+        String[] basenames = new String[0];
+        if (StringUtils.hasText(properties.getBasename())) {
+            basenames = StringUtils
+                    .commaDelimitedListToStringArray(StringUtils.trimAllWhitespace(properties.getBasename()));
+            bundleMessageSource.setBasenames(basenames);
+        }
+        if (properties.getEncoding() != null) {
+            bundleMessageSource.setDefaultEncoding(properties.getEncoding().name());
+        }
+        bundleMessageSource.setFallbackToSystemLocale(properties.isFallbackToSystemLocale());
+        Duration cacheDuration = properties.getCacheDuration();
+        if (cacheDuration != null) {
+            bundleMessageSource.setCacheMillis(cacheDuration.toMillis());
+        }
+        bundleMessageSource.setAlwaysUseMessageFormat(properties.isAlwaysUseMessageFormat());
+        bundleMessageSource.setUseCodeAsDefaultMessage(properties.isUseCodeAsDefaultMessage());
+
+        if ("flat".equals(source) && cacheDuration == null) {
+            Charset encoding = properties.getEncoding() == null ? StandardCharsets.UTF_8 : properties.getEncoding();
+            return new FlatMessageSource(bundleMessageSource, basenames, encoding,
+                    properties.isFallbackToSystemLocale(), properties.isAlwaysUseMessageFormat());
+        }
+        return new CachingMessageSource(bundleMessageSource,
+                cacheDuration == null ? -1 : cacheDuration.toMillis(),
+                properties.isAlwaysUseMessageFormat());
+    }
+}
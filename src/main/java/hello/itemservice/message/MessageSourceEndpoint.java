@@ -0,0 +1,35 @@
+package hello.itemservice.message;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GET /actuator/messages
+ * caching이면 캐시 적중 수, flat이면 locale 별 표 크기를 보여준다. (MessageSourceConfig)
+ */
+@Component
+@Endpoint(id = "messages")
+@RequiredArgsConstructor
+public class MessageSourceEndpoint {
+
+    private final MessageSource messageSource;
+
+    @ReadOperation
+    public Map<String, Object> messages() {
+        if (messageSource instanceof CachingMessageSource) {
+            return ((CachingMessageSource) messageSource).stats();
+        }
+        if (messageSource instanceof FlatMessageSource) {
+            return ((FlatMessageSource) messageSource).stats();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("source", messageSource.getClass().getSimpleName());
+        return stats;
+    }
+}
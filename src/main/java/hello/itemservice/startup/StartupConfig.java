@@ -0,0 +1,23 @@
+package hello.itemservice.startup;
+
+import hello.itemservice.TestDataInit;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * fast-start 프로필(application-fast-start.properties)은 spring.main.lazy-initialization=true로
+ * 컨트롤러, 검증기, 타임리프 같은 빈을 처음 쓸 때 만든다.
+ *
+ * 다음 빈들은 만들어질 때 하는 일이 있어서 지연 초기화에서 빼고 바로 만든다.
+ * - TestDataInit: 테스트 상품을 넣는다. (ItemRepository, 상품 저장소 로그 복구도 같이 만들어진다)
+ * - StartupWarmUp: 검증 메타데이터, 메시지를 미리 올린다.
+ */
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(TestDataInit.class, StartupWarmUp.class);
+    }
+}
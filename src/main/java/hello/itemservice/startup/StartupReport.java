@@ -0,0 +1,105 @@
+package hello.itemservice.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 서버가 뜨는데 걸린 시간을 단계별로 나눠서 로그에 남긴다. (itemservice.startup.report=true)
+ *
+ * ItemServiceApplication이 BufferingApplicationStartup으로 기록한 단계(StartupStep)를 읽어서
+ * - jvm: JVM 시작부터 SpringApplication.run까지
+ * - 최상위 단계: spring.boot.application.* (환경 준비, 컨텍스트 준비 ...), spring.context.refresh
+ * - refresh 안의 단계별 합계: 빈 후처리, 빈 생성(spring.beans.instantiate), warm-up ...
+ * - 오래 걸린 빈 10개 (의존하는 빈을 만드는 시간을 포함한다)
+ * 를 보여준다. 읽기만 하고 비우지 않기 때문에 /actuator/startup 으로도 같은 기록을 볼 수 있다.
+ */
+@Slf4j
+@Component
+public class StartupReport {
+
+    private static final int SLOWEST_BEANS = 10;
+
+    private final ApplicationStartup applicationStartup;
+    private final boolean enabled;
+
+    @Autowired
+    public StartupReport(ApplicationStartup applicationStartup,
+                         @Value("${itemservice.startup.report:false}") boolean enabled) {
+        this.applicationStartup = applicationStartup;
+        this.enabled = enabled;
+    }
+
+    @EventListener
+    public void report(ApplicationReadyEvent event) {
+        if (!enabled || !(applicationStartup instanceof BufferingApplicationStartup)) {
+            return;
+        }
+        StartupTimeline timeline = ((BufferingApplicationStartup) applicationStartup).getBufferedTimeline();
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        log.info("startup report\n{}", format(timeline, jvmStart));
+    }
+
+    static String format(StartupTimeline timeline, long jvmStartMillis) {
+        List<StartupTimeline.TimelineEvent> events = timeline.getEvents();
+        Map<Long, String> names = new LinkedHashMap<>();
+        for (StartupTimeline.TimelineEvent event : events) {
+            names.put(event.getStartupStep().getId(), event.getStartupStep().getName());
+        }
+
+        StringBuilder report = new StringBuilder();
+        line(report, "jvm", timeline.getStartTime().toEpochMilli() - jvmStartMillis);
+
+        Map<String, Long> refreshPhases = new LinkedHashMap<>();
+        List<StartupTimeline.TimelineEvent> beans = new ArrayList<>();
+        for (StartupTimeline.TimelineEvent event : events) {
+            StartupStep step = event.getStartupStep();
+            Long parentId = step.getParentId();
+            if (parentId == null) {
+                line(report, step.getName(), event.getDuration().toMillis());
+            } else if ("spring.context.refresh".equals(names.get(parentId))) {
+                refreshPhases.merge(step.getName(), event.getDuration().toMillis(), Long::sum);
+            }
+            if ("spring.beans.instantiate".equals(step.getName())) {
+                beans.add(event);
+            }
+        }
+        for (Map.Entry<String, Long> phase : refreshPhases.entrySet()) {
+            line(report, "  " + phase.getKey(), phase.getValue());
+        }
+
+        beans.sort(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed());
+        report.append("slowest beans (including dependencies)\n");
+        for (StartupTimeline.TimelineEvent bean : beans.subList(0, Math.min(SLOWEST_BEANS, beans.size()))) {
+            line(report, "  " + tag(bean.getStartupStep(), "beanName"), bean.getDuration().toMillis());
+        }
+        return report.toString();
+    }
+
+    private static void line(StringBuilder report, String phase, long millis) {
+        report.append(String.format("%-56s %6dms%n", phase, millis));
+    }
+
+    private static String tag(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (key.equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return step.getName();
+    }
+}
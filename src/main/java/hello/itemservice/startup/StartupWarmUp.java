@@ -0,0 +1,129 @@
+package hello.itemservice.startup;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.web.validation.form.ItemSaveForm;
+import hello.itemservice.web.validation.form.ItemUpdateForm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 처음 요청이 내던 초기화 비용을 서버가 뜨는 동안 미리 낸다.
+ *
+ * - Bean Validation 메타데이터: Hibernate Validator는 클래스를 처음 검증할 때 어노테이션을 읽어서 BeanMetaData를 만든다.
+ *   Item, ItemSaveForm, ItemUpdateForm에 대해 getConstraintsForClass를 불러서 미리 만들어둔다. (같은 ValidatorFactory에 캐시된다)
+ * - 메시지: (basename, locale) 마다 properties를 읽고, 그 안의 코드를 messageSource로 한번씩 찾는다.
+ *   CachingMessageSource면 캐시까지 채우고, FlatMessageSource면 그 locale이 쓸 표를 기억해둔다.
+ *
+ * 작업들은 빈이 만들어질 때(@PostConstruct) 동시에 시작하고, 다른 빈들이 다 만들어진 뒤(afterSingletonsInstantiated)에 기다린다.
+ * 그래서 다른 빈 생성, 톰캣 시작과 겹쳐서 돌고, 서버가 요청을 받을 때는 끝나 있다.
+ * 지연 초기화(spring.main.lazy-initialization)에서도 바로 만들어지도록 StartupConfig에서 제외해둔다.
+ */
+@Slf4j
+@Component
+public class StartupWarmUp implements SmartInitializingSingleton {
+
+    private static final Class<?>[] VALIDATED_TYPES = {Item.class, ItemSaveForm.class, ItemUpdateForm.class};
+
+    private final MessageSource messageSource;
+    private final ValidatorFactory validatorFactory;
+    private final ApplicationStartup applicationStartup;
+    private final String[] basenames;
+    private final List<Locale> locales;
+    private final boolean enabled;
+
+    private final List<CompletableFuture<String>> tasks = new ArrayList<>();
+
+    @Autowired
+    public StartupWarmUp(MessageSource messageSource,
+                         ValidatorFactory validatorFactory,
+                         ApplicationStartup applicationStartup,
+                         @Value("${spring.messages.basename:messages}") String basenames,
+                         @Value("${itemservice.startup.warm-up-locales:ko,en}") List<Locale> locales,
+                         @Value("${itemservice.startup.warm-up:true}") boolean enabled) {
+        this.messageSource = messageSource;
+        this.validatorFactory = validatorFactory;
+        this.applicationStartup = applicationStartup;
+        this.basenames = StringUtils.commaDelimitedListToStringArray(StringUtils.trimAllWhitespace(basenames));
+        this.locales = locales;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        for (Class<?> type : VALIDATED_TYPES) {
+            tasks.add(CompletableFuture.supplyAsync(() -> warmUpValidation(type)));
+        }
+        for (String basename : basenames) {
+            for (Locale locale : locales) {
+                tasks.add(CompletableFuture.supplyAsync(() -> warmUpMessages(basename, locale)));
+            }
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        StartupStep step = applicationStartup.start("itemservice.warm-up");
+        long start = System.nanoTime();
+        for (CompletableFuture<String> task : tasks) {
+            try {
+                step.tag("task", task.join());
+            } catch (RuntimeException e) {
+                // 미리 못 했으면 첫 요청에서 한다. 서버 시작을 막지는 않는다.
+                log.warn("startup warm-up failed", e);
+            }
+        }
+        step.end();
+        log.info("startup warm-up tasks={}, waited={}ms", tasks.size(), (System.nanoTime() - start) / 1_000_000);
+        tasks.clear();
+    }
+
+    String warmUpValidation(Class<?> type) {
+        long start = System.nanoTime();
+        Validator validator = validatorFactory.getValidator();
+        int constrained = validator.getConstraintsForClass(type).getConstrainedProperties().size();
+        return type.getSimpleName() + " properties=" + constrained + " " + elapsedMillis(start) + "ms";
+    }
+
+    String warmUpMessages(String basename, Locale locale) {
+        long start = System.nanoTime();
+        ResourceBundle bundle;
+        try {
+            bundle = ResourceBundle.getBundle(basename, locale, getClass().getClassLoader());
+        } catch (MissingResourceException e) {
+            return basename + "_" + locale + " missing";
+        }
+        int codes = 0;
+        for (String code : bundle.keySet()) {
+            messageSource.getMessage(code, null, null, locale);
+            codes++;
+        }
+        return basename + "_" + locale + " codes=" + codes + " " + elapsedMillis(start) + "ms";
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
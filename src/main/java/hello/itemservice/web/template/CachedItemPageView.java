@@ -0,0 +1,60 @@
+package hello.itemservice.web.template;
+
+import hello.itemservice.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 타임리프 View를 감싸서, 같은 상품을 같은 버전으로 그린 결과가 ItemPageCache에 있으면 템플릿을 실행하지 않고 그대로 보낸다.
+ *
+ * 세션 id가 쿠키가 아니라 URL로 붙는 요청(;jsessionid=...)은 링크가 요청마다 달라지므로 캐시하지 않는다.
+ */
+@RequiredArgsConstructor
+class CachedItemPageView implements View {
+
+    private final String viewName;
+    private final View delegate;
+    private final ItemPageCache itemPageCache;
+
+    @Override
+    public String getContentType() {
+        return delegate.getContentType();
+    }
+
+    @Override
+    public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        Object item = model == null ? null : model.get("item");
+        if (!(item instanceof Item) || ((Item) item).getId() == null || hasUrlSession(request)) {
+            delegate.render(model, request, response);
+            return;
+        }
+
+        Locale locale = RequestContextUtils.getLocale(request);
+        boolean status = request.getParameter("status") != null;
+        ItemPageCache.Page page = itemPageCache.get(viewName, locale, (Item) item, status);
+        if (page != null) {
+            response.setContentType(page.contentType);
+            response.setContentLength(page.body.length);
+            response.getOutputStream().write(page.body);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        delegate.render(model, request, wrapper);
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+            itemPageCache.put(viewName, locale, (Item) item, status, wrapper.getContentAsByteArray(), wrapper.getContentType());
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private static boolean hasUrlSession(HttpServletRequest request) {
+        return request.getSession(false) != null && !request.isRequestedSessionIdFromCookie();
+    }
+}
@@ -0,0 +1,180 @@
+package hello.itemservice.web.template;
+
+import hello.itemservice.domain.item.Item;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 상품 상세 화면(validation/v1~v4/item)을 그린 결과(HTML)를 기억해둔다.
+ *
+ * 키는 (화면, locale, 상품 id, 저장 완료 표시 여부)이고, 그릴 때 사용한 상품의 버전(Item.version)을 같이 저장한다.
+ * 상품은 값이 바뀔 때마다 버전이 올라가므로(ItemRepository.update, ItemWriteBehind) 저장소에서 꺼낸 상품의 버전이 같으면
+ * 그린 결과를 그대로 쓰고, 다르면 다시 그려서 덮어쓴다. 따로 무효화할 필요가 없다.
+ * 버전이 없는 상품은 바뀌었는지 알 수 없으므로 캐시하지 않는다.
+ *
+ * 최대 maxEntries개까지 기억하고, 넘으면 가장 오래 쓰이지 않은 화면부터 지운다. (LRU)
+ * 키의 hash로 나눈 구역(Segment)마다 접근 순서 LinkedHashMap을 두고 그 구역만 잠근다.
+ */
+@Component
+public class ItemPageCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public ItemPageCache(@Value("${itemservice.template.page-cache.max-entries:10000}") int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries는 1 이상이어야 합니다. maxEntries=" + maxEntries);
+        }
+        int count = Math.min(SEGMENTS, maxEntries);
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maxEntries / count + (i < maxEntries % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * item과 같은 버전으로 그린 화면이 있으면 돌려주고, 없으면 null.
+     */
+    Page get(String viewName, Locale locale, Item item, boolean status) {
+        if (item.getVersion() == null) {
+            misses.increment();
+            return null;
+        }
+        Key key = new Key(viewName, locale, item.getId(), status);
+        Segment segment = segmentFor(key);
+        Page page;
+        synchronized (segment) {
+            page = segment.get(key);
+        }
+        if (page != null && page.version == item.getVersion()) {
+            hits.increment();
+            return page;
+        }
+        misses.increment();
+        return null;
+    }
+
+    void put(String viewName, Locale locale, Item item, boolean status, byte[] body, String contentType) {
+        if (item.getVersion() == null) {
+            return;
+        }
+        Key key = new Key(viewName, locale, item.getId(), status);
+        Page page = new Page(item.getVersion(), body, contentType);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Page current = segment.get(key);
+            // 늦게 끝난 요청이 더 오래된 버전으로 그린 화면을 덮어쓰지 않는다.
+            if (current == null || current.version <= page.version) {
+                segment.put(key, page);
+            }
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        int entries = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                entries += segment.size();
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private Segment segmentFor(Key key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return segments[((h ^ (h >>> 16)) & 0x7FFFFFFF) % segments.length];
+    }
+
+    /**
+     * 접근 순서로 정렬된 LinkedHashMap. capacity를 넘으면 가장 오래 쓰이지 않은 화면을 지운다.
+     */
+    private final class Segment extends LinkedHashMap<Key, Page> {
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Page> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Key {
+
+        final String viewName;
+        final Locale locale;
+        final Long itemId;
+        final boolean status;
+
+        Key(String viewName, Locale locale, Long itemId, boolean status) {
+            this.viewName = viewName;
+            this.locale = locale;
+            this.itemId = itemId;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return status == key.status && viewName.equals(key.viewName)
+                    && Objects.equals(locale, key.locale) && Objects.equals(itemId, key.itemId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(viewName, locale, itemId, status);
+        }
+    }
+
+    static final class Page {
+
+        private final long version;
+        final byte[] body;
+        final String contentType;
+
+        Page(long version, byte[] body, String contentType) {
+            this.version = version;
+            this.body = body;
+            this.contentType = contentType;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package hello.itemservice.web.template;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * GET /actuator/pagecache
+ */
+@Component
+@Endpoint(id = "pagecache")
+@RequiredArgsConstructor
+public class ItemPageCacheEndpoint {
+
+    private final ItemPageCache itemPageCache;
+
+    @ReadOperation
+    public Map<String, Object> pageCache() {
+        return itemPageCache.stats();
+    }
+}
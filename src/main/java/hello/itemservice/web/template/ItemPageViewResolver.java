@@ -0,0 +1,41 @@
+package hello.itemservice.web.template;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.ViewResolver;
+import org.thymeleaf.spring5.view.ThymeleafViewResolver;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 상품 상세 화면(validation/v1~v4/item)만 타임리프 View를 CachedItemPageView로 감싸서 돌려준다.
+ * 나머지 화면은 null을 돌려주므로 타임리프 ViewResolver가 그대로 처리한다.
+ *
+ * ContentNegotiatingViewResolver는 순서가 앞선 ViewResolver의 View를 먼저 고르기 때문에 타임리프보다 앞에 둔다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemPageViewResolver implements ViewResolver, Ordered {
+
+    private static final Pattern ITEM_PAGE = Pattern.compile("validation/v\\d/+item");
+
+    private final ThymeleafViewResolver thymeleafViewResolver;
+    private final ItemPageCache itemPageCache;
+
+    @Override
+    public View resolveViewName(String viewName, Locale locale) throws Exception {
+        if (!ITEM_PAGE.matcher(viewName).matches()) {
+            return null;
+        }
+        View view = thymeleafViewResolver.resolveViewName(viewName, locale);
+        return view == null ? null : new CachedItemPageView(viewName, view, itemPageCache);
+    }
+
+    @Override
+    public int getOrder() {
+        return thymeleafViewResolver.getOrder() - 1;
+    }
+}
@@ -0,0 +1,80 @@
+package hello.itemservice.web.template;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.exceptions.TemplateInputException;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 타임리프는 템플릿을 처음 그릴 때 파싱해서 캐시에 넣는다. (spring.thymeleaf.cache=true)
+ * 첫 사용자가 그 비용을 내지 않도록, 서버가 뜨면(ApplicationReadyEvent) v1~v4 의 목록/등록/상세/수정 템플릿을
+ * SpringTemplateEngine으로 빈 Context를 주고 한번씩 처리해서 파싱 결과를 캐시에 올려둔다.
+ *
+ * 캐시를 쓰면 타임리프는 템플릿 전체를 먼저 파싱해서 캐시에 넣은 다음 처리한다.
+ * 빈 Context라서 처리 중에 나는 오류(모델, 바인딩, 요청이 없음)는 무시한다. 파싱 결과는 이미 캐시에 들어가 있다.
+ * 컨트롤러, 검증기, ItemPageCache는 건드리지 않고, 다른 리스너를 기다리게 하지 않도록 별도 스레드에서 한다.
+ */
+@Slf4j
+@Component
+public class TemplateWarmUp {
+
+    /**
+     * 템플릿 캐시의 키는 컨트롤러가 돌려주는 뷰 이름 그대로다. V3 컨트롤러는 "validation/v3//items"처럼 '/'를 두번 쓰는 이름도 돌려준다.
+     */
+    private static final String[] TEMPLATES = {
+            "validation/v1/items", "validation/v1/addForm", "validation/v1/item", "validation/v1/editForm",
+            "validation/v2/items", "validation/v2/addForm", "validation/v2/item", "validation/v2/editForm",
+            "validation/v3/items", "validation/v3/addForm", "validation/v3/item", "validation/v3/editForm",
+            "validation/v3//items", "validation/v3//addForm", "validation/v3//item",
+            "validation/v4/items", "validation/v4/addForm", "validation/v4/item", "validation/v4/editForm",
+    };
+
+    private final ObjectProvider<SpringTemplateEngine> templateEngine;
+    private final boolean enabled;
+
+    @Autowired
+    public TemplateWarmUp(ObjectProvider<SpringTemplateEngine> templateEngine,
+                          @Value("${itemservice.template.warm-up:true}") boolean enabled) {
+        this.templateEngine = templateEngine;
+        this.enabled = enabled;
+    }
+
+    @EventListener
+    public void warmUp(ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        SpringTemplateEngine engine = templateEngine.getIfAvailable();
+        if (engine == null) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> parseTemplates(engine));
+    }
+
+    void parseTemplates(SpringTemplateEngine engine) {
+        long start = System.currentTimeMillis();
+        int parsed = 0;
+        for (String template : TEMPLATES) {
+            try {
+                engine.process(template, new Context(), Writer.nullWriter());
+            } catch (TemplateInputException e) {
+                // 템플릿이 없거나 파싱하지 못했다.
+                log.warn("template warm-up {} failed", template, e);
+                continue;
+            } catch (RuntimeException e) {
+                log.debug("template warm-up {}: {}", template, e.getMessage());
+            }
+            parsed++;
+        }
+        log.info("template warm-up templates={}, elapsed={}ms", parsed, System.currentTimeMillis() - start);
+    }
+}
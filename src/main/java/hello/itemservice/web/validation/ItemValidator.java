@@ -2,7 +2,11 @@ package hello.itemservice.web.validation;
 
 
 import hello.itemservice.domain.item.Item;
+import hello.itemservice.web.validation.rule.ItemLimits;
+import hello.itemservice.web.validation.rule.ItemRuleEngine;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.Errors;
@@ -10,14 +14,57 @@ import org.springframework.validation.Validator;
 import org.springframework.validation.annotation.Validated;
 
 import java.lang.annotation.Annotation;
+import java.util.function.Supplier;
 
 /**
  * 스프링이 지원하는 Validator 인터페이스를 implements 한다..
+ *
+ * itemservice.validation.mode 로 검증 방식을 고를 수 있다.
+ * - FULL: 모든 규칙을 검사한다. (기본)
+ * - FAIL_FAST: 첫번째 에러가 나오면 멈춘다.
+ * - SHORT_CIRCUIT: 모든 필드를 검사하지만, 가격이나 수량이 이미 틀렸으면 totalPriceMin은 검사하지 않는다.
+ *
+ * 에러 내용이 필요 없고 통과 여부만 알면 되는 경우는 isValid()를 사용한다.
+ *
+ * 가격, 수량, 합계의 한계는 규칙 파일(ItemRuleEngine.getLimits())에서 읽는다. 규칙 파일을 다시 읽으면 다음 검증부터 새 한계를 쓴다.
+ * 규칙 엔진 없이 만들면(테스트, 벤치마크) 기본 규칙 파일과 같은 ItemLimits.DEFAULT를 쓴다.
  */
 @Slf4j
 @Component
 public class ItemValidator implements Validator {
 
+    public enum Mode {
+        FULL, FAIL_FAST, SHORT_CIRCUIT
+    }
+
+    private final Mode mode;
+    private final Supplier<ItemLimits> limits;
+
+    public ItemValidator() {
+        this(Mode.FULL);
+    }
+
+    public ItemValidator(Mode mode) {
+        this(mode, () -> ItemLimits.DEFAULT);
+    }
+
+    @Autowired
+    public ItemValidator(@Value("${itemservice.validation.mode:FULL}") Mode mode, ItemRuleEngine itemRuleEngine) {
+        this(mode, itemRuleEngine::getLimits);
+    }
+
+    private ItemValidator(Mode mode, Supplier<ItemLimits> limits) {
+        this.mode = mode;
+        this.limits = limits;
+    }
+
+    /**
+     * 지금 검사에 쓰는 한계. 여러 상품을 같은 한계로 검사할 때(isValidFields) 한번 꺼내서 넘긴다.
+     */
+    public ItemLimits getLimits() {
+        return limits.get();
+    }
+
     @Override
     public boolean supports(Class<?> clazz) {
         /**
@@ -43,24 +90,61 @@ public class ItemValidator implements Validator {
          * BindingResult를 errors로 바꾸기만 하면 된다.
          */
         Item item = (Item) target;
+        ItemLimits current = limits.get();
+        boolean failFast = mode == Mode.FAIL_FAST;
 
         if (!StringUtils.hasText(item.getItemName())) {
             errors.rejectValue("itemName", "required");
+            if (failFast) {
+                return;
+            }
         }
 
-        if (item.getPrice() == null || item.getPrice() < 1000 || item.getPrice() > 1000000) {
-            errors.rejectValue("price","range",new Object[]{1000,1000000},null);
-        }
-        if (item.getQuantity() == null || item.getQuantity() > 10000) {
-            errors.rejectValue("quantity","max",new Object[]{9999},null);
+        boolean priceValid = isValidPrice(item.getPrice(), current);
+        if (!priceValid) {
+            errors.rejectValue("price","range",new Object[]{current.getPriceMin(), current.getPriceMax()},null);
+            if (failFast) {
+                return;
+            }
         }
-        //특정 필드 예외가 아닌 전체 예외
-        if (item.getPrice() != null && item.getQuantity() != null) {
-            int resultPrice = item.getPrice() * item.getQuantity();
-            if (resultPrice < 10000) {
-                errors.reject("totalPriceMin",new Object[]{10000,resultPrice},null);
+        boolean quantityValid = isValidQuantity(item.getQuantity(), current);
+        if (!quantityValid) {
+            errors.rejectValue("quantity","max",new Object[]{current.getQuantityMax()},null);
+            if (failFast) {
+                return;
             }
         }
+        if (mode == Mode.SHORT_CIRCUIT && !(priceValid && quantityValid)) {
+            return;
+        }
+        //특정 필드 예외가 아닌 전체 예외
+        TotalPriceRule.validate(item.getPrice(), item.getQuantity(), current.getTotalPriceMin(), errors);
+
+    }
+
+    /**
+     * validate()에서 에러가 하나도 나오지 않는 경우에만 true. Errors도, 에러 객체도 만들지 않는다.
+     */
+    public boolean isValid(Item item) {
+        ItemLimits current = limits.get();
+        return isValidFields(item, current)
+                && TotalPriceRule.isValid(item.getPrice(), item.getQuantity(), current.getTotalPriceMin());
+    }
+
+    /**
+     * isValid()에서 totalPriceMin만 뺀 필드 검증. 여러 상품의 합계를 TotalPriceRule.validateAll()로 한 번에 검사할 때 사용한다.
+     */
+    public boolean isValidFields(Item item, ItemLimits limits) {
+        return StringUtils.hasText(item.getItemName())
+                && isValidPrice(item.getPrice(), limits)
+                && isValidQuantity(item.getQuantity(), limits);
+    }
+
+    private static boolean isValidPrice(Integer price, ItemLimits limits) {
+        return price != null && price >= limits.getPriceMin() && price <= limits.getPriceMax();
+    }
 
+    private static boolean isValidQuantity(Integer quantity, ItemLimits limits) {
+        return quantity != null && quantity <= limits.getQuantityMax();
     }
 }
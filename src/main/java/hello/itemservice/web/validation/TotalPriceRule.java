@@ -0,0 +1,58 @@
+package hello.itemservice.web.validation;
+
+import org.springframework.validation.Errors;
+
+/**
+ * 가격 * 수량의 합이 min 이상이어야 한다는 전체 에러(totalPriceMin) 규칙. 컨트롤러, 검증기가 모두 이 규칙을 사용한다.
+ * min은 코드에 두지 않고 규칙 파일의 값(ItemLimits.getTotalPriceMin())을 넘겨받는다.
+ *
+ * 가격(최대 1,000,000) * 수량(최대 9,999)은 int 범위를 넘는다. (약 100억)
+ * int로 곱하면 값이 넘쳐서 음수가 되고, 통과해야 할 상품이 totalPriceMin에 걸린다. 그래서 항상 long으로 곱한다.
+ *
+ * 상품 여러 개를 한 번에 검사할 때는 validateAll()에 가격, 수량을 열(column) 배열로 넘긴다.
+ * 분기 없는 단순 반복문이라 JIT가 풀어서(unroll) 배열을 메모리에서 읽는 속도로 검사한다.
+ */
+public final class TotalPriceRule {
+
+    public static final String CODE = "totalPriceMin";
+
+    private TotalPriceRule() {
+    }
+
+    public static long totalPrice(int price, int quantity) {
+        return (long) price * quantity;
+    }
+
+    public static boolean isValid(int price, int quantity, int min) {
+        return totalPrice(price, quantity) >= min;
+    }
+
+    /**
+     * 가격, 수량이 모두 있을 때만 검사한다. 통과하지 못하면 errors.reject("totalPriceMin", {min, 합계})를 하고 false를 돌려준다.
+     */
+    public static boolean validate(Integer price, Integer quantity, int min, Errors errors) {
+        if (price == null || quantity == null) {
+            return true;
+        }
+        long totalPrice = totalPrice(price, quantity);
+        if (totalPrice < min) {
+            errors.reject(CODE, new Object[]{min, totalPrice}, null);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 0 ~ size-1 행 중 valid[i]가 true이고 합계가 min보다 작은 행을 false로 바꾼다. 바꾼 행의 수를 돌려준다.
+     * valid가 false인 행(가격, 수량이 없는 행 포함)의 가격, 수량은 아무 값이어도 된다.
+     */
+    public static int validateAll(int[] prices, int[] quantities, boolean[] valid, int size, int min) {
+        int rejected = 0;
+        for (int i = 0; i < size; i++) {
+            boolean passed = (long) prices[i] * quantities[i] >= min;
+            rejected += valid[i] & !passed ? 1 : 0;
+            valid[i] &= passed;
+        }
+        return rejected;
+    }
+}
@@ -1,19 +1,70 @@
 package hello.itemservice.web.validation;
 
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.SaveCheck;
+import hello.itemservice.web.validation.bulk.BulkValidationReport;
+import hello.itemservice.web.validation.bulk.BulkValidationService;
+import hello.itemservice.web.validation.bulk.ItemBulkImporter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.web.validation.errors.CompactErrors;
 import hello.itemservice.web.validation.form.ItemSaveForm;
+import hello.itemservice.web.validation.idempotency.IdempotencyCache;
+import hello.itemservice.web.validation.rule.ItemRuleEngine;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
 @RestController
 @RequestMapping("/validation/api/items")
+@RequiredArgsConstructor
 public class ValidationItemApiController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private final ItemRuleEngine itemRuleEngine;
+    private final ItemBulkImporter itemBulkImporter;
+    private final BulkValidationService bulkValidationService;
+    private final ItemRepository itemRepository;
+    private final IdempotencyCache idempotencyCache;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @RequestBody에 붙은 @Validated도 WebDataBinder의 검증기를 사용하기 때문에
+     * 여기서 규칙 엔진(ItemRuleEngine)으로 바꿔주면 규칙 파일로 검증하고, 요청마다 Hibernate Validator를 거치지 않는다.
+     * 가격 * 수량 합계(totalPriceMin)도 규칙 파일에 있어서 따로 검사하지 않는다.
+     *
+     * Idempotency-Key 헤더로 이미 처리가 끝난 요청이 다시 오면 검증하지 않는다. (저장된 결과를 그대로 돌려준다)
+     * 멱등 키는 요청 URI별로 따로 기억한다.
+     */
+    @InitBinder
+    public void init(WebDataBinder dataBinder, HttpServletRequest request,
+                     @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyCache.getIfCompleted(request.getRequestURI(), idempotencyKey) != null) {
+            dataBinder.setValidator(null);
+            return;
+        }
+        dataBinder.setValidator(itemRuleEngine);
+    }
+
     /**
      * json으로 값이 컨트롤러로 오기 떄문에, ItemSaveForm에다가 @RequestBody를 붙여줬다.
      *
@@ -27,9 +78,13 @@ public class ValidationItemApiController {
      *
      */
     @PostMapping("/add")
-    public Object addItem(@RequestBody @Validated ItemSaveForm form, BindingResult bindingResult){
+    public Object addItem(@RequestBody @Validated(SaveCheck.class) ItemSaveForm form, BindingResult bindingResult, HttpServletRequest request,
+                          @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey){
         log.info("API 컨트롤러 호출");
+        return idempotencyCache.execute(request.getRequestURI(), idempotencyKey, () -> addItemResult(form, bindingResult));
+    }
 
+    private Object addItemResult(ItemSaveForm form, BindingResult bindingResult) {
         if(bindingResult.hasErrors()){
             log.info("검증 오류 발생 error={}",bindingResult);
             /**
@@ -44,4 +99,94 @@ public class ValidationItemApiController {
         log.info("성공 로직 실행");
         return form;
     }
+
+    /**
+     * 검증한 뒤 저장하고, 저장된 상품을 돌려준다.
+     * itemservice.persistence.enabled=true 이면 로그가 디스크에 기록될 때까지 톰캣 쓰레드가 기다린다.
+     *
+     * 같은 Idempotency-Key로 다시 오면 저장하지 않고 처음 응답(성공이든 검증 실패든)을 그대로 돌려준다.
+     */
+    @PostMapping("/save")
+    public ResponseEntity<Object> saveItem(@RequestBody @Validated(SaveCheck.class) ItemSaveForm form, BindingResult bindingResult,
+                                           HttpServletRequest request,
+                                           @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return idempotencyCache.execute(request.getRequestURI(), idempotencyKey, () -> {
+            if (bindingResult.hasErrors()) {
+                return ResponseEntity.badRequest().body(bindingResult.getAllErrors());
+            }
+            return ResponseEntity.ok(itemRepository.save(toItem(form)));
+        });
+    }
+
+    /**
+     * saveItem과 같은 흐름을 비동기 요청(Servlet async)으로 처리한다.
+     *
+     * 검증은 요청 쓰레드에서 바로 하고, 저장은 로그에 append만 한 뒤 CompletableFuture를 돌려준다.
+     * 그러면 톰캣 쓰레드는 바로 풀로 돌아가고, 로그가 디스크에 기록되면(group commit)
+     * 그때 응답이 나간다. 기록을 기다리는 요청 수가 톰캣 쓰레드 수(server.tomcat.threads.max)에 묶이지 않는다.
+     */
+    @PostMapping("/save/async")
+    public CompletableFuture<ResponseEntity<Object>> saveItemAsync(@RequestBody @Validated(SaveCheck.class) ItemSaveForm form, BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(bindingResult.getAllErrors()));
+        }
+        return itemRepository.saveAsync(toItem(form)).thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * addItem과 같은 검증을 하지만, 검증 실패 시 BindingResult 대신 CompactErrors에 에러를 담고
+     * {"errors":[{"field":"price","code":"Range","args":[...]}]} 형태의 최소한의 JSON만 응답한다.
+     *
+     * @Validated를 붙이지 않고 직접 검증기를 호출하기 때문에 BeanPropertyBindingResult가 만들어지지 않는다.
+     * CompactErrors는 쓰레드마다 재사용하므로 응답을 다 쓴 후에 반드시 release 해준다.
+     */
+    @PostMapping("/add/compact")
+    public ItemSaveForm addItemCompact(@RequestBody ItemSaveForm form, HttpServletResponse response) throws IOException {
+        CompactErrors errors = CompactErrors.acquire("itemSaveForm", form);
+        try {
+            itemRuleEngine.validate(form, errors, SaveCheck.class);
+
+            if (errors.hasErrors()) {
+                log.info("검증 오류 발생 errorCount={}", errors.getErrorCount());
+                response.setStatus(HttpStatus.BAD_REQUEST.value());
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+                errors.writeJson(generator);
+                return null;
+            }
+        } finally {
+            errors.release();
+        }
+
+        log.info("성공 로직 실행");
+        return form;
+    }
+
+    /**
+     * 상품 여러개를 한번에 등록한다.
+     * JSON 배열([{...},{...}]) 또는 NDJSON(한 줄에 상품 하나)을 받는다.
+     *
+     * @RequestBody로 받으면 요청 전체를 List로 만들어야 하기 때문에,
+     * 요청/응답 스트림을 직접 받아서 한 건씩 읽고 검증 결과도 바로바로 응답에 써준다.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public void addItems(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+
+        ItemBulkImporter.Result result = itemBulkImporter.importItems(request.getInputStream(), response.getOutputStream());
+        log.info("bulk 등록 saved={}, failed={}", result.getSaved(), result.getFailed());
+    }
+
+    /**
+     * 검증 규칙이 바뀌었을 때 저장된 상품 전체를 다시 검증해서 결과를 돌려준다.
+     */
+    @PostMapping("/revalidate")
+    public BulkValidationReport revalidate() {
+        return bulkValidationService.validateAll();
+    }
+
+    private static Item toItem(ItemSaveForm form) {
+        return new Item(form.getItemName(), form.getPrice(), form.getQuantity());
+    }
 }
@@ -1,7 +1,10 @@
 package hello.itemservice.web.validation;
 
 import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
 import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemSort;
+import hello.itemservice.domain.item.writebehind.ItemWriteBehind;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
@@ -11,7 +14,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Controller
@@ -21,17 +23,29 @@ import java.util.Map;
 public class ValidationItemControllerV1 {
 
     private final ItemRepository itemRepository;
-
+    /**
+     * 상품 조회, 수정은 ItemWriteBehind를 거친다. write-behind가 켜져 있을 때 V4의 대기 중인 수정과 같은 락에서 순서가 정해지고,
+     * 방금 수정한 값이 상세 화면에 바로 보인다. (꺼져 있으면 ItemRepository를 바로 호출한다)
+     */
+    private final ItemWriteBehind itemWriteBehind;
+
+    /**
+     * 전체 상품을 복사하지 않고, 커서(이전 페이지의 마지막 상품) 다음부터 한 페이지만 읽어온다.
+     */
     @GetMapping
-    public String items(Model model) {
-        List<Item> items = itemRepository.findAll();
-        model.addAttribute("items", items);
+    public String items(@RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "20") int size,
+                        @RequestParam(defaultValue = "ID") ItemSort sort,
+                        Model model) {
+        ItemPage page = itemRepository.findPage(sort, cursor, Math.max(1, Math.min(size, 100)));
+        model.addAttribute("items", page.getItems());
+        model.addAttribute("page", page);
         return "validation/v1/items";
     }
 
     @GetMapping("/{itemId}")
     public String item(@PathVariable long itemId, Model model) {
-        Item item = itemRepository.findById(itemId);
+        Item item = itemWriteBehind.findById(itemId);
         model.addAttribute("item", item);
         return "validation/v1/item";
     }
@@ -61,7 +75,7 @@ public class ValidationItemControllerV1 {
 
         // 특정 필드가 아닌 복합 룰 검증
         if (item.getPrice() != null && item.getQuantity() != null){
-            int resultPrice = item.getPrice() * item.getQuantity();
+            long resultPrice = TotalPriceRule.totalPrice(item.getPrice(), item.getQuantity());
             if (resultPrice < 10000){
                 errors.put("globalError","가격*수량의 합은 10,000원 이상이야 합니다. 현재 값 = " + resultPrice);
             }
@@ -84,14 +98,14 @@ public class ValidationItemControllerV1 {
 
     @GetMapping("/{itemId}/edit")
     public String editForm(@PathVariable Long itemId, Model model) {
-        Item item = itemRepository.findById(itemId);
+        Item item = itemWriteBehind.findById(itemId);
         model.addAttribute("item", item);
         return "validation/v1/editForm";
     }
 
     @PostMapping("/{itemId}/edit")
     public String edit(@PathVariable Long itemId, @ModelAttribute Item item) {
-        itemRepository.update(itemId, item);
+        itemWriteBehind.update(itemId, item);
         return "redirect:/validation/v1/items/{itemId}";
     }
 
@@ -1,7 +1,11 @@
 package hello.itemservice.web.validation;
 
 import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
 import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemSort;
+import hello.itemservice.domain.item.writebehind.ItemWriteBehind;
+import hello.itemservice.web.validation.metrics.ValidationMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
@@ -16,7 +20,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Controller
@@ -26,6 +29,12 @@ import java.util.Map;
 public class ValidationItemControllerV2 {
     private final ItemValidator itemValidator;
     private final ItemRepository itemRepository;
+    /**
+     * 상품 조회, 수정은 ItemWriteBehind를 거친다. write-behind가 켜져 있을 때 V4의 대기 중인 수정과 같은 락에서 순서가 정해지고,
+     * 방금 수정한 값이 상세 화면에 바로 보인다. (꺼져 있으면 ItemRepository를 바로 호출한다)
+     */
+    private final ItemWriteBehind itemWriteBehind;
+    private final ValidationMetrics validationMetrics;
 
     /**
      * 해당 컨트롤러안에잇는 메서드가 각각 호출될 때 마다 WebDataBinder가 작동해서,
@@ -34,22 +43,31 @@ public class ValidationItemControllerV2 {
      * 마치 테스트코드의 @BeforeEach같이 작동하는거다.
      *
      * 얘는 컨트롤러에서만 작동한다.
+     *
+     * ItemValidator의 검증 시간은 ValidationMetrics에 기록한다.
      */
     @InitBinder
     public void init(WebDataBinder dataBinder){
-        dataBinder.addValidators(itemValidator);
+        dataBinder.addValidators(validationMetrics.instrument("ItemValidator", itemValidator));
     }
 
+    /**
+     * 전체 상품을 복사하지 않고, 커서(이전 페이지의 마지막 상품) 다음부터 한 페이지만 읽어온다.
+     */
     @GetMapping
-    public String items(Model model) {
-        List<Item> items = itemRepository.findAll();
-        model.addAttribute("items", items);
+    public String items(@RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "20") int size,
+                        @RequestParam(defaultValue = "ID") ItemSort sort,
+                        Model model) {
+        ItemPage page = itemRepository.findPage(sort, cursor, Math.max(1, Math.min(size, 100)));
+        model.addAttribute("items", page.getItems());
+        model.addAttribute("page", page);
         return "validation/v2/items";
     }
 
     @GetMapping("/{itemId}")
     public String item(@PathVariable long itemId, Model model) {
-        Item item = itemRepository.findById(itemId);
+        Item item = itemWriteBehind.findById(itemId);
         model.addAttribute("item", item);
         return "validation/v2/item";
     }
@@ -96,7 +114,7 @@ public class ValidationItemControllerV2 {
 
         // 특정 필드가 아닌 복합적인 룰 검증
         if (item.getPrice() != null && item.getQuantity() != null){
-            int resultPrice = item.getPrice() * item.getQuantity();
+            long resultPrice = TotalPriceRule.totalPrice(item.getPrice(), item.getQuantity());
             if (resultPrice < 10000){
 //                errors.put("globalError","가격*수량의 합은 10,000원 이상이야 합니다. 현재 값 = " + resultPrice);
                 /**
@@ -142,7 +160,7 @@ public class ValidationItemControllerV2 {
         }
 
         if (item.getPrice() != null && item.getQuantity() != null){
-            int resultPrice = item.getPrice() * item.getQuantity();
+            long resultPrice = TotalPriceRule.totalPrice(item.getPrice(), item.getQuantity());
             if (resultPrice < 10000){
                 bindingResult.addError(new ObjectError("item",null,null,"가격*수량의 합은 10,000원 이상이야 합니다. 현재 값 = " + resultPrice));
             }
@@ -186,7 +204,7 @@ public class ValidationItemControllerV2 {
         }
         //특정 필드 예외가 아닌 전체 예외
         if (item.getPrice() != null && item.getQuantity() != null) {
-            int resultPrice = item.getPrice() * item.getQuantity();
+            long resultPrice = TotalPriceRule.totalPrice(item.getPrice(), item.getQuantity());
             if (resultPrice < 10000) {
                 /**
                  * 필드에러가 아닌 global error도 똑같이 처리해주면 된다.
@@ -246,7 +264,7 @@ public class ValidationItemControllerV2 {
         }
         //특정 필드 예외가 아닌 전체 예외
         if (item.getPrice() != null && item.getQuantity() != null) {
-            int resultPrice = item.getPrice() * item.getQuantity();
+            long resultPrice = TotalPriceRule.totalPrice(item.getPrice(), item.getQuantity());
             if (resultPrice < 10000) {
                 /**
                  * global에러는 그냥 reject를 사용한다.
@@ -294,6 +312,7 @@ public class ValidationItemControllerV2 {
          *
          * 자동으로 WebDataBinder가 실행하면서 검증 결과를 BindingResult에 넣어놓는다.
          */
+        validationMetrics.recordErrors("v2.addItem", bindingResult);
         if (bindingResult.hasErrors()) {
             log.info("errors={}", bindingResult);
             return "validation/v2/addForm";
@@ -308,14 +327,14 @@ public class ValidationItemControllerV2 {
 
     @GetMapping("/{itemId}/edit")
     public String editForm(@PathVariable Long itemId, Model model) {
-        Item item = itemRepository.findById(itemId);
+        Item item = itemWriteBehind.findById(itemId);
         model.addAttribute("item", item);
         return "validation/v2/editForm";
     }
 
     @PostMapping("/{itemId}/edit")
     public String edit(@PathVariable Long itemId, @ModelAttribute Item item) {
-        itemRepository.update(itemId, item);
+        itemWriteBehind.update(itemId, item);
         return "redirect:/validation/v2/items/{itemId}";
     }
 
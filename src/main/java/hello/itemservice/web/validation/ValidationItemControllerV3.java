@@ -1,19 +1,24 @@
 package hello.itemservice.web.validation;
 
 import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
 import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemSort;
+import hello.itemservice.domain.item.writebehind.ItemWriteBehind;
 import hello.itemservice.domain.item.SaveCheck;
 import hello.itemservice.domain.item.UpdateCheck;
+import hello.itemservice.web.validation.metrics.ValidationMetrics;
+import hello.itemservice.web.validation.rule.ItemRuleEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
 
 @Controller
 @RequestMapping("/validation/v3//items")
@@ -22,17 +27,41 @@ import java.util.List;
 public class ValidationItemControllerV3 {
     private final ItemValidator itemValidator;
     private final ItemRepository itemRepository;
+    /**
+     * 상품 조회, 수정은 ItemWriteBehind를 거친다. write-behind가 켜져 있을 때 V4의 대기 중인 수정과 같은 락에서 순서가 정해지고,
+     * 방금 수정한 값이 상세 화면에 바로 보인다. (꺼져 있으면 ItemRepository를 바로 호출한다)
+     */
+    private final ItemWriteBehind itemWriteBehind;
+    private final ValidationMetrics validationMetrics;
+    private final ItemRuleEngine itemRuleEngine;
+
+    /**
+     * 애노테이션 대신 규칙 파일(validation/item-rules.json)로 검증한다.
+     * @Validated(SaveCheck.class)처럼 넘긴 그룹은 규칙 파일의 groups와 비교하고,
+     * 가격 * 수량 검증(totalPriceMin)도 규칙 파일에 있어서 컨트롤러에서 따로 하지 않는다.
+     */
+    @InitBinder
+    public void init(WebDataBinder dataBinder) {
+        dataBinder.setValidator(validationMetrics.instrument("ItemRuleEngine", itemRuleEngine));
+    }
 
+    /**
+     * 전체 상품을 복사하지 않고, 커서(이전 페이지의 마지막 상품) 다음부터 한 페이지만 읽어온다.
+     */
     @GetMapping
-    public String items(Model model) {
-        List<Item> items = itemRepository.findAll();
-        model.addAttribute("items", items);
+    public String items(@RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "20") int size,
+                        @RequestParam(defaultValue = "ID") ItemSort sort,
+                        Model model) {
+        ItemPage page = itemRepository.findPage(sort, cursor, Math.max(1, Math.min(size, 100)));
+        model.addAttribute("items", page.getItems());
+        model.addAttribute("page", page);
         return "validation/v3//items";
     }
 
     @GetMapping("/{itemId}")
     public String item(@PathVariable long itemId, Model model) {
-        Item item = itemRepository.findById(itemId);
+        Item item = itemWriteBehind.findById(itemId);
         model.addAttribute("item", item);
         return "validation/v3//item";
     }
@@ -47,13 +76,7 @@ public class ValidationItemControllerV3 {
     public String addItem(@Validated @ModelAttribute Item item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
 
         //특정 필드 예외가 아닌 전체 예외
-        if (item.getPrice() != null && item.getQuantity() != null) {
-            int resultPrice = item.getPrice() * item.getQuantity();
-            if (resultPrice < 10000) {
-                bindingResult.reject("totalPriceMin", new Object[]{10000,
-                        resultPrice}, null);
-            }
-        }
+        TotalPriceRule.validate(item.getPrice(), item.getQuantity(), itemRuleEngine.getLimits().getTotalPriceMin(), bindingResult);
 
         if (bindingResult.hasErrors()) {
             log.info("errors={}", bindingResult);
@@ -78,14 +101,7 @@ public class ValidationItemControllerV3 {
     @PostMapping("/add")
     public String addItem2(@Validated(SaveCheck.class) @ModelAttribute Item item, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
 
-        //특정 필드 예외가 아닌 전체 예외
-        if (item.getPrice() != null && item.getQuantity() != null) {
-            int resultPrice = item.getPrice() * item.getQuantity();
-            if (resultPrice < 10000) {
-                bindingResult.reject("totalPriceMin", new Object[]{10000,
-                        resultPrice}, null);
-            }
-        }
+        validationMetrics.recordErrors("v3.addItem", bindingResult);
 
         if (bindingResult.hasErrors()) {
             log.info("errors={}", bindingResult);
@@ -102,7 +118,7 @@ public class ValidationItemControllerV3 {
 
     @GetMapping("/{itemId}/edit")
     public String editForm(@PathVariable Long itemId, Model model) {
-        Item item = itemRepository.findById(itemId);
+        Item item = itemWriteBehind.findById(itemId);
         model.addAttribute("item", item);
         return "validation/v3/editForm";
     }
@@ -111,20 +127,14 @@ public class ValidationItemControllerV3 {
     public String edit(@PathVariable Long itemId, @Validated @ModelAttribute Item item, BindingResult bindingResult) {
 
         //특정 필드 예외가 아닌 전체 예외
-        if (item.getPrice() != null && item.getQuantity() != null) {
-            int resultPrice = item.getPrice() * item.getQuantity();
-            if (resultPrice < 10000) {
-                bindingResult.reject("totalPriceMin", new Object[]{10000,
-                        resultPrice}, null);
-            }
-        }
+        TotalPriceRule.validate(item.getPrice(), item.getQuantity(), itemRuleEngine.getLimits().getTotalPriceMin(), bindingResult);
 
         if(bindingResult.hasErrors()){
             log.info("errors={}",bindingResult);
             return "validation/v3/editForm";
         }
 
-        itemRepository.update(itemId, item);
+        itemWriteBehind.update(itemId, item);
         return "redirect:/validation/v3/items/{itemId}";
     }
 
@@ -135,21 +145,14 @@ public class ValidationItemControllerV3 {
     @PostMapping("/{itemId}/edit")
     public String editV2(@PathVariable Long itemId, @Validated(UpdateCheck.class) @ModelAttribute Item item, BindingResult bindingResult) {
 
-        //특정 필드 예외가 아닌 전체 예외
-        if (item.getPrice() != null && item.getQuantity() != null) {
-            int resultPrice = item.getPrice() * item.getQuantity();
-            if (resultPrice < 10000) {
-                bindingResult.reject("totalPriceMin", new Object[]{10000,
-                        resultPrice}, null);
-            }
-        }
+        validationMetrics.recordErrors("v3.edit", bindingResult);
 
         if(bindingResult.hasErrors()){
             log.info("errors={}",bindingResult);
             return "validation/v3/editForm";
         }
 
-        itemRepository.update(itemId, item);
+        itemWriteBehind.update(itemId, item);
         return "redirect:/validation/v3/items/{itemId}";
     }
 }
@@ -1,64 +1,115 @@
 package hello.itemservice.web.validation;
 
 import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemPage;
 import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemSort;
+import hello.itemservice.domain.item.ItemVersionConflictException;
 import hello.itemservice.domain.item.SaveCheck;
 import hello.itemservice.domain.item.UpdateCheck;
+import hello.itemservice.domain.item.writebehind.ItemWriteBehind;
 import hello.itemservice.web.validation.form.ItemSaveForm;
 import hello.itemservice.web.validation.form.ItemUpdateForm;
+import hello.itemservice.web.validation.idempotency.IdempotencyCache;
+import hello.itemservice.web.validation.metrics.ValidationMetrics;
+import hello.itemservice.web.validation.rule.ItemRuleEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
+import java.util.UUID;
 
 @Controller
 @RequestMapping("/validation/v4/items")
 @RequiredArgsConstructor
 @Slf4j
 public class ValidationItemControllerV4 {
+    private static final String ADD_ITEM = "v4.addItem";
+
     private final ItemValidator itemValidator;
     private final ItemRepository itemRepository;
+    private final ItemRuleEngine itemRuleEngine;
+    private final ValidationMetrics validationMetrics;
+    private final IdempotencyCache idempotencyCache;
+    private final ItemWriteBehind itemWriteBehind;
+
+    /**
+     * V3와 같이 규칙 파일(validation/item-rules.json)로 검증한다. 가격 * 수량 검증(totalPriceMin)도 규칙 파일에 있다.
+     * 검증 시간은 ValidationMetrics에 기록한다.
+     *
+     * 이미 등록이 끝난 멱등 키로 다시 온 요청은 검증하지 않는다.
+     */
+    @InitBinder
+    public void init(WebDataBinder dataBinder, @RequestParam(required = false) String idempotencyKey) {
+        if (idempotencyCache.getIfCompleted(ADD_ITEM, idempotencyKey) != null) {
+            dataBinder.setValidator(null);
+            return;
+        }
+        dataBinder.setValidator(validationMetrics.instrument("ItemRuleEngine", itemRuleEngine));
+    }
 
+    /**
+     * 전체 상품을 복사하지 않고, 커서(이전 페이지의 마지막 상품) 다음부터 한 페이지만 읽어온다.
+     */
     @GetMapping
-    public String items(Model model) {
-        List<Item> items = itemRepository.findAll();
-        model.addAttribute("items", items);
+    public String items(@RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "20") int size,
+                        @RequestParam(defaultValue = "ID") ItemSort sort,
+                        Model model) {
+        ItemPage page = itemRepository.findPage(sort, cursor, Math.max(1, Math.min(size, 100)));
+        model.addAttribute("items", page.getItems());
+        model.addAttribute("page", page);
         return "validation/v4/items";
     }
 
+    /**
+     * 저장/수정은 ItemWriteBehind를 거치기 때문에 조회도 ItemWriteBehind로 해야 방금 저장한 상품이 보인다.
+     */
     @GetMapping("/{itemId}")
     public String item(@PathVariable long itemId, Model model) {
-        Item item = itemRepository.findById(itemId);
+        Item item = itemWriteBehind.findById(itemId);
         model.addAttribute("item", item);
         return "validation/v4/item";
     }
 
+    /**
+     * 폼을 열 때마다 멱등 키를 새로 만들어 hidden 필드로 넣어준다.
+     * 응답이 늦어서 다시 제출하거나 새로고침해도 같은 키가 오기 때문에 상품이 한 번만 등록된다.
+     */
     @GetMapping("/add")
     public String addForm(Model model) {
         model.addAttribute("item", new Item());
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
         return "validation/v4/addForm";
     }
 
+    /**
+     * 멱등 키로 이미 등록된 상품이 있으면 검증, 저장 없이 그 상품으로 보낸다.
+     * 검증에 실패했을 때는 결과를 기억하지 않는다. (폼을 고쳐서 같은 키로 다시 제출한다)
+     */
     @PostMapping("/add")
-    public String addItem(@Validated @ModelAttribute("item") ItemSaveForm form, BindingResult bindingResult, RedirectAttributes redirectAttributes) {
-
-        //특정 필드 예외가 아닌 전체 예외
-        if (form.getPrice() != null && form.getQuantity() != null) {
-            int resultPrice = form.getPrice() * form.getQuantity();
-            if (resultPrice < 10000) {
-                bindingResult.reject("totalPriceMin", new Object[]{10000,
-                        resultPrice}, null);
-            }
+    public String addItem(@Validated(SaveCheck.class) @ModelAttribute("item") ItemSaveForm form, BindingResult bindingResult,
+                          @RequestParam(required = false) String idempotencyKey,
+                          Model model, RedirectAttributes redirectAttributes) {
+
+        Long savedItemId = idempotencyCache.getIfCompleted(ADD_ITEM, idempotencyKey);
+        if (savedItemId != null) {
+            redirectAttributes.addAttribute("itemId", savedItemId);
+            redirectAttributes.addAttribute("status", true);
+            return "redirect:/validation/v4/items/{itemId}";
         }
 
+        validationMetrics.recordErrors("v4.addItem", bindingResult);
+
         if (bindingResult.hasErrors()) {
             log.info("errors={}", bindingResult);
+            model.addAttribute("idempotencyKey", idempotencyKey);
             return "validation/v4/addForm";
         }
 
@@ -69,8 +120,8 @@ public class ValidationItemControllerV4 {
         item.setPrice(form.getPrice());
         item.setQuantity(form.getQuantity());
 
-        Item savedItem = itemRepository.save(item);
-        redirectAttributes.addAttribute("itemId", savedItem.getId());
+        Long itemId = idempotencyCache.execute(ADD_ITEM, idempotencyKey, () -> itemWriteBehind.save(item).getId());
+        redirectAttributes.addAttribute("itemId", itemId);
         redirectAttributes.addAttribute("status", true);
         return "redirect:/validation/v4/items/{itemId}";
     }
@@ -78,23 +129,16 @@ public class ValidationItemControllerV4 {
 
     @GetMapping("/{itemId}/edit")
     public String editForm(@PathVariable Long itemId, Model model) {
-        Item item = itemRepository.findById(itemId);
+        Item item = itemWriteBehind.findById(itemId);
         model.addAttribute("item", item);
         return "validation/v4/editForm";
     }
 
 
     @PostMapping("/{itemId}/edit")
-    public String edit(@PathVariable Long itemId, @Validated @ModelAttribute("item") ItemUpdateForm form, BindingResult bindingResult) {
-
-        //특정 필드 예외가 아닌 전체 예외
-        if (form.getPrice() != null && form.getQuantity() != null) {
-            int resultPrice = form.getPrice() * form.getQuantity();
-            if (resultPrice < 10000) {
-                bindingResult.reject("totalPriceMin", new Object[]{10000,
-                        resultPrice}, null);
-            }
-        }
+    public String edit(@PathVariable Long itemId, @Validated(UpdateCheck.class) @ModelAttribute("item") ItemUpdateForm form, BindingResult bindingResult) {
+
+        validationMetrics.recordErrors("v4.edit", bindingResult);
 
         if(bindingResult.hasErrors()){
             log.info("errors={}",bindingResult);
@@ -106,8 +150,24 @@ public class ValidationItemControllerV4 {
         itemParam.setQuantity(form.getQuantity());
         itemParam.setPrice(form.getPrice());
 
-
-        itemRepository.update(itemId, itemParam);
+        //폼을 연 뒤에 다른 사용자가 먼저 수정했으면 덮어쓰지 않는다.
+        //폼에는 지금 저장된 값과 버전을 다시 채워서, 현재 값을 보고 다시 저장하게 한다.
+        try {
+            itemWriteBehind.update(itemId, itemParam, form.getVersion());
+        } catch (ItemVersionConflictException e) {
+            log.info("version conflict itemId={}, expected={}, current={}",
+                    itemId, e.getExpectedVersion(), e.getCurrentVersion());
+            Item current = itemWriteBehind.findById(itemId);
+            if (current == null) {
+                return "redirect:/validation/v4/items";
+            }
+            form.setItemName(current.getItemName());
+            form.setPrice(current.getPrice());
+            form.setQuantity(current.getQuantity());
+            form.setVersion(current.getVersion());
+            bindingResult.reject("versionConflict", new Object[]{current.getVersion()}, null);
+            return "validation/v4/editForm";
+        }
         return "redirect:/validation/v4/items/{itemId}";
     }
 }
@@ -0,0 +1,45 @@
+package hello.itemservice.web.validation.bulk;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 전체 상품 재검증 결과.
+ *
+ * errorCounts는 "필드.코드"(전체 에러는 "코드")별 횟수이고,
+ * violations는 통과하지 못한 상품들을 id 순으로 담는다.
+ */
+@Getter
+public class BulkValidationReport {
+
+    private final long total;
+    private final long valid;
+    private final long invalid;
+    private final long elapsedMillis;
+    private final Map<String, Long> errorCounts;
+    private final List<ItemViolation> violations;
+
+    BulkValidationReport(long valid, long invalid, long elapsedMillis,
+                         Map<String, Long> errorCounts, List<ItemViolation> violations) {
+        this.total = valid + invalid;
+        this.valid = valid;
+        this.invalid = invalid;
+        this.elapsedMillis = elapsedMillis;
+        this.errorCounts = errorCounts;
+        this.violations = violations;
+    }
+
+    @Getter
+    public static class ItemViolation {
+
+        private final long itemId;
+        private final List<String> errors;
+
+        ItemViolation(long itemId, List<String> errors) {
+            this.itemId = itemId;
+            this.errors = errors;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package hello.itemservice.web.validation.bulk;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.web.validation.ItemValidator;
+import hello.itemservice.web.validation.TotalPriceRule;
+import hello.itemservice.web.validation.errors.CompactErrors;
+import hello.itemservice.web.validation.rule.ItemLimits;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 검증 규칙이 바뀌었을 때 저장된 상품 전체를 다시 검증한다.
+ *
+ * findAll()로 받은 목록을 ForkJoinPool에서 반씩 나누어 THRESHOLD 개 이하가 되면 한 쓰레드가 검증한다.
+ * - 대부분의 상품은 통과하므로 먼저 Errors를 만들지 않고 통과 여부만 본다.
+ *   필드 검증(ItemValidator.isValidFields)을 하면서 가격, 수량을 배열에 옮겨두고,
+ *   totalPriceMin은 TotalPriceRule.validateAll()로 배열 전체를 한 번에 검사한다.
+ *   한계(ItemLimits)는 시작할 때 한 번 꺼내서 모든 작업이 같은 값으로 검사한다.
+ * - 통과하지 못한 상품만 쓰레드마다 재사용되는 CompactErrors로 다시 검증해서 에러 코드를 모은다.
+ * - 각 작업은 자기 결과(Partial)만 고치고, 합칠 때(join) 왼쪽 결과에 오른쪽 결과를 더한다.
+ *   쓰레드끼리 공유하는 값이 없으므로 코어 수만큼 거의 그대로 빨라진다.
+ */
+@Slf4j
+@Component
+public class BulkValidationService {
+
+    static final int THRESHOLD = 2048;
+
+    private final ItemRepository itemRepository;
+    private final ItemValidator itemValidator;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism 0 이하면 CPU 수만큼 쓰레드를 사용한다.
+     */
+    @Autowired
+    public BulkValidationService(ItemRepository itemRepository, ItemValidator itemValidator,
+                                 @Value("${itemservice.bulk-validation.parallelism:0}") int parallelism) {
+        this.itemRepository = itemRepository;
+        this.itemValidator = itemValidator;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public BulkValidationReport validateAll() {
+        long start = System.currentTimeMillis();
+        List<Item> items = itemRepository.findAll();
+        Partial result = pool.invoke(new ValidateTask(items, itemValidator.getLimits(), 0, items.size()));
+        result.violations.sort(Comparator.comparingLong(BulkValidationReport.ItemViolation::getItemId));
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("bulk validation total={}, invalid={}, elapsed={}ms", items.size(), result.invalid, elapsed);
+        return new BulkValidationReport(result.valid, result.invalid, elapsed,
+                new TreeMap<>(result.errorCounts), result.violations);
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdown();
+    }
+
+    private final class ValidateTask extends RecursiveTask<Partial> {
+
+        private final List<Item> items;
+        private final ItemLimits limits;
+        private final int from;
+        private final int to;
+
+        ValidateTask(List<Item> items, ItemLimits limits, int from, int to) {
+            this.items = items;
+            this.limits = limits;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= THRESHOLD) {
+                return validateBatch();
+            }
+            int middle = (from + to) >>> 1;
+            ValidateTask right = new ValidateTask(items, limits, middle, to);
+            right.fork();
+            Partial left = new ValidateTask(items, limits, from, middle).compute();
+            return left.merge(right.join());
+        }
+
+        private Partial validateBatch() {
+            // get(i)를 하나씩 부르지 않고 한 번에 꺼낸다. (ItemSnapshot은 잎 노드를 따라 읽는다)
+            Item[] batch = items.subList(from, to).toArray(new Item[0]);
+            int size = batch.length;
+            int[] prices = new int[size];
+            int[] quantities = new int[size];
+            boolean[] valid = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                Item item = batch[i];
+                valid[i] = itemValidator.isValidFields(item, limits);
+                if (valid[i]) {
+                    prices[i] = item.getPrice();
+                    quantities[i] = item.getQuantity();
+                }
+            }
+            TotalPriceRule.validateAll(prices, quantities, valid, size, limits.getTotalPriceMin());
+
+            Partial partial = new Partial();
+            for (int i = 0; i < size; i++) {
+                if (valid[i]) {
+                    partial.valid++;
+                } else {
+                    validate(batch[i], partial);
+                }
+            }
+            return partial;
+        }
+
+        /**
+         * 통과하지 못한 상품만 에러 코드를 모은다.
+         */
+        private void validate(Item item, Partial partial) {
+            CompactErrors errors = CompactErrors.acquire("item", item);
+            try {
+                itemValidator.validate(item, errors);
+                List<String> codes = new ArrayList<>(errors.getErrorCount());
+                for (ObjectError error : errors.getAllErrors()) {
+                    String code = error instanceof FieldError
+                            ? ((FieldError) error).getField() + "." + error.getCode()
+                            : error.getCode();
+                    codes.add(code);
+                    partial.errorCounts.merge(code, 1L, Long::sum);
+                }
+                partial.invalid++;
+                partial.violations.add(new BulkValidationReport.ItemViolation(item.getId(), codes));
+            } finally {
+                errors.release();
+            }
+        }
+    }
+
+    /**
+     * 한 작업의 결과. 작업을 실행한 쓰레드만 고친다.
+     */
+    private static final class Partial {
+
+        private long valid;
+        private long invalid;
+        private final Map<String, Long> errorCounts = new HashMap<>();
+        private final List<BulkValidationReport.ItemViolation> violations = new ArrayList<>();
+
+        Partial merge(Partial other) {
+            valid += other.valid;
+            invalid += other.invalid;
+            other.errorCounts.forEach((code, count) -> errorCounts.merge(code, count, Long::sum));
+            violations.addAll(other.violations);
+            return this;
+        }
+    }
+}
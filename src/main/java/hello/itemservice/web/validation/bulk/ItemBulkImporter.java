@@ -0,0 +1,200 @@
+package hello.itemservice.web.validation.bulk;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.SaveCheck;
+import hello.itemservice.web.validation.form.ItemSaveForm;
+import hello.itemservice.web.validation.rule.ItemRuleEngine;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON 배열 또는 NDJSON(한 줄에 JSON 하나)으로 들어오는 상품들을 한 건씩 읽어서
+ * 검증 -> 배치 저장 -> 결과 응답까지 스트리밍으로 처리한다.
+ *
+ * 요청 전체를 List로 만들지 않고 BATCH_SIZE 만큼만 메모리에 들고 있기 때문에
+ * 요청이 아무리 커도 사용하는 메모리는 일정하다.
+ * 검증은 등록 화면, API와 같은 규칙 파일(ItemRuleEngine, SaveCheck)로 한다.
+ *
+ * 응답 형식
+ * {"results":[{"index":0,"id":3},{"index":1,"errors":[{"field":"price","code":"range"}]}],"saved":1,"failed":1}
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemBulkImporter {
+
+    static final int BATCH_SIZE = 500;
+
+    private final ObjectMapper objectMapper;
+    private final ItemRuleEngine itemRuleEngine;
+    private final ItemRepository itemRepository;
+
+    public Result importItems(InputStream in, OutputStream out) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(ItemSaveForm.class);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("results");
+
+        Batch batch = new Batch(generator);
+        int index = 0;
+        try (MappingIterator<ItemSaveForm> forms = reader.readValues(in)) {
+            while (true) {
+                Record record;
+                try {
+                    if (!forms.hasNextValue()) {
+                        break;
+                    }
+                    record = validate(forms.nextValue());
+                } catch (JsonMappingException e) {
+                    // 타입이 맞지 않는 한 건만 실패 처리하고, 다음 레코드부터 계속 읽는다.
+                    record = typeMismatch(e);
+                } catch (JsonProcessingException e) {
+                    // JSON 문법 자체가 깨지면 더 이상 읽을 수 없다. 여기까지 읽은 것만 반영한다.
+                    log.info("bulk 요청 파싱 중단 index={}", index, e);
+                    batch.add(index, error(null, "malformed"));
+                    break;
+                }
+                batch.add(index++, record);
+                if (batch.isFull()) {
+                    batch.flush();
+                }
+            }
+        }
+        batch.flush();
+
+        generator.writeEndArray();
+        generator.writeNumberField("saved", batch.saved);
+        generator.writeNumberField("failed", batch.failed);
+        generator.writeEndObject();
+        generator.flush();
+
+        return new Result(batch.saved, batch.failed);
+    }
+
+    private Record validate(ItemSaveForm form) {
+        BindingResult bindingResult = new BeanPropertyBindingResult(form, "item");
+        itemRuleEngine.validate(form, bindingResult, SaveCheck.class);
+
+        if (bindingResult.hasErrors()) {
+            return new Record(null, bindingResult.getAllErrors());
+        }
+
+        Item item = new Item();
+        item.setItemName(form.getItemName());
+        item.setPrice(form.getPrice());
+        item.setQuantity(form.getQuantity());
+        return new Record(item, null);
+    }
+
+    private Record typeMismatch(JsonMappingException e) {
+        List<JsonMappingException.Reference> path = e.getPath();
+        String field = path.isEmpty() ? null : path.get(path.size() - 1).getFieldName();
+        return error(field, "typeMismatch");
+    }
+
+    private Record error(String field, String code) {
+        List<ObjectError> errors = new ArrayList<>(1);
+        errors.add(field == null
+                ? new ObjectError("item", new String[]{code}, null, null)
+                : new FieldError("item", field, null, true, new String[]{code}, null, null));
+        return new Record(null, errors);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Result {
+        private final int saved;
+        private final int failed;
+    }
+
+    @RequiredArgsConstructor
+    private static class Record {
+        private final Item item;
+        private final List<ObjectError> errors;
+    }
+
+    /**
+     * 저장할 상품들을 모아두었다가 한번에 저장하고, 결과를 index 순서대로 응답에 쓴다.
+     */
+    private class Batch {
+
+        private final JsonGenerator generator;
+        private final int[] indexes = new int[BATCH_SIZE];
+        private final Record[] records = new Record[BATCH_SIZE];
+        private final List<Item> items = new ArrayList<>(BATCH_SIZE);
+        private int size;
+        private int saved;
+        private int failed;
+
+        Batch(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        void add(int index, Record record) {
+            indexes[size] = index;
+            records[size] = record;
+            size++;
+            if (record.item != null) {
+                items.add(record.item);
+            }
+        }
+
+        boolean isFull() {
+            return size == BATCH_SIZE;
+        }
+
+        void flush() throws IOException {
+            if (!items.isEmpty()) {
+                itemRepository.saveAll(items);
+            }
+            for (int i = 0; i < size; i++) {
+                writeRecord(indexes[i], records[i]);
+                records[i] = null;
+            }
+            saved += items.size();
+            failed += size - items.size();
+            items.clear();
+            size = 0;
+            generator.flush();
+        }
+
+        private void writeRecord(int index, Record record) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("index", index);
+            if (record.item != null) {
+                generator.writeNumberField("id", record.item.getId());
+            } else {
+                generator.writeArrayFieldStart("errors");
+                for (ObjectError error : record.errors) {
+                    generator.writeStartObject();
+                    if (error instanceof FieldError) {
+                        generator.writeStringField("field", ((FieldError) error).getField());
+                    }
+                    generator.writeStringField("code", error.getCode());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+    }
+}
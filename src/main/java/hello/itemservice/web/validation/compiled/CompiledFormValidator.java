@@ -0,0 +1,206 @@
+package hello.itemservice.web.validation.compiled;
+
+import hello.itemservice.web.validation.form.ItemSaveForm;
+import hello.itemservice.web.validation.form.ItemUpdateForm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.SmartValidator;
+
+import javax.validation.MessageInterpolator;
+import javax.validation.ValidationException;
+import javax.validation.ValidatorFactory;
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * ItemSaveForm, ItemUpdateForm에 붙은 Bean Validation 어노테이션을
+ * 애플리케이션 시작 시점에 한번만 읽어서 미리 컴파일해둔 검증기.
+ *
+ * @Validated 로 검증할 때마다 Hibernate Validator가 하는 메타데이터 탐색, 리플렉션, ConstraintViolation 생성을
+ * getter 호출 + 비교 연산으로 바꾼다.
+ *
+ * 에러 코드(NotBlank, NotNull, Range, Max ...)와 에러 인자는 SpringValidatorAdapter가 만드는 FieldError와 같기 때문에
+ * errors.properties의 메시지를 그대로 사용할 수 있다.
+ *
+ * 컨트롤러에서 @InitBinder로 dataBinder.setValidator(compiledFormValidator)를 해주면
+ * 해당 컨트롤러의 @Validated는 이 검증기를 사용한다.
+ * 지금 V4, API 컨트롤러와 bulk 등록은 규칙 파일(ItemRuleEngine)로 검증하기 때문에 어노테이션의 한계는 요청 검증에 쓰이지 않는다.
+ */
+@Slf4j
+@Component
+public class CompiledFormValidator implements SmartValidator {
+
+    private static final Set<String> INTERNAL_ATTRIBUTES = Set.of("message", "groups", "payload");
+    private static final Class<?>[] DEFAULT_GROUPS = new Class<?>[0];
+
+    private final Map<Class<?>, FieldConstraint[]> plans;
+
+    public CompiledFormValidator(ValidatorFactory validatorFactory) {
+        this.plans = Map.of(
+                ItemSaveForm.class, compile(validatorFactory, ItemSaveForm.class),
+                ItemUpdateForm.class, compile(validatorFactory, ItemUpdateForm.class));
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return plans.containsKey(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        validate(target, errors, DEFAULT_GROUPS);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        FieldConstraint[] plan = plans.get(target.getClass());
+        Class<?>[] groups = groups(validationHints);
+
+        for (FieldConstraint constraint : plan) {
+            if (!constraint.appliesTo(groups) || constraint.isValid(constraint.value(target))) {
+                continue;
+            }
+            // 타입 오류(typeMismatch)로 바인딩에 실패한 필드는 SpringValidatorAdapter처럼 다시 에러를 쌓지 않는다.
+            if (hasBindingFailure(errors, constraint.field)) {
+                continue;
+            }
+            errors.rejectValue(constraint.field, constraint.code, constraint.arguments(errors), constraint.defaultMessage);
+        }
+    }
+
+    private static boolean hasBindingFailure(Errors errors, String field) {
+        if (!(errors instanceof BindingResult)) {
+            return false;
+        }
+        FieldError fieldError = errors.getFieldError(field);
+        return fieldError != null && fieldError.isBindingFailure();
+    }
+
+    private static Class<?>[] groups(Object[] validationHints) {
+        if (validationHints == null || validationHints.length == 0) {
+            return DEFAULT_GROUPS;
+        }
+        List<Class<?>> groups = new ArrayList<>(validationHints.length);
+        for (Object hint : validationHints) {
+            if (hint instanceof Class) {
+                groups.add((Class<?>) hint);
+            }
+        }
+        return groups.toArray(new Class<?>[0]);
+    }
+
+    /**
+     * Hibernate Validator의 메타데이터(BeanDescriptor)를 한번 읽어서 필드 선언 순서대로 FieldConstraint 배열을 만든다.
+     */
+    static FieldConstraint[] compile(ValidatorFactory validatorFactory, Class<?> type) {
+        BeanDescriptor bean = validatorFactory.getValidator().getConstraintsForClass(type);
+        if (!bean.getConstraintDescriptors().isEmpty()) {
+            throw new IllegalStateException("클래스 레벨 검증은 컴파일할 수 없습니다. type=" + type.getName());
+        }
+        MessageInterpolator interpolator = validatorFactory.getMessageInterpolator();
+
+        List<PropertyDescriptor> properties = new ArrayList<>(bean.getConstrainedProperties());
+        List<String> declaredFields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            declaredFields.add(field.getName());
+        }
+        properties.sort(Comparator.comparingInt(property -> declaredFields.indexOf(property.getPropertyName())));
+
+        List<FieldConstraint> plan = new ArrayList<>();
+        for (PropertyDescriptor property : properties) {
+            String field = property.getPropertyName();
+            Function<Object, Object> getter = getter(type, field);
+            for (ConstraintDescriptor<?> descriptor : property.getConstraintDescriptors()) {
+                String code = descriptor.getAnnotation().annotationType().getSimpleName();
+                Map<String, Object> attributes = descriptor.getAttributes();
+                plan.add(FieldConstraint.of(field, code, attributes, attributeArguments(attributes),
+                        defaultMessage(interpolator, descriptor), descriptor.getGroups(), getter));
+            }
+        }
+        log.info("검증기 컴파일 type={}, constraints={}", type.getSimpleName(), plan.size());
+        return plan.toArray(new FieldConstraint[0]);
+    }
+
+    /**
+     * SpringValidatorAdapter.getArgumentsForConstraint와 같은 순서(속성 이름순)로 속성 값을 꺼낸다.
+     */
+    private static Object[] attributeArguments(Map<String, Object> attributes) {
+        Map<String, Object> exposed = new TreeMap<>();
+        attributes.forEach((name, value) -> {
+            if (!INTERNAL_ATTRIBUTES.contains(name)) {
+                exposed.put(name, value instanceof String
+                        ? new DefaultMessageSourceResolvable(new String[]{(String) value}, (String) value)
+                        : value);
+            }
+        });
+        return exposed.values().toArray();
+    }
+
+    /**
+     * errors.properties에서 메시지를 못 찾았을 때 쓰는 기본 메시지.
+     * Bean Validation이 요청마다 하던 메시지 보간을 시작할 때 한번만 한다.
+     */
+    private static String defaultMessage(MessageInterpolator interpolator, ConstraintDescriptor<?> descriptor) {
+        try {
+            return interpolator.interpolate(descriptor.getMessageTemplate(), new MessageInterpolator.Context() {
+                @Override
+                public ConstraintDescriptor<?> getConstraintDescriptor() {
+                    return descriptor;
+                }
+
+                @Override
+                public Object getValidatedValue() {
+                    return null;
+                }
+
+                @Override
+                public <T> T unwrap(Class<T> type) {
+                    throw new ValidationException("unwrap을 지원하지 않습니다. type=" + type.getName());
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("기본 메시지 보간 실패 template={}", descriptor.getMessageTemplate(), e);
+            return descriptor.getMessageTemplate();
+        }
+    }
+
+    /**
+     * getter를 리플렉션(Method.invoke) 대신 LambdaMetafactory로 Function으로 만들어둔다.
+     * 만들어진 Function은 일반 람다와 같아서 JIT가 인라인할 수 있다.
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> getter(Class<?> type, String field) {
+        java.beans.PropertyDescriptor property = BeanUtils.getPropertyDescriptor(type, field);
+        if (property == null || property.getReadMethod() == null) {
+            throw new IllegalStateException("getter가 없습니다. type=" + type.getName() + ", field=" + field);
+        }
+        Method readMethod = property.getReadMethod();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(readMethod);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    handle.type().wrap());
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("getter 컴파일 실패. type=" + type.getName() + ", field=" + field, e);
+        }
+    }
+}
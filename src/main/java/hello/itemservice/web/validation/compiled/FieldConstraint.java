@@ -0,0 +1,152 @@
+package hello.itemservice.web.validation.compiled;
+
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.validation.Errors;
+
+import javax.validation.groups.Default;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 필드 하나에 붙은 검증 어노테이션 하나를 미리 풀어둔 것.
+ *
+ * 어노테이션 속성(min, max, value ...)과 에러 코드, 에러 인자는 시작할 때 한번만 읽어두고
+ * 요청마다는 getter 호출과 비교 연산만 한다.
+ */
+abstract class FieldConstraint {
+
+    final String field;
+    final String code;
+    final String defaultMessage;
+    private final Object[] attributeArguments;
+    private final Set<Class<?>> groups;
+    private final boolean defaultGroup;
+    private final Function<Object, Object> getter;
+    private final Map<String, Object[]> argumentsByObjectName = new ConcurrentHashMap<>();
+
+    FieldConstraint(String field, String code, Object[] attributeArguments, String defaultMessage,
+                    Set<Class<?>> groups, Function<Object, Object> getter) {
+        this.field = field;
+        this.code = code;
+        this.attributeArguments = attributeArguments;
+        this.defaultMessage = defaultMessage;
+        this.groups = groups;
+        this.defaultGroup = groups.contains(Default.class);
+        this.getter = getter;
+    }
+
+    final Object value(Object target) {
+        return getter.apply(target);
+    }
+
+    /**
+     * groups가 비어있으면 Default 그룹으로 검증한다.
+     */
+    final boolean appliesTo(Class<?>[] validationGroups) {
+        if (validationGroups.length == 0) {
+            return defaultGroup;
+        }
+        for (Class<?> group : validationGroups) {
+            if (groups.contains(group)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * SpringValidatorAdapter와 같은 에러 인자를 만든다.
+     * {0}은 필드명(objectName.field, field 순으로 메시지를 찾는다), {1}부터는 어노테이션 속성을 이름순으로 넣는다.
+     * 예) Range -> {0}=price, {1}=max, {2}=min
+     *
+     * objectName은 바인딩할 때마다 달라질 수 있어서 objectName별로 한번만 만들어 재사용한다.
+     */
+    final Object[] arguments(Errors errors) {
+        return argumentsByObjectName.computeIfAbsent(errors.getObjectName(), objectName -> {
+            Object[] arguments = new Object[attributeArguments.length + 1];
+            arguments[0] = new DefaultMessageSourceResolvable(
+                    new String[]{objectName + Errors.NESTED_PATH_SEPARATOR + field, field}, field);
+            System.arraycopy(attributeArguments, 0, arguments, 1, attributeArguments.length);
+            return arguments;
+        });
+    }
+
+    abstract boolean isValid(Object value);
+
+    /**
+     * 지원하는 어노테이션만 컴파일한다. 모르는 어노테이션을 조용히 건너뛰면
+     * 검증이 빠지게 되므로 시작 시점에 바로 실패시킨다.
+     */
+    static FieldConstraint of(String field, String code, Map<String, Object> attributes, Object[] attributeArguments,
+                              String defaultMessage, Set<Class<?>> groups, Function<Object, Object> getter) {
+        switch (code) {
+            case "NotNull":
+                return new FieldConstraint(field, code, attributeArguments, defaultMessage, groups, getter) {
+                    @Override
+                    boolean isValid(Object value) {
+                        return value != null;
+                    }
+                };
+            case "NotBlank":
+                return new FieldConstraint(field, code, attributeArguments, defaultMessage, groups, getter) {
+                    @Override
+                    boolean isValid(Object value) {
+                        return value != null && value.toString().trim().length() > 0;
+                    }
+                };
+            case "NotEmpty":
+                return new FieldConstraint(field, code, attributeArguments, defaultMessage, groups, getter) {
+                    @Override
+                    boolean isValid(Object value) {
+                        if (value instanceof CharSequence) {
+                            return ((CharSequence) value).length() > 0;
+                        }
+                        if (value instanceof Collection) {
+                            return !((Collection<?>) value).isEmpty();
+                        }
+                        if (value instanceof Map) {
+                            return !((Map<?, ?>) value).isEmpty();
+                        }
+                        return value != null;
+                    }
+                };
+            case "Min": {
+                long min = ((Number) attributes.get("value")).longValue();
+                return new FieldConstraint(field, code, attributeArguments, defaultMessage, groups, getter) {
+                    @Override
+                    boolean isValid(Object value) {
+                        return value == null || ((Number) value).longValue() >= min;
+                    }
+                };
+            }
+            case "Max": {
+                long max = ((Number) attributes.get("value")).longValue();
+                return new FieldConstraint(field, code, attributeArguments, defaultMessage, groups, getter) {
+                    @Override
+                    boolean isValid(Object value) {
+                        return value == null || ((Number) value).longValue() <= max;
+                    }
+                };
+            }
+            case "Range": {
+                long min = ((Number) attributes.get("min")).longValue();
+                long max = ((Number) attributes.get("max")).longValue();
+                return new FieldConstraint(field, code, attributeArguments, defaultMessage, groups, getter) {
+                    @Override
+                    boolean isValid(Object value) {
+                        if (value == null) {
+                            return true;
+                        }
+                        long number = ((Number) value).longValue();
+                        return number >= min && number <= max;
+                    }
+                };
+            }
+            default:
+                throw new IllegalStateException("컴파일할 수 없는 검증 어노테이션입니다. field=" + field + ", constraint=" + code);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package hello.itemservice.web.validation.errors;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.validation.AbstractErrors;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JSON API용 가벼운 Errors 구현.
+ *
+ * BeanPropertyBindingResult는 rejectValue 한번에 MessageCodesResolver로 코드 배열을 만들고,
+ * 거절된 값을 꺼내고, FieldError 객체를 만든다. 그리고 getAllErrors()를 그대로 JSON으로 내보내면
+ * codes, arguments, rejectedValue ... 가 모두 응답에 들어간다.
+ *
+ * 이 클래스는 field, code, args 만 배열에 차례로 담아두고
+ * 응답에 필요한 최소한의 JSON으로 바로 써준다.
+ * {"errors":[{"field":"price","code":"range","args":[1000,1000000]},{"code":"totalPriceMin","args":[10000,9000]}]}
+ *
+ * Errors를 구현하기 때문에 ItemValidator 같은 기존 Validator를 그대로 사용할 수 있다.
+ * 쓰레드마다 하나씩 만들어두고 재사용하므로, acquire()로 받아서 다 쓰면 반드시 release()를 호출해야 한다.
+ * FieldError/ObjectError 객체는 getFieldErrors() 같은 메서드를 호출할 때만 만든다.
+ */
+public class CompactErrors extends AbstractErrors {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final ThreadLocal<CompactErrors> POOL = ThreadLocal.withInitial(CompactErrors::new);
+
+    private String objectName;
+    private Object target;
+    private boolean inUse;
+
+    private String[] fields = new String[INITIAL_CAPACITY];
+    private String[] codes = new String[INITIAL_CAPACITY];
+    private Object[][] args = new Object[INITIAL_CAPACITY][];
+    private int size;
+    private int globalCount;
+
+    public CompactErrors(String objectName, Object target) {
+        this.objectName = objectName;
+        this.target = target;
+    }
+
+    private CompactErrors() {
+    }
+
+    /**
+     * 현재 쓰레드의 CompactErrors를 꺼내온다.
+     * 이미 사용 중이면(검증 안에서 다시 검증하는 경우) 새로 만들어준다.
+     */
+    public static CompactErrors acquire(String objectName, Object target) {
+        CompactErrors errors = POOL.get();
+        if (errors.inUse) {
+            return new CompactErrors(objectName, target);
+        }
+        errors.inUse = true;
+        errors.objectName = objectName;
+        errors.target = target;
+        return errors;
+    }
+
+    /**
+     * 담고 있던 값을 비우고 다음 요청에서 다시 쓸 수 있게 돌려놓는다.
+     */
+    public void release() {
+        Arrays.fill(fields, 0, size, null);
+        Arrays.fill(codes, 0, size, null);
+        Arrays.fill(args, 0, size, null);
+        size = 0;
+        globalCount = 0;
+        objectName = null;
+        target = null;
+        setNestedPath("");
+        inUse = false;
+    }
+
+    @Override
+    public String getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public void reject(String errorCode, Object[] errorArgs, String defaultMessage) {
+        add(null, errorCode, errorArgs);
+        globalCount++;
+    }
+
+    @Override
+    public void rejectValue(String field, String errorCode, Object[] errorArgs, String defaultMessage) {
+        if ("".equals(getNestedPath()) && (field == null || field.isEmpty())) {
+            reject(errorCode, errorArgs, defaultMessage);
+            return;
+        }
+        add(fixedField(field), errorCode, errorArgs);
+    }
+
+    @Override
+    public void addAllErrors(Errors errors) {
+        for (ObjectError error : errors.getAllErrors()) {
+            if (error instanceof FieldError) {
+                add(((FieldError) error).getField(), error.getCode(), error.getArguments());
+            } else {
+                add(null, error.getCode(), error.getArguments());
+                globalCount++;
+            }
+        }
+    }
+
+    @Override
+    public boolean hasErrors() {
+        return size > 0;
+    }
+
+    @Override
+    public int getErrorCount() {
+        return size;
+    }
+
+    @Override
+    public boolean hasGlobalErrors() {
+        return globalCount > 0;
+    }
+
+    @Override
+    public int getGlobalErrorCount() {
+        return globalCount;
+    }
+
+    @Override
+    public boolean hasFieldErrors() {
+        return size > globalCount;
+    }
+
+    @Override
+    public int getFieldErrorCount() {
+        return size - globalCount;
+    }
+
+    @Override
+    public int getFieldErrorCount(String field) {
+        String fixedField = fixedField(field);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (fields[i] != null && matches(fixedField, fields[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean hasFieldErrors(String field) {
+        return getFieldErrorCount(field) > 0;
+    }
+
+    /**
+     * BindingResult처럼 에러가 쌓인 순서대로 돌려준다.
+     */
+    @Override
+    public List<ObjectError> getAllErrors() {
+        List<ObjectError> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(toError(i));
+        }
+        return result;
+    }
+
+    @Override
+    public List<ObjectError> getGlobalErrors() {
+        List<ObjectError> result = new ArrayList<>(globalCount);
+        for (int i = 0; i < size; i++) {
+            if (fields[i] == null) {
+                result.add(toError(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<FieldError> getFieldErrors() {
+        List<FieldError> result = new ArrayList<>(size - globalCount);
+        for (int i = 0; i < size; i++) {
+            if (fields[i] != null) {
+                result.add((FieldError) toError(i));
+            }
+        }
+        return result;
+    }
+
+    private ObjectError toError(int i) {
+        if (fields[i] == null) {
+            return new ObjectError(objectName, new String[]{codes[i]}, args[i], null);
+        }
+        return new FieldError(objectName, fields[i], null, false, new String[]{codes[i]}, args[i], null);
+    }
+
+    @Override
+    public Object getFieldValue(String field) {
+        return target == null ? null : PropertyAccessorFactory.forBeanPropertyAccess(target).getPropertyValue(fixedField(field));
+    }
+
+    /**
+     * 에러 목록을 최소한의 JSON으로 바로 쓴다.
+     * MessageSourceResolvable 인자(Bean Validation의 필드명)는 기본 메시지(필드명)로 쓴다.
+     */
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("errors");
+        for (int i = 0; i < size; i++) {
+            generator.writeStartObject();
+            if (fields[i] != null) {
+                generator.writeStringField("field", fields[i]);
+            }
+            generator.writeStringField("code", codes[i]);
+            if (args[i] != null && args[i].length > 0) {
+                generator.writeArrayFieldStart("args");
+                for (Object arg : args[i]) {
+                    writeArgument(generator, arg);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private static void writeArgument(JsonGenerator generator, Object arg) throws IOException {
+        if (arg == null) {
+            generator.writeNull();
+        } else if (arg instanceof Integer) {
+            generator.writeNumber((Integer) arg);
+        } else if (arg instanceof Long) {
+            generator.writeNumber((Long) arg);
+        } else if (arg instanceof MessageSourceResolvable) {
+            generator.writeString(((MessageSourceResolvable) arg).getDefaultMessage());
+        } else {
+            generator.writeString(arg.toString());
+        }
+    }
+
+    /**
+     * AbstractErrors.isMatchingFieldError처럼 "price*" 같은 와일드카드도 지원한다.
+     */
+    private static boolean matches(String field, String errorField) {
+        if (field.equals(errorField)) {
+            return true;
+        }
+        int endIndex = field.length() - 1;
+        return endIndex >= 0 && field.charAt(endIndex) == '*'
+                && (endIndex == 0 || errorField.regionMatches(0, field, 0, endIndex));
+    }
+
+    private void add(String field, String code, Object[] errorArgs) {
+        if (size == codes.length) {
+            int capacity = size * 2;
+            fields = Arrays.copyOf(fields, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+            args = Arrays.copyOf(args, capacity);
+        }
+        fields[size] = field;
+        codes[size] = code;
+        args[size] = errorArgs;
+        size++;
+    }
+}
@@ -23,4 +23,9 @@ public class ItemUpdateForm {
     // 수정에서는 수량은 자유롭게 변경할 수 있다.
     private Integer quantity;
 
+    // 수정 폼을 열었을 때의 상품 버전. 저장할 때 바뀌어 있으면 다른 사용자의 수정을 덮어쓰지 않는다.
+    // 없으면 버전 확인 없이 덮어쓰게 되므로 필수다.
+    @NotNull
+    private Long version;
+
 }
@@ -0,0 +1,164 @@
+package hello.itemservice.web.validation.idempotency;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 클라이언트가 보낸 멱등 키(idempotency key)와 그 처리 결과를 잠시 기억해둔다.
+ * 타임아웃으로 같은 요청을 다시 보내도 검증, 저장을 다시 하지 않고 처음 결과를 돌려준다.
+ *
+ * - 키는 scope(엔드포인트)별로 나눈다. 다른 엔드포인트의 같은 키와 섞이지 않는다.
+ * - 처음 요청이 아직 처리 중일 때 들어온 재시도는 처음 요청의 결과를 기다린다. (한 번만 처리된다)
+ * - 처리 중 예외가 나면 키를 지워서, 다음 재시도는 처음부터 다시 처리한다.
+ * - 처리가 끝난 키는 끝난 순서대로 큐에 쌓고, ttl이 지났거나 maxKeys를 넘으면 앞에서부터 지운다.
+ *   만료된 키는 조회할 때도 없는 것으로 본다.
+ * - 처리 중인 키는 큐에 넣지 않아서 maxKeys로는 지우지 않는다. 지우면 그 재시도가 저장을 한번 더 하기 때문이다.
+ *   처리 중인 키는 ttl이 지나야만 새 요청으로 바뀐다.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final int maxKeys;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> order = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Autowired
+    public IdempotencyCache(@Value("${itemservice.idempotency.max-keys:10000}") int maxKeys,
+                            @Value("${itemservice.idempotency.ttl:10m}") Duration ttl) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys는 1 이상이어야 합니다. maxKeys=" + maxKeys);
+        }
+        this.maxKeys = maxKeys;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * 이미 처리가 끝난 키면 그 결과를, 아니면(키가 없거나, 처리 중이거나, 실패했으면) null을 돌려준다.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getIfCompleted(String scope, String key) {
+        if (key == null) {
+            return null;
+        }
+        Entry entry = entries.get(scope + ':' + key);
+        if (entry == null || entry.isExpired(System.nanoTime(), ttlNanos)
+                || !entry.result.isDone() || entry.result.isCompletedExceptionally()) {
+            return null;
+        }
+        return (T) entry.result.join();
+    }
+
+    /**
+     * 키로 처음 들어온 요청만 action을 실행하고, 같은 키의 요청들은 그 결과를 같이 돌려받는다.
+     * key가 null이면 멱등 키 없이 온 요청이므로 그냥 실행한다.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        String cacheKey = scope + ':' + key;
+        long now = System.nanoTime();
+        evict(now);
+
+        Entry entry = new Entry(cacheKey, now);
+        while (true) {
+            Entry existing = entries.putIfAbsent(cacheKey, entry);
+            if (existing == null) {
+                break;
+            }
+            if (!existing.isExpired(now, ttlNanos)) {
+                return (T) await(existing);
+            }
+            if (entries.replace(cacheKey, existing, entry)) {
+                break;
+            }
+        }
+
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            entries.remove(cacheKey, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        // 끝난 시각을 적고 바로 큐에 넣는다. 그래서 큐 순서가 만료 순서와 같다.
+        long completed = System.nanoTime();
+        entry.complete(completed);
+        order.add(entry);
+        size.incrementAndGet();
+        entry.result.complete(result);
+        evict(completed);
+        return result;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * 먼저 끝난 키부터 보고, 만료되지 않았고 maxKeys 안이면 멈춘다.
+     * 큐에는 처리가 끝난 키만 있고, 큐의 순서와 만료 순서가 같기 때문에 앞에서만 지우면 된다.
+     */
+    private void evict(long now) {
+        Entry head;
+        while ((head = order.peek()) != null
+                && (size.get() > maxKeys || head.isExpired(now, ttlNanos))) {
+            if (order.remove(head)) {
+                size.decrementAndGet();
+                entries.remove(head.key, head);
+            }
+        }
+    }
+
+    private static Object await(Entry entry) {
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry {
+
+        final String key;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        /**
+         * 처리 중에는 시작한 시각, 처리가 끝나면 끝난 시각. ttl은 이 시각부터 잰다.
+         */
+        volatile long sinceNanos;
+
+        Entry(String key, long startedNanos) {
+            this.key = key;
+            this.sinceNanos = startedNanos;
+        }
+
+        void complete(long completedNanos) {
+            this.sinceNanos = completedNanos;
+        }
+
+        boolean isExpired(long now, long ttlNanos) {
+            return now - sinceNanos > ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package hello.itemservice.web.validation.metrics;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.Validator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 감싼 Validator의 검증 시간을 "이름.검증 대상 클래스" 로 기록한다.
+ * 검증 그룹(validationHints)은 delegate가 SmartValidator일 때만 넘겨준다.
+ */
+class InstrumentedValidator implements SmartValidator {
+
+    private final String name;
+    private final Validator delegate;
+    private final ValidationMetrics metrics;
+    private final Map<Class<?>, String> names = new ConcurrentHashMap<>();
+
+    InstrumentedValidator(String name, Validator delegate, ValidationMetrics metrics) {
+        this.name = name;
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return delegate.supports(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        long start = metrics.start();
+        delegate.validate(target, errors);
+        metrics.record(nameOf(target), start);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        long start = metrics.start();
+        if (delegate instanceof SmartValidator) {
+            ((SmartValidator) delegate).validate(target, errors, validationHints);
+        } else {
+            delegate.validate(target, errors);
+        }
+        metrics.record(nameOf(target), start);
+    }
+
+    private String nameOf(Object target) {
+        return names.computeIfAbsent(target.getClass(), clazz -> name + "." + clazz.getSimpleName());
+    }
+}
@@ -0,0 +1,119 @@
+package hello.itemservice.web.validation.metrics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.validation.Validator;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 검증에 걸린 시간(검증기, 규칙별)과 거절된 필드/에러 코드(엔드포인트별)를 모은다.
+ *
+ * 요청 쓰레드는 자기 쓰레드의 Recorder에만 기록하기 때문에 다른 쓰레드와 락이나 CAS로 경쟁하지 않는다.
+ * 각 쓰레드의 Recorder는 만들어질 때 recorders에 등록되고, snapshot()을 만들 때만 모두 합친다.
+ * (톰캣 쓰레드는 풀에서 재사용되므로 Recorder가 계속 늘어나지 않는다)
+ *
+ * /actuator/validation 으로 확인할 수 있다. (ValidationMetricsEndpoint)
+ */
+@Component
+public class ValidationMetrics {
+
+    private final Queue<Recorder> recorders = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Recorder> recorder = ThreadLocal.withInitial(() -> {
+        Recorder created = new Recorder();
+        recorders.add(created);
+        return created;
+    });
+
+    /**
+     * delegate의 검증 시간을 name(검증 대상 클래스 이름이 뒤에 붙는다)으로 기록하는 Validator로 감싼다.
+     */
+    public Validator instrument(String name, Validator delegate) {
+        return new InstrumentedValidator(name, delegate, this);
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * start()로 시작한 구간의 시간을 기록한다.
+     */
+    public void record(String name, long startNanos) {
+        recorder.get().latency(name).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 검증이 끝난 errors에 쌓인 에러를 endpoint 별로 센다. 바인딩 실패(typeMismatch)도 포함된다.
+     */
+    public void recordErrors(String endpoint, Errors errors) {
+        if (!errors.hasErrors()) {
+            return;
+        }
+        Recorder current = recorder.get();
+        for (ObjectError error : errors.getAllErrors()) {
+            String key = error instanceof FieldError
+                    ? endpoint + ":" + ((FieldError) error).getField() + "." + error.getCode()
+                    : endpoint + ":" + error.getCode();
+            current.increment(key);
+        }
+    }
+
+    /**
+     * {"latencies": {이름: {count, meanNanos, p50Nanos ...}}, "errors": {엔드포인트: {필드.코드: 횟수}}}
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, LatencyHistogram.Snapshot> latencies = new TreeMap<>();
+        Map<String, Map<String, Long>> errors = new TreeMap<>();
+        for (Recorder each : recorders) {
+            each.latencies.forEach((name, histogram) ->
+                    histogram.addTo(latencies.computeIfAbsent(name, key -> new LatencyHistogram.Snapshot())));
+            each.errors.forEach((key, count) -> {
+                int separator = key.indexOf(':');
+                errors.computeIfAbsent(key.substring(0, separator), endpoint -> new TreeMap<>())
+                        .merge(key.substring(separator + 1), count.get(), Long::sum);
+            });
+        }
+
+        Map<String, Object> latencyResult = new TreeMap<>();
+        latencies.forEach((name, snapshot) -> latencyResult.put(name, snapshot.toMap()));
+        Map<String, Object> result = new TreeMap<>();
+        result.put("latencies", latencyResult);
+        result.put("errors", errors);
+        return result;
+    }
+
+    /**
+     * 한 쓰레드의 기록. 키가 처음 나올 때만 map에 넣고, 그 다음부터는 조회 + lazySet이다.
+     */
+    private static final class Recorder {
+
+        private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+        private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+        LatencyHistogram latency(String name) {
+            LatencyHistogram histogram = latencies.get(name);
+            if (histogram == null) {
+                histogram = new LatencyHistogram();
+                latencies.put(name, histogram);
+            }
+            return histogram;
+        }
+
+        void increment(String key) {
+            AtomicLong count = errors.get(key);
+            if (count == null) {
+                count = new AtomicLong();
+                errors.put(key, count);
+            }
+            count.lazySet(count.get() + 1);
+        }
+    }
+}
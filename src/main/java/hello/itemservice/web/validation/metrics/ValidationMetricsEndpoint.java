@@ -0,0 +1,24 @@
+package hello.itemservice.web.validation.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * GET /actuator/validation
+ */
+@Component
+@Endpoint(id = "validation")
+@RequiredArgsConstructor
+public class ValidationMetricsEndpoint {
+
+    private final ValidationMetrics validationMetrics;
+
+    @ReadOperation
+    public Map<String, Object> validation() {
+        return validationMetrics.snapshot();
+    }
+}
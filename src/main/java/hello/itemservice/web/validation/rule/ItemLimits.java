@@ -0,0 +1,27 @@
+package hello.itemservice.web.validation.rule;
+
+import lombok.Getter;
+
+/**
+ * 규칙 파일에서 등록(SaveCheck) 규칙의 숫자 한계만 뽑은 값. ItemValidator와 TotalPriceRule이 이 값으로 검사한다.
+ *
+ * 규칙 파일에 해당 규칙이 없으면 그 한계는 검사하지 않는 값(Integer.MIN_VALUE, Integer.MAX_VALUE)이 된다.
+ * DEFAULT는 기본 규칙 파일(validation/item-rules.json)과 같은 값이다. 규칙 엔진 없이 만든 ItemValidator가 사용한다.
+ */
+@Getter
+public final class ItemLimits {
+
+    public static final ItemLimits DEFAULT = new ItemLimits(1000, 1000000, 9999, 10000);
+
+    private final int priceMin;
+    private final int priceMax;
+    private final int quantityMax;
+    private final int totalPriceMin;
+
+    public ItemLimits(int priceMin, int priceMax, int quantityMax, int totalPriceMin) {
+        this.priceMin = priceMin;
+        this.priceMax = priceMax;
+        this.quantityMax = quantityMax;
+        this.totalPriceMin = totalPriceMin;
+    }
+}
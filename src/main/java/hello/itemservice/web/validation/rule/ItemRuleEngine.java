@@ -0,0 +1,154 @@
+package hello.itemservice.web.validation.rule;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 규칙 파일(itemservice.validation.rules-location)에 적힌 규칙으로 상품을 검증한다.
+ *
+ * 규칙은 읽을 때 한번 RulePlan으로 컴파일해서 AtomicReference에 넣어둔다.
+ * 검증은 시작할 때 현재 RulePlan을 한번 꺼내서 끝까지 그것만 사용하고,
+ * 다시 읽을 때는 새 RulePlan을 다 만든 뒤에 참조만 바꾸기 때문에 진행 중인 검증을 멈추거나 기다리게 하지 않는다.
+ *
+ * 규칙 파일이 파일 시스템에 있으면 rules-reload-interval 마다 수정 시간을 확인해서 다시 읽는다.
+ * 새 규칙 파일이 잘못되었으면 로그만 남기고 이전 규칙을 그대로 사용한다.
+ *
+ * V3, V4, API 컨트롤러와 bulk 등록(ItemBulkImporter)은 이 엔진으로 검증하고,
+ * ItemValidator(V2, 전체 재검증)와 TotalPriceRule은 getLimits()의 한계를 읽는다. 규칙 파일만 고치면 이 경로들에 모두 반영된다.
+ * V1의 직접 검증과 V2 앞 단계의 예제 메서드는 단계별 예제라서 숫자를 코드에 그대로 두었다.
+ * Item, ItemSaveForm, ItemUpdateForm 외의 클래스는 supports가 false이고, validate에 넘기면 IllegalArgumentException이 난다.
+ */
+@Slf4j
+@Component
+public class ItemRuleEngine implements SmartValidator {
+
+    private static final Class<?>[] DEFAULT_GROUPS = new Class<?>[0];
+
+    private final Resource rules;
+    private final ObjectReader reader = new ObjectMapper().readerFor(RuleDefinition[].class);
+    private final AtomicReference<RulePlan> plan = new AtomicReference<>();
+    private long lastModified;
+    private ScheduledExecutorService watcher;
+
+    @Autowired
+    public ItemRuleEngine(@Value("${itemservice.validation.rules-location:classpath:validation/item-rules.json}") Resource rules,
+                          @Value("${itemservice.validation.rules-reload-interval:5s}") Duration reloadInterval) {
+        this.rules = rules;
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("검증 규칙을 읽을 수 없습니다. location=" + rules, e);
+        }
+        if (!reloadInterval.isZero() && rules.isFile()) {
+            watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "item-rule-watcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = reloadInterval.toMillis();
+            watcher.scheduleWithFixedDelay(this::reloadIfModified, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return RulePlan.supports(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        plan.get().programFor(target.getClass(), DEFAULT_GROUPS).evaluate(target, errors);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        RulePlan current = plan.get();
+        RulePlan.Program program = validationHints != null && validationHints.length == 1 && validationHints[0] instanceof Class
+                ? current.programFor(target.getClass(), (Class<?>) validationHints[0])
+                : current.programFor(target.getClass(), groups(validationHints));
+        program.evaluate(target, errors);
+    }
+
+    /**
+     * 규칙 파일을 다시 읽는다. 실패하면 이전 규칙을 그대로 두고 false를 돌려준다.
+     */
+    public synchronized boolean reload() {
+        try {
+            load();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("검증 규칙을 다시 읽지 못해서 이전 규칙을 사용합니다. location={}", rules, e);
+            return false;
+        }
+    }
+
+    public int getRuleCount() {
+        return plan.get().size();
+    }
+
+    /**
+     * 현재 규칙의 등록(SaveCheck) 한계. 규칙을 다시 읽으면 새 값이 나온다.
+     */
+    public ItemLimits getLimits() {
+        return plan.get().limits();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (watcher != null) {
+            watcher.shutdown();
+        }
+    }
+
+    private synchronized void reloadIfModified() {
+        try {
+            if (rules.lastModified() != lastModified) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.warn("검증 규칙 파일을 확인할 수 없습니다. location={}", rules, e);
+        }
+    }
+
+    private void load() throws IOException {
+        long modified = rules.isFile() ? rules.lastModified() : 0;
+        RuleDefinition[] definitions;
+        try (InputStream in = rules.getInputStream()) {
+            definitions = reader.readValue(in);
+        }
+        plan.set(RulePlan.compile(definitions));
+        lastModified = modified;
+        log.info("검증 규칙 로딩 location={}, rules={}", rules, definitions.length);
+    }
+
+    private static Class<?>[] groups(Object[] validationHints) {
+        if (validationHints == null || validationHints.length == 0) {
+            return DEFAULT_GROUPS;
+        }
+        List<Class<?>> groups = new ArrayList<>(validationHints.length);
+        for (Object hint : validationHints) {
+            if (hint instanceof Class) {
+                groups.add((Class<?>) hint);
+            }
+        }
+        return groups.toArray(new Class<?>[0]);
+    }
+}
@@ -0,0 +1,27 @@
+package hello.itemservice.web.validation.rule;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 규칙 파일(validation/item-rules.json)의 규칙 하나.
+ *
+ * {"field": "price", "constraint": "range", "params": {"min": 1000, "max": 1000000}, "code": "range", "groups": ["SaveCheck"]}
+ *
+ * - constraint: notNull, notBlank, min(value), max(value), range(min, max), totalPriceMin(min)
+ * - totalPriceMin은 특정 필드가 아닌 전체 에러이므로 field를 쓰지 않는다.
+ * - groups가 비어있으면 그룹 없이(@Validated) 검증할 때 적용된다.
+ */
+@Data
+public class RuleDefinition {
+
+    private String field;
+    private String constraint;
+    private Map<String, Integer> params = new LinkedHashMap<>();
+    private String code;
+    private List<String> groups = new ArrayList<>();
+}
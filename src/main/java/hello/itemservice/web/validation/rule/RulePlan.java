@@ -0,0 +1,376 @@
+package hello.itemservice.web.validation.rule;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.SaveCheck;
+import hello.itemservice.domain.item.UpdateCheck;
+import hello.itemservice.web.validation.form.ItemSaveForm;
+import hello.itemservice.web.validation.form.ItemUpdateForm;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+
+import javax.validation.groups.Default;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 규칙 파일을 컴파일한 결과. 한번 만들어지면 바뀌지 않는다.
+ *
+ * 검증 대상 클래스(Item, ItemSaveForm, ItemUpdateForm)와 그룹(Default, SaveCheck, UpdateCheck)마다
+ * 적용되는 규칙만 골라서 Program(배열로 된 명령 목록)으로 만들어둔다.
+ * 검증할 때는 규칙 객체를 따라가지 않고 배열을 차례로 읽으면서 switch 한번으로 검사한다.
+ *
+ * 등록(SaveCheck) 규칙의 가격, 수량, 합계 한계는 ItemLimits로도 뽑아둔다. (ItemValidator, TotalPriceRule이 사용한다)
+ */
+final class RulePlan {
+
+    static final String[] FIELDS = {"id", "itemName", "price", "quantity"};
+    private static final int ID = 0;
+    private static final int ITEM_NAME = 1;
+    private static final int PRICE = 2;
+    private static final int QUANTITY = 3;
+    private static final int GLOBAL = -1;
+
+    private static final byte NOT_NULL = 0;
+    private static final byte NOT_BLANK = 1;
+    private static final byte MIN = 2;
+    private static final byte MAX = 3;
+    private static final byte RANGE = 4;
+    private static final byte TOTAL_PRICE_MIN = 5;
+
+    private static final List<Class<?>> TARGETS = List.of(Item.class, ItemSaveForm.class, ItemUpdateForm.class);
+    private static final List<Class<?>> GROUPS = List.of(Default.class, SaveCheck.class, UpdateCheck.class);
+
+    private final List<Rule> rules;
+    private final Map<Class<?>, Map<Class<?>, Program>> programs = new HashMap<>();
+    private final ItemLimits limits;
+
+    private RulePlan(List<Rule> rules) {
+        this.rules = rules;
+        this.limits = limits(rules);
+        for (Class<?> target : TARGETS) {
+            Map<Class<?>, Program> byGroup = new HashMap<>();
+            for (Class<?> group : GROUPS) {
+                byGroup.put(group, program(target, new Class<?>[]{group}));
+            }
+            programs.put(target, byGroup);
+        }
+    }
+
+    static RulePlan compile(RuleDefinition[] definitions) {
+        List<Rule> rules = new ArrayList<>(definitions.length);
+        for (RuleDefinition definition : definitions) {
+            rules.add(Rule.of(definition));
+        }
+        return new RulePlan(rules);
+    }
+
+    static boolean supports(Class<?> clazz) {
+        return clazz != null && TARGETS.contains(clazz);
+    }
+
+    int size() {
+        return rules.size();
+    }
+
+    ItemLimits limits() {
+        return limits;
+    }
+
+    /**
+     * 그룹이 하나면 미리 만들어둔 Program을 쓰고, 여러 개면 그때 만든다.
+     * 검증 대상이 아닌 클래스(supports가 false)면 IllegalArgumentException
+     */
+    Program programFor(Class<?> target, Class<?>[] groups) {
+        Map<Class<?>, Program> byGroup = programsFor(target);
+        if (groups.length == 0) {
+            return byGroup.get(Default.class);
+        }
+        if (groups.length == 1) {
+            return programFor(target, groups[0]);
+        }
+        return program(target, groups);
+    }
+
+    Program programFor(Class<?> target, Class<?> group) {
+        Program program = programsFor(target).get(group);
+        return program != null ? program : program(target, new Class<?>[]{group});
+    }
+
+    private Map<Class<?>, Program> programsFor(Class<?> target) {
+        Map<Class<?>, Program> byGroup = programs.get(target);
+        if (byGroup == null) {
+            throw new IllegalArgumentException("검증 규칙을 적용할 수 없는 대상입니다. target=" + target.getName());
+        }
+        return byGroup;
+    }
+
+    private Program program(Class<?> target, Class<?>[] groups) {
+        List<Rule> selected = new ArrayList<>();
+        for (Rule rule : rules) {
+            if (rule.appliesTo(groups) && (rule.field == GLOBAL || hasField(target, rule.field))) {
+                selected.add(rule);
+            }
+        }
+        return new Program(selected);
+    }
+
+    /**
+     * SaveCheck 규칙 중 가격의 min/max/range, 수량의 max/range(최대값), totalPriceMin을 모은다. 같은 한계가 여러번 있으면 가장 좁은 값을 쓴다.
+     */
+    private static ItemLimits limits(List<Rule> rules) {
+        Class<?>[] save = {SaveCheck.class};
+        int priceMin = Integer.MIN_VALUE;
+        int priceMax = Integer.MAX_VALUE;
+        int quantityMax = Integer.MAX_VALUE;
+        int totalPriceMin = Integer.MIN_VALUE;
+        for (Rule rule : rules) {
+            if (!rule.appliesTo(save)) {
+                continue;
+            }
+            if (rule.op == TOTAL_PRICE_MIN) {
+                totalPriceMin = Math.max(totalPriceMin, rule.first);
+            } else if (rule.field == PRICE) {
+                if (rule.op == MIN || rule.op == RANGE) {
+                    priceMin = Math.max(priceMin, rule.first);
+                }
+                if (rule.op == MAX) {
+                    priceMax = Math.min(priceMax, rule.first);
+                } else if (rule.op == RANGE) {
+                    priceMax = Math.min(priceMax, rule.second);
+                }
+            } else if (rule.field == QUANTITY) {
+                if (rule.op == MAX) {
+                    quantityMax = Math.min(quantityMax, rule.first);
+                } else if (rule.op == RANGE) {
+                    quantityMax = Math.min(quantityMax, rule.second);
+                }
+            }
+        }
+        return new ItemLimits(priceMin, priceMax, quantityMax, totalPriceMin);
+    }
+
+    private static boolean hasField(Class<?> target, int field) {
+        return field != ID || target != ItemSaveForm.class;
+    }
+
+    private static Object value(Object target, int field) {
+        if (target instanceof Item) {
+            Item item = (Item) target;
+            switch (field) {
+                case ID: return item.getId();
+                case ITEM_NAME: return item.getItemName();
+                case PRICE: return item.getPrice();
+                default: return item.getQuantity();
+            }
+        }
+        if (target instanceof ItemUpdateForm) {
+            ItemUpdateForm form = (ItemUpdateForm) target;
+            switch (field) {
+                case ID: return form.getId();
+                case ITEM_NAME: return form.getItemName();
+                case PRICE: return form.getPrice();
+                default: return form.getQuantity();
+            }
+        }
+        ItemSaveForm form = (ItemSaveForm) target;
+        switch (field) {
+            case ITEM_NAME: return form.getItemName();
+            case PRICE: return form.getPrice();
+            case QUANTITY: return form.getQuantity();
+            default: return null;
+        }
+    }
+
+    /**
+     * 한 (검증 대상, 그룹)에 적용되는 규칙을 종류별 배열로 펼쳐놓은 것.
+     */
+    static final class Program {
+
+        private final byte[] ops;
+        private final int[] fields;
+        private final int[] first;
+        private final int[] second;
+        private final String[] codes;
+        private final Object[][] args;
+
+        private Program(List<Rule> rules) {
+            int size = rules.size();
+            ops = new byte[size];
+            fields = new int[size];
+            first = new int[size];
+            second = new int[size];
+            codes = new String[size];
+            args = new Object[size][];
+            for (int i = 0; i < size; i++) {
+                Rule rule = rules.get(i);
+                ops[i] = rule.op;
+                fields[i] = rule.field;
+                first[i] = rule.first;
+                second[i] = rule.second;
+                codes[i] = rule.code;
+                args[i] = rule.args;
+            }
+        }
+
+        void evaluate(Object target, Errors errors) {
+            for (int i = 0; i < ops.length; i++) {
+                int field = fields[i];
+                switch (ops[i]) {
+                    case NOT_NULL:
+                        if (value(target, field) == null) {
+                            rejectField(errors, i);
+                        }
+                        break;
+                    case NOT_BLANK: {
+                        Object value = value(target, field);
+                        if (!(value instanceof String) || !StringUtils.hasText((String) value)) {
+                            rejectField(errors, i);
+                        }
+                        break;
+                    }
+                    case MIN: {
+                        Number value = (Number) value(target, field);
+                        if (value != null && value.longValue() < first[i]) {
+                            rejectField(errors, i);
+                        }
+                        break;
+                    }
+                    case MAX: {
+                        Number value = (Number) value(target, field);
+                        if (value != null && value.longValue() > first[i]) {
+                            rejectField(errors, i);
+                        }
+                        break;
+                    }
+                    case RANGE: {
+                        Number value = (Number) value(target, field);
+                        if (value != null && (value.longValue() < first[i] || value.longValue() > second[i])) {
+                            rejectField(errors, i);
+                        }
+                        break;
+                    }
+                    default: {
+                        Integer price = (Integer) value(target, PRICE);
+                        Integer quantity = (Integer) value(target, QUANTITY);
+                        if (price != null && quantity != null) {
+                            long totalPrice = (long) price * quantity;
+                            if (totalPrice < first[i]) {
+                                errors.reject(codes[i], new Object[]{first[i], totalPrice}, null);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * 타입 오류(typeMismatch)로 바인딩에 실패한 필드에는 에러를 다시 쌓지 않는다.
+         */
+        private void rejectField(Errors errors, int i) {
+            String field = FIELDS[fields[i]];
+            if (errors instanceof BindingResult) {
+                FieldError fieldError = errors.getFieldError(field);
+                if (fieldError != null && fieldError.isBindingFailure()) {
+                    return;
+                }
+            }
+            errors.rejectValue(field, codes[i], args[i], null);
+        }
+    }
+
+    private static final class Rule {
+
+        final byte op;
+        final int field;
+        final int first;
+        final int second;
+        final String code;
+        final Object[] args;
+        final Class<?>[] groups;
+
+        private Rule(byte op, int field, int first, int second, String code, Object[] args, Class<?>[] groups) {
+            this.op = op;
+            this.field = field;
+            this.first = first;
+            this.second = second;
+            this.code = code;
+            this.args = args;
+            this.groups = groups;
+        }
+
+        static Rule of(RuleDefinition definition) {
+            String constraint = definition.getConstraint();
+            if (!StringUtils.hasText(definition.getCode())) {
+                throw new IllegalArgumentException("code가 없습니다. rule=" + definition);
+            }
+            Class<?>[] groups = groups(definition.getGroups());
+
+            if ("totalPriceMin".equals(constraint)) {
+                return new Rule(TOTAL_PRICE_MIN, GLOBAL, param(definition, "min"), 0, definition.getCode(), null, groups);
+            }
+            int field = List.of(FIELDS).indexOf(definition.getField());
+            if (field < 0) {
+                throw new IllegalArgumentException("알 수 없는 필드입니다. rule=" + definition);
+            }
+            switch (String.valueOf(constraint)) {
+                case "notNull":
+                    return new Rule(NOT_NULL, field, 0, 0, definition.getCode(), null, groups);
+                case "notBlank":
+                    return new Rule(NOT_BLANK, field, 0, 0, definition.getCode(), null, groups);
+                case "min": {
+                    int value = param(definition, "value");
+                    return new Rule(MIN, field, value, 0, definition.getCode(), new Object[]{value}, groups);
+                }
+                case "max": {
+                    int value = param(definition, "value");
+                    return new Rule(MAX, field, value, 0, definition.getCode(), new Object[]{value}, groups);
+                }
+                case "range": {
+                    int min = param(definition, "min");
+                    int max = param(definition, "max");
+                    return new Rule(RANGE, field, min, max, definition.getCode(), new Object[]{min, max}, groups);
+                }
+                default:
+                    throw new IllegalArgumentException("알 수 없는 constraint입니다. rule=" + definition);
+            }
+        }
+
+        boolean appliesTo(Class<?>[] validationGroups) {
+            for (Class<?> validationGroup : validationGroups) {
+                for (Class<?> group : groups) {
+                    if (group == validationGroup) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static int param(RuleDefinition definition, String name) {
+            Integer value = definition.getParams() == null ? null : definition.getParams().get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("params." + name + " 값이 없습니다. rule=" + definition);
+            }
+            return value;
+        }
+
+        private static Class<?>[] groups(List<String> names) {
+            if (names == null || names.isEmpty()) {
+                return new Class<?>[]{Default.class};
+            }
+            Class<?>[] groups = new Class<?>[names.size()];
+            for (int i = 0; i < groups.length; i++) {
+                String name = names.get(i);
+                groups[i] = GROUPS.stream()
+                        .filter(group -> group.getSimpleName().equals(name) || group.getName().equals(name))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("알 수 없는 그룹입니다. group=" + name));
+            }
+            return groups;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package hello.itemservice.domain.item;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ColumnarItemStoreTest {
+
+    ColumnarItemStore store = new ColumnarItemStore();
+
+    @Test
+    void computeAndGet() {
+        //given
+        store.compute(1L, oldItem -> item(1L, "itemA", 10000, 10));
+        store.compute(2L, oldItem -> item(2L, null, null, 20));
+
+        //when
+        store.computeIfPresent(1L, oldItem -> item(1L, oldItem.getItemName(), 15000, oldItem.getQuantity()));
+        Item absent = store.computeIfPresent(3L, oldItem -> item(3L, "itemC", 1000, 1));
+
+        //then
+        assertThat(store.get(1L)).isEqualTo(item(1L, "itemA", 15000, 10));
+        assertThat(store.get(2L)).isEqualTo(item(2L, null, null, 20));
+        assertThat(absent).isNull();
+        assertThat(store.get(3L)).isNull();
+    }
+
+    @Test
+    void getReturnsCopy() {
+        //given
+        store.compute(1L, oldItem -> item(1L, "itemA", 10000, 10));
+
+        //when
+        store.get(1L).setPrice(0);
+
+        //then
+        assertThat(store.get(1L).getPrice()).isEqualTo(10000);
+    }
+
+    @Test
+    void growsPastInitialCapacity() {
+        //given
+        int count = 10_000;
+
+        //when
+        for (long id = 1; id <= count; id++) {
+            long itemId = id;
+            store.compute(itemId, oldItem -> item(itemId, "item" + (itemId % 10), (int) itemId, 1));
+        }
+
+        //then
+        assertThat(store.values()).hasSize(count);
+        for (long id = 1; id <= count; id++) {
+            assertThat(store.get(id).getPrice()).isEqualTo((int) id);
+        }
+        // 같은 상품명은 하나의 문자열을 같이 쓴다.
+        assertThat(store.get(1L).getItemName()).isSameAs(store.get(11L).getItemName());
+
+        store.clear();
+        assertThat(store.isEmpty()).isTrue();
+    }
+
+    @Test
+    void renamedItemNamesAreReleased() {
+        //given
+        store.compute(1L, oldItem -> item(1L, "itemA", 10000, 10));
+        store.compute(2L, oldItem -> item(2L, "itemA", 20000, 20));
+
+        //when
+        store.compute(1L, oldItem -> item(1L, "itemB", 10000, 10));
+        store.compute(2L, oldItem -> item(2L, "itemC", 20000, 20));
+        store.compute(2L, oldItem -> item(2L, null, 20000, 20));
+
+        //then - itemA, itemC는 쓰는 상품이 없다.
+        assertThat(store.internedNames()).isEqualTo(1);
+        assertThat(store.get(1L).getItemName()).isEqualTo("itemB");
+    }
+
+    @Test
+    void afterReadsInIdOrder() {
+        //given
+        for (long id : new long[]{5L, 1L, 40L, 3L, 1000L}) {
+            store.compute(id, oldItem -> item(id, "item" + id, 1000, 1));
+        }
+
+        //when
+        List<Item> first = store.after(0, 3);
+        List<Item> rest = store.after(3L, 10);
+
+        //then
+        assertThat(first).extracting(Item::getId).containsExactly(1L, 3L, 5L);
+        assertThat(rest).extracting(Item::getId).containsExactly(5L, 40L, 1000L);
+    }
+
+    private static Item item(Long id, String itemName, Integer price, Integer quantity) {
+        Item item = new Item(itemName, price, quantity);
+        item.setId(id);
+        return item;
+    }
+}
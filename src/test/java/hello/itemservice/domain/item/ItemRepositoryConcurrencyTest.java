@@ -0,0 +1,152 @@
+package hello.itemservice.domain.item;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemRepositoryConcurrencyTest {
+
+    static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    static final int SAVES_PER_THREAD = 20_000;
+
+    ItemRepository itemRepository = new ItemRepository();
+
+    @AfterEach
+    void afterEach() {
+        itemRepository.clearStore();
+    }
+
+    @Test
+    void concurrentSaveHasNoLostWrites() throws Exception {
+        //given
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+
+        //when
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<Long> ids = new ArrayList<>(SAVES_PER_THREAD);
+                for (int i = 0; i < SAVES_PER_THREAD; i++) {
+                    ids.add(itemRepository.save(new Item("item", 10000, 10)).getId());
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+
+        Set<Long> ids = new HashSet<>();
+        for (Future<List<Long>> future : futures) {
+            ids.addAll(future.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+
+        //then - id는 겹치지도 건너뛰지도 않는다. (1 ~ 전체 저장 수)
+        assertThat(ids).hasSize(THREADS * SAVES_PER_THREAD);
+        assertThat(Collections.min(ids)).isEqualTo(1L);
+        assertThat(Collections.max(ids)).isEqualTo((long) THREADS * SAVES_PER_THREAD);
+        assertThat(itemRepository.findAll()).hasSize(THREADS * SAVES_PER_THREAD);
+        for (Long id : ids) {
+            assertThat(itemRepository.findById(id)).isNotNull();
+        }
+    }
+
+    @Test
+    void concurrentUpdateNeverExposesHalfAppliedItem() throws Exception {
+        //given
+        Item savedItem = itemRepository.save(new Item("item0", 1000, 0));
+        Long itemId = savedItem.getId();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+
+        //when - 쓰는 쓰레드는 이름, 가격, 수량을 항상 같은 숫자로 맞춰서 수정한다.
+        for (int t = 0; t < THREADS / 2; t++) {
+            int writer = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 1; i <= SAVES_PER_THREAD; i++) {
+                    int value = writer * SAVES_PER_THREAD + i;
+                    itemRepository.update(itemId, new Item("item" + value, 1000 + value, value));
+                }
+                return true;
+            }));
+        }
+        // 읽는 쓰레드는 세 값이 서로 어긋난 상태를 한번이라도 보면 실패한다.
+        for (int t = THREADS / 2; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < SAVES_PER_THREAD; i++) {
+                    Item item = itemRepository.findById(itemId);
+                    int quantity = item.getQuantity();
+                    if (item.getPrice() != 1000 + quantity || !item.getItemName().equals("item" + quantity)) {
+                        return false;
+                    }
+                }
+                return true;
+            }));
+        }
+        start.countDown();
+
+        //then
+        for (Future<Boolean> future : futures) {
+            assertThat(future.get(1, TimeUnit.MINUTES)).isTrue();
+        }
+        executor.shutdown();
+        assertThat(itemRepository.findById(itemId).getId()).isEqualTo(itemId);
+    }
+
+    @Test
+    void concurrentUpdateWithSameVersionHasOneWinner() throws Exception {
+        //given
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        int rounds = 1_000;
+        int winners = 0;
+
+        //when - 라운드마다 모든 쓰레드가 같은 버전을 기대하고 동시에 수정한다.
+        for (int round = 0; round < rounds; round++) {
+            Long itemId = itemRepository.save(new Item("item", 1000, 0)).getId();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int writer = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        itemRepository.update(itemId, new Item("item" + writer, 1000, writer), 0L);
+                        return true;
+                    } catch (ItemVersionConflictException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int roundWinners = 0;
+            for (Future<Boolean> future : futures) {
+                if (future.get(1, TimeUnit.MINUTES)) {
+                    roundWinners++;
+                }
+            }
+            //then
+            assertThat(roundWinners).isEqualTo(1);
+            assertThat(itemRepository.findById(itemId).getVersion()).isEqualTo(1L);
+            winners += roundWinners;
+        }
+        executor.shutdown();
+        assertThat(winners).isEqualTo(rounds);
+    }
+}
@@ -3,6 +3,8 @@ package hello.itemservice.domain.item;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -65,4 +67,149 @@ class ItemRepositoryTest {
         assertThat(findItem.getPrice()).isEqualTo(updateParam.getPrice());
         assertThat(findItem.getQuantity()).isEqualTo(updateParam.getQuantity());
     }
+
+    @Test
+    void updateIncrementsVersion() {
+        //given
+        Item savedItem = itemRepository.save(new Item("item1", 10000, 10));
+        Long itemId = savedItem.getId();
+
+        //when
+        Item updatedItem = itemRepository.update(itemId, new Item("item2", 20000, 30), 0L);
+        itemRepository.update(itemId, new Item("item3", 30000, 30));
+
+        //then
+        assertThat(savedItem.getVersion()).isEqualTo(0L);
+        assertThat(updatedItem.getVersion()).isEqualTo(1L);
+        assertThat(itemRepository.findById(itemId).getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void updateWithStaleVersionFails() {
+        //given
+        Long itemId = itemRepository.save(new Item("item1", 10000, 10)).getId();
+        itemRepository.update(itemId, new Item("item2", 20000, 20), 0L);
+
+        //when
+        Throwable thrown = catchThrowable(() -> itemRepository.update(itemId, new Item("item3", 30000, 30), 0L));
+
+        //then
+        assertThat(thrown).isInstanceOf(ItemVersionConflictException.class);
+        ItemVersionConflictException conflict = (ItemVersionConflictException) thrown;
+        assertThat(conflict.getExpectedVersion()).isEqualTo(0L);
+        assertThat(conflict.getCurrentVersion()).isEqualTo(1L);
+        assertThat(itemRepository.findById(itemId).getItemName()).isEqualTo("item2");
+        assertThat(itemRepository.findByItemNamePrefix("item3")).isEmpty();
+    }
+
+    @Test
+    void findByItemNamePrefix() {
+        //given
+        Item item1 = itemRepository.save(new Item("apple", 10000, 10));
+        Item item2 = itemRepository.save(new Item("apricot", 20000, 20));
+        itemRepository.save(new Item("banana", 30000, 30));
+
+        //when
+        List<Item> result = itemRepository.findByItemNamePrefix("ap");
+
+        //then
+        assertThat(result).containsExactly(item1, item2);
+    }
+
+    @Test
+    void findByItemNamePrefixWithAnyNextChar() {
+        //given - prefix 다음 글자가 U+FFFF이거나 보조 문자(surrogate pair)인 상품명
+        Item item1 = itemRepository.save(new Item("ap\uFFFF", 10000, 10));
+        Item item2 = itemRepository.save(new Item("ap\uD83C\uDF4E", 20000, 20));
+        Item item3 = itemRepository.save(new Item("ap\uFFFF\uFFFFz", 30000, 30));
+        itemRepository.save(new Item("aq", 40000, 40));
+
+        //when
+        List<Item> result = itemRepository.findByItemNamePrefix("ap");
+
+        //then
+        assertThat(result).containsExactly(item2, item1, item3);
+    }
+
+    @Test
+    void findByPriceBetween() {
+        //given
+        Item item1 = itemRepository.save(new Item("item1", 30000, 10));
+        Item item2 = itemRepository.save(new Item("item2", 10000, 20));
+        itemRepository.save(new Item("item3", 50000, 30));
+
+        //when
+        List<Item> result = itemRepository.findByPriceBetween(10000, 30000);
+
+        //then
+        assertThat(result).containsExactly(item2, item1);
+    }
+
+    @Test
+    void indexFollowsUpdate() {
+        //given
+        Item item = itemRepository.save(new Item("item1", 10000, 10));
+
+        //when
+        itemRepository.update(item.getId(), new Item("renamed", 20000, 500));
+
+        //then
+        assertThat(itemRepository.findByItemNamePrefix("item")).isEmpty();
+        assertThat(itemRepository.findByItemNamePrefix("ren")).extracting(Item::getId).containsExactly(item.getId());
+        assertThat(itemRepository.findByPriceBetween(10000, 10000)).isEmpty();
+        assertThat(itemRepository.findByQuantityBetween(100, 1000)).extracting(Item::getId).containsExactly(item.getId());
+    }
+
+    @Test
+    void findPage() {
+        //given
+        Item item1 = itemRepository.save(new Item("item1", 30000, 10));
+        Item item2 = itemRepository.save(new Item("item2", 10000, 20));
+        Item item3 = itemRepository.save(new Item("item3", 20000, 30));
+
+        //when
+        ItemPage first = itemRepository.findPage(ItemSort.PRICE, null, 2);
+        ItemPage second = itemRepository.findPage(ItemSort.PRICE, first.getNextCursor(), 2);
+
+        //then
+        assertThat(first.getItems()).containsExactly(item2, item3);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getItems()).containsExactly(item1);
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void findPageById() {
+        //given
+        Item item1 = itemRepository.save(new Item("item1", 30000, 10));
+        Item item2 = itemRepository.save(new Item("item2", 10000, 20));
+        Item item3 = itemRepository.save(new Item("item3", 20000, 30));
+
+        //when
+        ItemPage first = itemRepository.findPage(ItemSort.ID, null, 2);
+        ItemPage second = itemRepository.findPage(ItemSort.ID, first.getNextCursor(), 2);
+
+        //then
+        assertThat(first.getItems()).containsExactly(item1, item2);
+        assertThat(second.getItems()).containsExactly(item3);
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void findPageWithInvalidCursor() {
+        //given
+        itemRepository.save(new Item("item1", 30000, 10));
+        itemRepository.save(new Item("item2", 10000, 20));
+        String itemNameCursor = itemRepository.findPage(ItemSort.ITEM_NAME, null, 1).getNextCursor();
+        String noSeparator = Base64.getUrlEncoder().encodeToString("item1".getBytes(StandardCharsets.UTF_8));
+
+        //when, then
+        assertThatThrownBy(() -> itemRepository.findPage(ItemSort.ID, "%%%", 10))
+                .isInstanceOf(InvalidItemCursorException.class);
+        assertThatThrownBy(() -> itemRepository.findPage(ItemSort.ID, noSeparator, 10))
+                .isInstanceOf(InvalidItemCursorException.class);
+        // 상품명 정렬의 커서를 가격 정렬에 넘긴다.
+        assertThatThrownBy(() -> itemRepository.findPage(ItemSort.PRICE, itemNameCursor, 10))
+                .isInstanceOf(InvalidItemCursorException.class);
+    }
 }
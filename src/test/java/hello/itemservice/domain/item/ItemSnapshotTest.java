@@ -0,0 +1,133 @@
+package hello.itemservice.domain.item;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemSnapshotTest {
+
+    MapItemStore store = new MapItemStore();
+
+    @Test
+    void valuesIsNotChangedByLaterWrites() {
+        //given
+        store.compute(1L, oldItem -> item(1L, "itemA", 10000, 10));
+        store.compute(2L, oldItem -> item(2L, "itemB", 20000, 20));
+        List<Item> before = store.values();
+
+        //when
+        store.computeIfPresent(1L, oldItem -> item(1L, "itemA", 15000, 10));
+        store.compute(3L, oldItem -> item(3L, "itemC", 30000, 30));
+
+        //then
+        assertThat(before).extracting("price").containsExactly(10000, 20000);
+        assertThat(store.values()).extracting("price").containsExactly(15000, 20000, 30000);
+        assertThatThrownBy(() -> before.add(item(4L, "itemD", 1, 1)))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void idsWithGaps() {
+        //given
+        long[] ids = {40_000L, 3L, 1_100L, 1L};
+
+        //when
+        for (long id : ids) {
+            store.compute(id, oldItem -> item(id, "item" + id, 1000, 1));
+        }
+
+        //then
+        List<Item> values = store.values();
+        assertThat(values).extracting("id").containsExactly(1L, 3L, 1_100L, 40_000L);
+        assertThat(values.get(2).getId()).isEqualTo(1_100L);
+        assertThat(new ArrayList<>(values)).isEqualTo(values);
+    }
+
+    @Test
+    void afterSkipsGaps() {
+        //given
+        for (long id : new long[]{40_000L, 3L, 1_100L, 1L}) {
+            store.compute(id, oldItem -> item(id, "item" + id, 1000, 1));
+        }
+
+        //when
+        List<Item> first = store.after(0, 2);
+        List<Item> rest = store.after(3L, 10);
+
+        //then
+        assertThat(first).extracting("id").containsExactly(1L, 3L);
+        assertThat(rest).extracting("id").containsExactly(1_100L, 40_000L);
+        assertThat(store.after(40_000L, 10)).isEmpty();
+    }
+
+    @Test
+    void getWithGapsWalksCounts() {
+        //given - 1 ~ 2000 중 짝수 id만 있다.
+        for (long id = 2; id <= 2000; id += 2) {
+            long itemId = id;
+            store.compute(itemId, oldItem -> item(itemId, "item" + itemId, 1000, 1));
+        }
+
+        //when
+        List<Item> values = store.values();
+
+        //then
+        assertThat(values).hasSize(1000);
+        assertThat(values.get(0).getId()).isEqualTo(2L);
+        assertThat(values.get(499).getId()).isEqualTo(1000L);
+        assertThat(values.get(999).getId()).isEqualTo(2000L);
+        assertThat(values.subList(10, 13)).extracting("id").containsExactly(22L, 24L, 26L);
+    }
+
+    @Test
+    void concurrentWritersAreAllPublished() throws Exception {
+        //given
+        int threads = 8;
+        int perThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when - 쓰레드마다 다른 id를 저장하고, 저장이 끝나면 바로 목록에 보여야 한다.
+        for (int t = 0; t < threads; t++) {
+            long base = t * 10_000L;
+            futures.add(executor.submit(() -> {
+                for (long id = base + 1; id <= base + perThread; id++) {
+                    long itemId = id;
+                    store.compute(itemId, oldItem -> item(itemId, "item" + itemId, 1000, 1));
+                    assertThat(((ItemSnapshot) store.values()).find(itemId)).isNotNull();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        //then
+        assertThat(store.values()).hasSize(threads * perThread);
+    }
+
+    @Test
+    void clear() {
+        //given
+        store.compute(1L, oldItem -> item(1L, "itemA", 10000, 10));
+
+        //when
+        store.clear();
+
+        //then
+        assertThat(store.values()).isEmpty();
+    }
+
+    private static Item item(Long id, String itemName, Integer price, Integer quantity) {
+        Item item = new Item(itemName, price, quantity);
+        item.setId(id);
+        return item;
+    }
+}
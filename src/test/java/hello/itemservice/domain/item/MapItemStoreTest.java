@@ -0,0 +1,49 @@
+package hello.itemservice.domain.item;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MapItemStoreTest {
+
+    MapItemStore store = new MapItemStore();
+
+    @Test
+    void unchangedItemKeepsSnapshot() {
+        //given
+        Item itemA = item(1L, "itemA", 10000, 10);
+        store.compute(1L, oldItem -> itemA);
+        List<Item> before = store.values();
+
+        //when - 버전이 맞지 않아서 기존 상품을 그대로 돌려준 경우
+        store.computeIfPresent(1L, oldItem -> oldItem);
+
+        //then
+        assertThat(store.values()).isSameAs(before);
+        assertThat(store.get(1L)).isSameAs(itemA);
+    }
+
+    @Test
+    void changedItemIsInNextSnapshot() {
+        //given
+        Item itemA = item(1L, "itemA", 10000, 10);
+        store.compute(1L, oldItem -> itemA);
+        List<Item> before = store.values();
+
+        //when
+        Item updated = item(1L, "itemA", 20000, 10);
+        store.computeIfPresent(1L, oldItem -> updated);
+
+        //then
+        assertThat(before).containsExactly(itemA);
+        assertThat(store.values()).containsExactly(updated);
+    }
+
+    private static Item item(Long id, String itemName, Integer price, Integer quantity) {
+        Item item = new Item(itemName, price, quantity);
+        item.setId(id);
+        return item;
+    }
+}
@@ -0,0 +1,160 @@
+package hello.itemservice.domain.item.cache;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemReadCacheTest {
+
+    AtomicLong loads = new AtomicLong();
+
+    @Test
+    void loadsOnceThenHits() {
+        //given
+        ItemReadCache cache = new ItemReadCache(160, Duration.ZERO, 0);
+
+        //when
+        Item first = cache.get(1L, this::load);
+        Item second = cache.get(1L, this::load);
+
+        //then
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+    }
+
+    @Test
+    void scanDoesNotEvictHotItems() {
+        //given - 자주 읽는 상품은 두 번 읽어서 protected로 올린다.
+        ItemReadCache cache = new ItemReadCache(1600, Duration.ZERO, 0);
+        for (long id = 1; id <= 100; id++) {
+            cache.get(id, this::load);
+            cache.get(id, this::load);
+        }
+
+        //when - 한 번씩만 읽는 상품들이 캐시 크기보다 훨씬 많이 지나간다.
+        for (long id = 1_000; id < 11_000; id++) {
+            cache.get(id, this::load);
+        }
+        loads.set(0);
+        for (long id = 1; id <= 100; id++) {
+            cache.get(id, this::load);
+        }
+
+        //then
+        assertThat(loads).hasValue(0);
+        assertThat((long) cache.stats().get("evictions")).isGreaterThan(8_000L);
+    }
+
+    @Test
+    void expiresAfterTtl() {
+        //given
+        AtomicLong now = new AtomicLong();
+        ItemReadCache cache = new ItemReadCache(160, Duration.ofSeconds(10), 0, now::get);
+        cache.get(1L, this::load);
+
+        //when
+        now.addAndGet(Duration.ofSeconds(9).toNanos());
+        cache.get(1L, this::load);
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        cache.get(1L, this::load);
+
+        //then
+        assertThat(loads).hasValue(2);
+        assertThat(cache.stats()).containsEntry("expirations", 1L);
+    }
+
+    @Test
+    void loadDuringInvalidateIsNotCached() {
+        //given - 읽어오는 도중에 다른 쓰레드가 수정하고 캐시를 지운다.
+        ItemReadCache cache = new ItemReadCache(160, Duration.ZERO, 0);
+
+        //when
+        cache.get(1L, id -> {
+            Item stale = load(id);
+            cache.invalidate(id);
+            return stale;
+        });
+        cache.get(1L, this::load);
+
+        //then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void invalidateOfOtherItemsDoesNotDropLoad() {
+        //given - 읽어오는 도중에 다른 상품들(같은 shard 포함)이 수정된다.
+        ItemReadCache cache = new ItemReadCache(160, Duration.ZERO, 0);
+
+        //when
+        cache.get(1L, id -> {
+            for (long other = 2; other <= 100; other++) {
+                cache.invalidate(other);
+            }
+            return load(id);
+        });
+        cache.get(1L, this::load);
+
+        //then
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void evictedItemsMoveToOffHeap() {
+        //given - 힙에는 shard마다 1개, off-heap에는 shard마다 64개
+        ItemReadCache cache = new ItemReadCache(16, Duration.ZERO, 16 * 64 * OffHeapItemTier.SLOT_SIZE);
+        for (long id = 1; id <= 200; id++) {
+            cache.get(id, this::load);
+        }
+        Item withNulls = new Item(null, null, 5);
+        withNulls.setId(201L);
+        cache.get(201L, id -> withNulls);
+        for (long id = 202; id <= 300; id++) {
+            cache.get(id, this::load);
+        }
+
+        //when
+        loads.set(0);
+        Item found = cache.get(7L, this::load);
+        Item foundWithNulls = cache.get(201L, this::load);
+
+        //then
+        assertThat(loads).hasValue(0);
+        assertThat(found).isEqualTo(load(7L));
+        assertThat(foundWithNulls).isEqualTo(withNulls);
+        assertThat((long) cache.stats().get("offHeapHits")).isEqualTo(2L);
+    }
+
+    @Test
+    void repositoryInvalidatesOnUpdate() {
+        //given
+        ItemRepository itemRepository = new ItemRepository();
+        ItemReadCache cache = new ItemReadCache(160, Duration.ZERO, 0);
+        itemRepository.setReadCache(cache);
+        Long itemId = itemRepository.save(new Item("itemA", 10000, 10)).getId();
+        itemRepository.findById(itemId);
+
+        //when
+        itemRepository.update(itemId, new Item("itemB", 20000, 20));
+        Item found = itemRepository.findById(itemId);
+
+        //then
+        assertThat(found.getItemName()).isEqualTo("itemB");
+        assertThat(found.getVersion()).isEqualTo(1L);
+        assertThat(itemRepository.findById(itemId)).isSameAs(found);
+        assertThat(cache.stats()).containsEntry("hits", 1L);
+    }
+
+    private Item load(long id) {
+        loads.incrementAndGet();
+        Item item = new Item("item" + id, 1000, (int) id);
+        item.setId(id);
+        item.setVersion(0L);
+        return item;
+    }
+}
@@ -0,0 +1,254 @@
+package hello.itemservice.domain.item.change;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemChangeStreamTest {
+
+    ItemChangeStream changeStream = new ItemChangeStream(1024);
+    ItemRepository itemRepository = new ItemRepository();
+
+    {
+        itemRepository.setChangeStream(changeStream);
+    }
+
+    @AfterEach
+    void afterEach() {
+        changeStream.close();
+    }
+
+    @Test
+    void savesAndUpdatesArriveInOrder() throws InterruptedException {
+        //given
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE, 3);
+        changeStream.subscribe(subscriber);
+
+        //when
+        Item itemA = itemRepository.save(new Item("itemA", 10000, 10));
+        itemRepository.save(new Item("itemB", 20000, 20));
+        itemRepository.update(itemA.getId(), new Item("itemA2", 15000, 10));
+
+        //then
+        assertThat(subscriber.await()).isTrue();
+        assertThat(subscriber.changes).extracting("sequence").containsExactly(1L, 2L, 3L);
+        assertThat(subscriber.changes).extracting("type")
+                .containsExactly(ItemChange.Type.SAVE, ItemChange.Type.SAVE, ItemChange.Type.UPDATE);
+        assertThat(subscriber.changes.get(2).getItem().getItemName()).isEqualTo("itemA2");
+        assertThat(subscriber.changes.get(2).getItem().getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void resumeAfterSequence() throws InterruptedException {
+        //given
+        for (int i = 1; i <= 5; i++) {
+            itemRepository.save(new Item("item" + i, 10000, i));
+        }
+
+        //when
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE, 2);
+        changeStream.subscribe(subscriber, 3);
+
+        //then
+        assertThat(subscriber.await()).isTrue();
+        assertThat(subscriber.changes).extracting("sequence").containsExactly(4L, 5L);
+    }
+
+    @Test
+    void subscriberBehindBufferGetsGap() throws InterruptedException {
+        //given
+        ItemChangeStream smallStream = new ItemChangeStream(8);
+        itemRepository.setChangeStream(smallStream);
+        for (int i = 1; i <= 20; i++) {
+            itemRepository.save(new Item("item" + i, 10000, i));
+        }
+
+        //when
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE, 1);
+        smallStream.subscribe(subscriber, 0);
+
+        //then
+        assertThat(subscriber.await()).isTrue();
+        assertThat(subscriber.error).isInstanceOf(ItemChangeGapException.class);
+        assertThat(((ItemChangeGapException) subscriber.error).getOldestSequence()).isEqualTo(13L);
+        smallStream.close();
+    }
+
+    @Test
+    void deliversOnlyRequested() throws InterruptedException {
+        //given
+        CollectingSubscriber subscriber = new CollectingSubscriber(2, 2);
+        changeStream.subscribe(subscriber);
+
+        //when
+        for (int i = 1; i <= 5; i++) {
+            itemRepository.save(new Item("item" + i, 10000, i));
+        }
+
+        //then
+        assertThat(subscriber.await()).isTrue();
+        Thread.sleep(50);
+        assertThat(subscriber.changes).hasSize(2);
+        assertThat(changeStream.stats().get("subscribers")).asList().hasSize(1);
+    }
+
+    @Test
+    void replicaFollowsRepository() throws Exception {
+        //given
+        for (int i = 1; i <= 100; i++) {
+            itemRepository.save(new Item("item" + i, 10000, i));
+        }
+        ItemCatalogReplica replica = new ItemCatalogReplica(itemRepository, changeStream);
+        replica.start();
+
+        //when
+        for (long id = 1; id <= 100; id++) {
+            itemRepository.update(id, new Item("updated" + id, 20000, (int) id));
+        }
+        itemRepository.save(new Item("item101", 10000, 101));
+
+        //then
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (replica.getLastSequence() < changeStream.lastSequence() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(replica.size()).isEqualTo(101);
+        assertThat(replica.findById(1L).getItemName()).isEqualTo("updated1");
+        assertThat(replica.findById(1L).getVersion()).isEqualTo(1L);
+        replica.stop();
+    }
+
+    @Test
+    void replicaReceivesChangeNotYetVisibleInStore() throws Exception {
+        //given - compute 안에서 번호는 받았지만 아직 store에는 보이지 않는 저장
+        Item item = new Item("itemA", 10000, 10);
+        item.setId(1L);
+        item.setVersion(0L);
+        changeStream.append(ItemChange.Type.SAVE, item);
+
+        //when
+        ItemCatalogReplica replica = new ItemCatalogReplica(itemRepository, changeStream);
+        replica.start();
+        changeStream.signal();
+
+        //then
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (replica.findById(1L) == null && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(replica.findById(1L)).isSameAs(item);
+        replica.stop();
+    }
+
+    @Test
+    void concurrentWritersDeliverEveryChange() throws Exception {
+        //given
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int savesPerThread = 50_000;
+        long total = (long) threads * savesPerThread;
+        // 구독자가 뒤처져도 버퍼에서 밀려나지 않을 만큼 잡는다.
+        ItemChangeStream stream = new ItemChangeStream(Integer.highestOneBit((int) total) << 1);
+        itemRepository.setChangeStream(stream);
+        CollectingSubscriber subscriber = new CollectingSubscriber(1024, total);
+        subscriber.keepChanges = false;
+        stream.subscribe(subscriber);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < savesPerThread; i++) {
+                    itemRepository.save(new Item("item", 10000, i));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        boolean received = subscriber.await();
+        executor.shutdown();
+        stream.close();
+
+        //then
+        assertThat(received).isTrue();
+        assertThat(subscriber.error).isNull();
+        assertThat(subscriber.count).isEqualTo(total);
+        assertThat(subscriber.lastSequence).isEqualTo(total);
+    }
+
+    /**
+     * request 만큼 요청하고, 받은 만큼 다시 요청한다. (request가 Long.MAX_VALUE가 아니면)
+     * expected개를 받거나 에러가 나면 await()가 풀린다.
+     */
+    static class CollectingSubscriber implements Flow.Subscriber<ItemChange> {
+
+        final long request;
+        final long expected;
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<ItemChange> changes = new ArrayList<>();
+        boolean keepChanges = true;
+        Flow.Subscription subscription;
+        long count;
+        long lastSequence;
+        boolean ordered = true;
+        volatile Throwable error;
+
+        CollectingSubscriber(long request, long expected) {
+            this.request = request;
+            this.expected = expected;
+        }
+
+        boolean await() throws InterruptedException {
+            return done.await(1, TimeUnit.MINUTES) && ordered;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(request);
+        }
+
+        @Override
+        public void onNext(ItemChange change) {
+            ordered &= change.getSequence() > lastSequence;
+            lastSequence = change.getSequence();
+            if (keepChanges) {
+                changes.add(change);
+            }
+            if (++count == expected) {
+                done.countDown();
+            }
+            if (request != Long.MAX_VALUE && count % request == 0 && count < expected) {
+                subscription.request(request);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
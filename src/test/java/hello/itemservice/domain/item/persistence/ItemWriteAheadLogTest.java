@@ -0,0 +1,193 @@
+package hello.itemservice.domain.item.persistence;
+
+import hello.itemservice.domain.item.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoverAfterRestart() {
+        //given
+        ItemWriteAheadLog log = open(new ConcurrentHashMap<>());
+        log.append(item(1L, "itemA", 10000, 10));
+        log.append(item(2L, null, null, 20));
+        log.awaitDurable(log.append(item(1L, "itemA", 15000, 5)));
+        log.close();
+
+        //when
+        Map<Long, Item> items = new ConcurrentHashMap<>();
+        open(items).close();
+
+        //then
+        assertThat(items).hasSize(2);
+        assertThat(items.get(1L)).isEqualTo(item(1L, "itemA", 15000, 5));
+        assertThat(items.get(2L)).isEqualTo(item(2L, null, null, 20));
+    }
+
+    @Test
+    void versionIsRecovered() {
+        //given
+        ItemWriteAheadLog log = open(new ConcurrentHashMap<>());
+        Item versioned = item(1L, "itemA", 10000, 10);
+        versioned.setVersion(3L);
+        log.append(versioned);
+        log.awaitDurable(log.append(item(2L, "itemB", 20000, 20)));
+        log.close();
+
+        //when
+        Map<Long, Item> items = new ConcurrentHashMap<>();
+        open(items).close();
+
+        //then
+        assertThat(items.get(1L).getVersion()).isEqualTo(3L);
+        assertThat(items.get(2L).getVersion()).isNull();
+    }
+
+    @Test
+    void decodeFormatWithoutVersion() {
+        //given - version이 생기기 전(형식 1)의 레코드
+        byte[] name = "itemA".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(1 + 8 + 1 + 4 + 4 + 4 + name.length);
+        body.put((byte) 1).putLong(7L).put((byte) 0).putInt(10000).putInt(10).putInt(name.length).put(name);
+        body.flip();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer record = ByteBuffer.allocate(ItemLogFormat.HEADER_SIZE + body.remaining());
+        record.putInt(body.remaining()).putInt((int) crc.getValue()).put(body);
+        record.flip();
+
+        //when
+        Item item = ItemLogFormat.decode(record);
+
+        //then
+        assertThat(item).isEqualTo(item(7L, "itemA", 10000, 10));
+        assertThat(item.getVersion()).isNull();
+    }
+
+    @Test
+    void whenDurableCompletesAfterGroupCommit() throws InterruptedException, ExecutionException, TimeoutException {
+        //given
+        ItemWriteAheadLog log = open(new ConcurrentHashMap<>());
+        long position = log.append(item(1L, "itemA", 10000, 10));
+
+        //when
+        CompletableFuture<Void> durable = log.whenDurable(position);
+        durable.get(1, TimeUnit.SECONDS);
+        CompletableFuture<Void> afterClose = log.whenDurable(position);
+        log.close();
+        CompletableFuture<Void> notWritten = log.whenDurable(position + 1);
+
+        //then
+        assertThat(afterClose).isCompleted();
+        assertThat(notWritten).isCompletedExceptionally();
+    }
+
+    @Test
+    void snapshotReplacesSegments() throws IOException {
+        //given
+        ItemWriteAheadLog log = open(new ConcurrentHashMap<>());
+        for (long id = 1; id <= 100; id++) {
+            log.append(item(id, "item" + id, 1000, 1));
+        }
+        log.append(item(1L, "item1", 2000, 2));
+
+        //when
+        log.snapshot();
+        log.awaitDurable(log.append(item(101L, "item101", 1000, 1)));
+        log.close();
+
+        //then
+        assertThat(fileNames()).filteredOn(name -> name.startsWith("snapshot-")).hasSize(1);
+        Map<Long, Item> items = new ConcurrentHashMap<>();
+        open(items).close();
+        assertThat(items).hasSize(101);
+        assertThat(items.get(1L).getPrice()).isEqualTo(2000);
+    }
+
+    @Test
+    void appendRollsOverFullSegments() throws IOException {
+        //given - 64KB 세그먼트 여러개를 채울 만큼 쓴다.
+        ItemWriteAheadLog log = open(new ConcurrentHashMap<>());
+        long last = 0;
+        for (long id = 1; id <= 5000; id++) {
+            last = log.append(item(id, "item" + id, 1000, 1));
+        }
+        log.awaitDurable(last);
+        log.close();
+
+        //when
+        Map<Long, Item> items = new ConcurrentHashMap<>();
+        open(items).close();
+
+        //then
+        assertThat(fileNames()).filteredOn(name -> name.startsWith("wal-")).hasSizeGreaterThan(2);
+        assertThat(items).hasSize(5000);
+        assertThat(items.get(5000L)).isEqualTo(item(5000L, "item5000", 1000, 1));
+    }
+
+    @Test
+    void truncatedRecordIsIgnored() throws IOException {
+        //given
+        ItemWriteAheadLog log = open(new ConcurrentHashMap<>());
+        log.append(item(1L, "itemA", 10000, 10));
+        log.awaitDurable(log.append(item(2L, "itemB", 20000, 20)));
+        log.close();
+
+        // 두번째 레코드를 쓰다가 죽은 것처럼 마지막 바이트를 망가뜨린다.
+        Path segment = directory.resolve(fileNames().get(0));
+        int recordSize = ItemLogFormat.encode(item(1L, "itemA", 10000, 10)).length;
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(recordSize * 2L - 1);
+            file.write(0x7f);
+        }
+
+        //when
+        Map<Long, Item> items = new ConcurrentHashMap<>();
+        open(items).close();
+
+        //then
+        assertThat(items).containsOnlyKeys(1L);
+    }
+
+    private ItemWriteAheadLog open(Map<Long, Item> items) {
+        ItemWriteAheadLog log = new ItemWriteAheadLog(directory, 64 * 1024, Duration.ofMillis(1), Duration.ZERO);
+        log.recover(item -> items.put(item.getId(), item));
+        return log;
+    }
+
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static Item item(Long id, String itemName, Integer price, Integer quantity) {
+        Item item = new Item(itemName, price, quantity);
+        item.setId(id);
+        return item;
+    }
+}
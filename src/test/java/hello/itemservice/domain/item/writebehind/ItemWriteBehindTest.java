@@ -0,0 +1,224 @@
+package hello.itemservice.domain.item.writebehind;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemJournal;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.domain.item.ItemVersionConflictException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemWriteBehindTest {
+
+    @Test
+    void ringBuffer() {
+        //given
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+
+        //when
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        boolean offeredWhenFull = buffer.offer(4);
+
+        //then
+        assertThat(offeredWhenFull).isFalse();
+        assertThat(buffer.poll()).isEqualTo(0);
+        assertThat(buffer.offer(4)).isTrue();
+        assertThat(List.of(buffer.poll(), buffer.poll(), buffer.poll(), buffer.poll())).containsExactly(1, 2, 3, 4);
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test
+    void readYourWrites() {
+        //given
+        ItemRepository itemRepository = new ItemRepository();
+        ItemWriteBehind writeBehind = new ItemWriteBehind(itemRepository, true, 1024, 64);
+
+        //when
+        Item saved = writeBehind.save(new Item("itemA", 10000, 10));
+        writeBehind.update(saved.getId(), new Item("itemB", 20000, 20));
+        Item found = writeBehind.findById(saved.getId());
+        writeBehind.close();
+
+        //then
+        assertThat(found.getItemName()).isEqualTo("itemB");
+        assertThat(itemRepository.findById(saved.getId()).getItemName()).isEqualTo("itemB");
+        assertThat(writeBehind.stats()).containsEntry("pending", 0).containsEntry("enqueued", 2L);
+    }
+
+    @Test
+    void backpressureKeepsEveryWrite() throws Exception {
+        //given
+        ItemRepository itemRepository = new ItemRepository();
+        ItemWriteBehind writeBehind = new ItemWriteBehind(itemRepository, true, 8, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        //when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    Item item = writeBehind.save(new Item("item", 10000, i));
+                    writeBehind.update(item.getId(), new Item("updated", 10000, i));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        writeBehind.close();
+
+        //then
+        assertThat(itemRepository.findAll()).hasSize(8000)
+                .extracting(Item::getItemName).containsOnly("updated");
+    }
+
+    @Test
+    void failedBatchIsRetried() {
+        //given - 로그 기록이 처음 3번은 실패한다.
+        ItemRepository itemRepository = new ItemRepository();
+        AtomicInteger failures = new AtomicInteger(3);
+        itemRepository.setJournal(new TestJournal(item -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+        }));
+        ItemWriteBehind writeBehind = new ItemWriteBehind(itemRepository, true, 1024, 64);
+
+        //when
+        Item saved = writeBehind.save(new Item("itemA", 10000, 10));
+        Item foundWhileFailing = writeBehind.findById(saved.getId());
+        writeBehind.close();
+
+        //then
+        assertThat(foundWhileFailing).isSameAs(saved);
+        assertThat(itemRepository.findById(saved.getId())).isEqualTo(saved);
+        assertThat(writeBehind.stats()).containsEntry("pending", 0).containsEntry("retrying", false);
+        assertThat((long) writeBehind.stats().get("failed")).isGreaterThan(0L);
+    }
+
+    @Test
+    void queuedUpdateDoesNotOverwriteNewerUpdate() throws InterruptedException {
+        //given - writer가 다른 상품을 쓰다가 멈춰있는 동안
+        ItemRepository itemRepository = new ItemRepository();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        itemRepository.setJournal(new TestJournal(item -> {
+            if (Thread.currentThread().getName().equals("item-write-behind") && item.getItemName().equals("other")) {
+                writing.countDown();
+                awaitQuietly(release);
+            }
+        }));
+        ItemWriteBehind writeBehind = new ItemWriteBehind(itemRepository, true, 1024, 64);
+        Long itemId = itemRepository.save(new Item("itemA", 10000, 10)).getId();
+        writeBehind.save(new Item("other", 10000, 10));
+        writing.await();
+
+        //when - V4 수정이 큐에 들어간 뒤, 같은 버전에서 시작한 다른 수정이 먼저 저장된다.
+        writeBehind.update(itemId, new Item("fromV4", 20000, 20), 0L);
+        itemRepository.update(itemId, new Item("fromV1", 30000, 30), 0L);
+        release.countDown();
+        writeBehind.close();
+
+        //then
+        Item found = itemRepository.findById(itemId);
+        assertThat(found.getItemName()).isEqualTo("fromV1");
+        assertThat(found.getVersion()).isEqualTo(1L);
+        assertThat(writeBehind.findById(itemId)).isEqualTo(found);
+        assertThat(writeBehind.stats()).containsEntry("conflicts", 1L);
+    }
+
+    @Test
+    void updatesThroughWriteBehindAreNotDropped() throws InterruptedException {
+        //given - writer가 다른 상품을 쓰다가 멈춰있는 동안
+        ItemRepository itemRepository = new ItemRepository();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        itemRepository.setJournal(new TestJournal(item -> {
+            if (Thread.currentThread().getName().equals("item-write-behind") && item.getItemName().equals("other")) {
+                writing.countDown();
+                awaitQuietly(release);
+            }
+        }));
+        ItemWriteBehind writeBehind = new ItemWriteBehind(itemRepository, true, 1024, 64);
+        Long itemId = itemRepository.save(new Item("itemA", 10000, 10)).getId();
+        writeBehind.save(new Item("other", 10000, 10));
+        writing.await();
+
+        //when - V4 수정이 큐에 들어간 뒤 V1~V3의 수정도 ItemWriteBehind를 거친다.
+        writeBehind.update(itemId, new Item("fromV4", 20000, 20), 0L);
+        writeBehind.update(itemId, new Item("fromV1", 30000, 30));
+        Throwable staleV4 = catchThrowable(() -> writeBehind.update(itemId, new Item("staleV4", 40000, 40), 0L));
+        release.countDown();
+        writeBehind.close();
+
+        //then - 버전이 맞지 않는 수정은 요청한 쪽에 충돌로 알려주고, 받아들인 수정은 순서대로 모두 쓴다.
+        assertThat(staleV4).isInstanceOf(ItemVersionConflictException.class);
+        Item found = itemRepository.findById(itemId);
+        assertThat(found.getItemName()).isEqualTo("fromV1");
+        assertThat(found.getVersion()).isEqualTo(2L);
+        assertThat(writeBehind.stats()).containsEntry("conflicts", 0L);
+    }
+
+    @Test
+    void disabledWritesThrough() {
+        //given
+        ItemRepository itemRepository = new ItemRepository();
+        ItemWriteBehind writeBehind = new ItemWriteBehind(itemRepository, false, 1024, 64);
+
+        //when
+        Item saved = writeBehind.save(new Item("itemA", 10000, 10));
+
+        //then
+        assertThat(itemRepository.findById(saved.getId())).isSameAs(saved);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * append마다 onAppend를 호출하고, 기록은 바로 끝난 것으로 본다.
+     */
+    static class TestJournal implements ItemJournal {
+
+        final Consumer<Item> onAppend;
+        final AtomicLong position = new AtomicLong();
+
+        TestJournal(Consumer<Item> onAppend) {
+            this.onAppend = onAppend;
+        }
+
+        @Override
+        public void recover(Consumer<Item> restore) {
+        }
+
+        @Override
+        public long append(Item item) {
+            onAppend.accept(item);
+            return position.incrementAndGet();
+        }
+
+        @Override
+        public void awaitDurable(long position) {
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package hello.itemservice.message;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.context.support.ResourceBundleMessageSource;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CachingMessageSourceTest {
+
+    CachingMessageSource ms = new CachingMessageSource(bundles(), -1, false);
+
+    @Test
+    void resolvesMostSpecificCodeOnce() {
+        DefaultMessageSourceResolvable error = new DefaultMessageSourceResolvable(
+                new String[]{"range.item.price", "range.price", "range.java.lang.Integer", "range"},
+                new Object[]{1000, 1000000});
+
+        String first = ms.getMessage(error, Locale.KOREA);
+        String second = ms.getMessage(error, Locale.KOREA);
+
+        assertThat(first).isEqualTo("가격은 1,000 ~ 1,000,000 까지 허용합니다.");
+        assertThat(second).isEqualTo(first);
+        assertThat(ms.getMissCount()).isEqualTo(1);
+        assertThat(ms.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void fallsBackToGenericCode() {
+        DefaultMessageSourceResolvable error = new DefaultMessageSourceResolvable(
+                new String[]{"max.item.price", "max.price", "max"}, new Object[]{9999});
+
+        assertThat(ms.getMessage(error, Locale.KOREA)).isEqualTo("9,999 까지 허용합니다.");
+    }
+
+    @Test
+    void resolvableArgument() {
+        // Bean Validation 에러처럼 {0}에 필드명을 담은 MessageSourceResolvable이 들어오는 경우
+        DefaultMessageSourceResolvable field = new DefaultMessageSourceResolvable(
+                new String[]{"item.quantity", "quantity"}, "quantity");
+        DefaultMessageSourceResolvable error = new DefaultMessageSourceResolvable(
+                new String[]{"Max"}, new Object[]{field, 9999L});
+
+        assertThat(ms.getMessage(error, Locale.KOREA)).isEqualTo("quantity, 최대 9,999");
+    }
+
+    @Test
+    void notFoundUsesDefaultMessage() {
+        DefaultMessageSourceResolvable error = new DefaultMessageSourceResolvable(
+                new String[]{"no_code"}, null, "기본 메시지");
+
+        assertThat(ms.getMessage(error, Locale.KOREA)).isEqualTo("기본 메시지");
+        assertThatThrownBy(() -> ms.getMessage("no_code", null, Locale.KOREA))
+                .isInstanceOf(NoSuchMessageException.class);
+    }
+
+    @Test
+    void notFoundIsCached() {
+        DefaultMessageSourceResolvable error = new DefaultMessageSourceResolvable(
+                new String[]{"no_code.item.price", "no_code"}, null, "기본 메시지");
+
+        ms.getMessage(error, Locale.KOREA);
+        String second = ms.getMessage(error, Locale.KOREA);
+
+        assertThat(second).isEqualTo("기본 메시지");
+        assertThat(ms.getMissCount()).isEqualTo(1);
+        assertThat(ms.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cachesBoundedNumberOfLocales() {
+        for (int i = 0; i < 1000; i++) {
+            assertThat(ms.getMessage("hello", null, new Locale("x" + i, "ZZ"))).isEqualTo("안녕");
+        }
+
+        assertThat(ms.getCacheSize()).isLessThan(1000);
+        assertThat(ms.stats()).containsEntry("misses", 1000L);
+    }
+
+    @Test
+    void localeIsPartOfKey() {
+        assertThat(ms.getMessage("hello", null, Locale.KOREA)).isEqualTo("안녕");
+        assertThat(ms.getMessage("hello", null, Locale.ENGLISH)).isEqualTo("hello");
+    }
+
+    @Test
+    void clearCache() {
+        ms.getMessage("hello", null, Locale.KOREA);
+        assertThat(ms.getCacheSize()).isEqualTo(1);
+
+        ms.clearCache();
+
+        assertThat(ms.getCacheSize()).isZero();
+    }
+
+    private static ResourceBundleMessageSource bundles() {
+        ResourceBundleMessageSource bundles = new ResourceBundleMessageSource();
+        bundles.setBasenames("messages", "errors");
+        bundles.setDefaultEncoding("UTF-8");
+        bundles.setFallbackToSystemLocale(false);
+        return bundles;
+    }
+}
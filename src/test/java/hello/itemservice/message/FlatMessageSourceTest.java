@@ -0,0 +1,116 @@
+package hello.itemservice.message;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.context.support.ResourceBundleMessageSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FlatMessageSourceTest {
+
+    static final ResourceBundle.Control NO_FALLBACK =
+            ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_DEFAULT);
+
+    ResourceBundleMessageSource bundles = bundles();
+    FlatMessageSource ms = new FlatMessageSource(bundles, new String[]{"messages", "errors"},
+            StandardCharsets.UTF_8, false, false);
+
+    @Test
+    void sameAsResourceBundleMessageSource() {
+        Object[] args = {12345, "Spring", 2_999_700_000L};
+        for (Locale locale : new Locale[]{Locale.KOREA, Locale.ENGLISH}) {
+            for (String basename : new String[]{"messages", "errors"}) {
+                for (String code : ResourceBundle.getBundle(basename, locale, NO_FALLBACK).keySet()) {
+                    assertThat(ms.getMessage(code, null, locale)).isEqualTo(bundles.getMessage(code, null, locale));
+                    assertThat(ms.getMessage(code, args, locale)).isEqualTo(bundles.getMessage(code, args, locale));
+                }
+            }
+        }
+    }
+
+    @Test
+    void localeFallback() {
+        assertThat(ms.getMessage("hello", null, Locale.KOREA)).isEqualTo("안녕");
+        assertThat(ms.getMessage("hello", null, Locale.ENGLISH)).isEqualTo("hello");
+        assertThat(ms.getMessage("hello", null, Locale.US)).isEqualTo("hello");
+        // errors_en.properties는 없어서 기본 파일에서 찾는다.
+        assertThat(ms.getMessage("typeMismatch", null, Locale.ENGLISH)).isEqualTo("타입 오류입니다.");
+        assertThat(ms.getTableSizes()).containsKey(Locale.ENGLISH).doesNotContainKey(Locale.US);
+    }
+
+    @Test
+    void unknownLocalesShareTables() {
+        Map<Locale, Integer> sizes = ms.getTableSizes();
+
+        for (int i = 0; i < 1000; i++) {
+            Locale locale = new Locale("x" + i, "ZZ");
+            assertThat(ms.getMessage("hello", null, locale)).isEqualTo(bundles.getMessage("hello", null, locale));
+            assertThat(ms.getMessage("hello", null, new Locale("en", "Z" + i)))
+                    .isEqualTo("hello");
+        }
+
+        assertThat(ms.getTableSizes()).isEqualTo(sizes);
+    }
+
+    @Test
+    void resolvesMostSpecificCode() {
+        DefaultMessageSourceResolvable field = new DefaultMessageSourceResolvable(
+                new String[]{"item.quantity", "quantity"}, "quantity");
+        DefaultMessageSourceResolvable error = new DefaultMessageSourceResolvable(
+                new String[]{"Max.item.quantity", "Max"}, new Object[]{field, 9999L});
+
+        assertThat(ms.getMessage(error, Locale.KOREA)).isEqualTo("quantity, 최대 9,999");
+        assertThat(ms.getMessage(new DefaultMessageSourceResolvable(
+                new String[]{"range.item.price", "range"}, new Object[]{1000, 1000000}), Locale.KOREA))
+                .isEqualTo("가격은 1,000 ~ 1,000,000 까지 허용합니다.");
+    }
+
+    @Test
+    void notFound() {
+        assertThat(ms.getMessage("no_code", null, "기본 메시지", Locale.KOREA)).isEqualTo("기본 메시지");
+        assertThat(ms.getMessage(new DefaultMessageSourceResolvable(new String[]{"no_code"}, null, "기본 메시지"),
+                Locale.KOREA)).isEqualTo("기본 메시지");
+        assertThatThrownBy(() -> ms.getMessage("no_code", null, Locale.KOREA))
+                .isInstanceOf(NoSuchMessageException.class);
+    }
+
+    @Test
+    void quotedPatternUsesMessageFormat() {
+        FlatMessageSource.Message message = FlatMessageSource.Message.of("'{0}' is {0,number,#}", Locale.KOREA);
+
+        assertThat(message.format(new Object[]{12345}, false)).isEqualTo("{0} is 12345");
+    }
+
+    @Test
+    void perfectHashFindsEveryCode() {
+        Map<String, String> patterns = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            patterns.put("code." + i, "message " + i);
+        }
+        // hashCode가 같은 코드
+        patterns.put("Aa", "Aa");
+        patterns.put("BB", "BB");
+
+        FlatMessageSource.Table table = FlatMessageSource.Table.build(patterns, Locale.ROOT);
+
+        for (String code : patterns.keySet()) {
+            assertThat(table.find(code).format(null, false)).isEqualTo(patterns.get(code));
+        }
+        assertThat(table.find("no_code")).isNull();
+    }
+
+    private static ResourceBundleMessageSource bundles() {
+        ResourceBundleMessageSource bundles = new ResourceBundleMessageSource();
+        bundles.setBasenames("messages", "errors");
+        bundles.setDefaultEncoding("UTF-8");
+        bundles.setFallbackToSystemLocale(false);
+        return bundles;
+    }
+}
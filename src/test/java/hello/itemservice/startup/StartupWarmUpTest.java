@@ -0,0 +1,79 @@
+package hello.itemservice.startup;
+
+import hello.itemservice.message.CachingMessageSource;
+import hello.itemservice.web.validation.form.ItemSaveForm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.core.metrics.ApplicationStartup;
+
+import javax.validation.Validation;
+import javax.validation.ValidatorFactory;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.*;
+
+class StartupWarmUpTest {
+
+    ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+    CachingMessageSource messageSource = new CachingMessageSource(bundles(), -1, false);
+
+    @AfterEach
+    void close() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void warmUpFillsMessageCache() {
+        //given
+        StartupWarmUp warmUp = new StartupWarmUp(messageSource, validatorFactory, ApplicationStartup.DEFAULT,
+                "messages, errors", List.of(Locale.KOREAN, Locale.ENGLISH), true);
+
+        //when
+        warmUp.start();
+        warmUp.afterSingletonsInstantiated();
+
+        //then
+        int cached = messageSource.getCacheSize();
+        assertThat(cached).isGreaterThan(0);
+        assertThat(messageSource.getMessage("page.items", null, Locale.ENGLISH)).isEqualTo("Item List");
+        assertThat(messageSource.getCacheSize()).isEqualTo(cached);
+        assertThat(messageSource.getMissCount()).isEqualTo(cached);
+    }
+
+    @Test
+    void warmUpValidation() {
+        //given
+        StartupWarmUp warmUp = new StartupWarmUp(messageSource, validatorFactory, ApplicationStartup.DEFAULT,
+                "messages", List.of(Locale.KOREAN), true);
+
+        //when
+        String result = warmUp.warmUpValidation(ItemSaveForm.class);
+
+        //then
+        assertThat(result).startsWith("ItemSaveForm properties=3");
+    }
+
+    @Test
+    void disabled() {
+        //given
+        StartupWarmUp warmUp = new StartupWarmUp(messageSource, validatorFactory, ApplicationStartup.DEFAULT,
+                "messages", List.of(Locale.KOREAN), false);
+
+        //when
+        warmUp.start();
+        warmUp.afterSingletonsInstantiated();
+
+        //then
+        assertThat(messageSource.getCacheSize()).isZero();
+    }
+
+    private static ResourceBundleMessageSource bundles() {
+        ResourceBundleMessageSource bundles = new ResourceBundleMessageSource();
+        bundles.setBasenames("messages", "errors");
+        bundles.setDefaultEncoding("UTF-8");
+        bundles.setFallbackToSystemLocale(false);
+        return bundles;
+    }
+}
@@ -0,0 +1,62 @@
+package hello.itemservice.validation;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.web.validation.ItemValidator;
+import hello.itemservice.web.validation.bulk.BulkValidationReport;
+import hello.itemservice.web.validation.bulk.BulkValidationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BulkValidationServiceTest {
+
+    ItemRepository itemRepository = new ItemRepository();
+    ItemValidator itemValidator = new ItemValidator();
+    BulkValidationService bulkValidationService = new BulkValidationService(itemRepository, itemValidator, 4);
+
+    @AfterEach
+    void afterEach() {
+        bulkValidationService.close();
+        itemRepository.clearStore();
+    }
+
+    @Test
+    void sameResultAsSequentialLoop() {
+        //given
+        for (int i = 0; i < 20_000; i++) {
+            itemRepository.save(i % 7 == 0
+                    ? new Item(i % 2 == 0 ? " " : "item" + i, 500, 10)
+                    : new Item("item" + i, 10000, 10));
+        }
+        List<Long> expectedInvalidIds = new ArrayList<>();
+        for (Item item : itemRepository.findAll()) {
+            BindingResult bindingResult = new BeanPropertyBindingResult(item, "item");
+            itemValidator.validate(item, bindingResult);
+            if (bindingResult.hasErrors()) {
+                expectedInvalidIds.add(item.getId());
+            }
+        }
+        expectedInvalidIds.sort(null);
+
+        //when
+        BulkValidationReport report = bulkValidationService.validateAll();
+
+        //then
+        assertThat(report.getTotal()).isEqualTo(20_000);
+        assertThat(report.getInvalid()).isEqualTo(expectedInvalidIds.size());
+        assertThat(report.getViolations())
+                .extracting(BulkValidationReport.ItemViolation::getItemId)
+                .containsExactlyElementsOf(expectedInvalidIds);
+        assertThat(report.getErrorCounts())
+                .containsEntry("price.range", (long) expectedInvalidIds.size())
+                .containsEntry("totalPriceMin", (long) expectedInvalidIds.size())
+                .containsEntry("itemName.required", (long) expectedInvalidIds.size() / 2);
+    }
+}
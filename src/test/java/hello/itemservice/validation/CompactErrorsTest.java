@@ -0,0 +1,81 @@
+package hello.itemservice.validation;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.web.validation.ItemValidator;
+import hello.itemservice.web.validation.errors.CompactErrors;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.ObjectError;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompactErrorsTest {
+
+    ItemValidator itemValidator = new ItemValidator();
+
+    @Test
+    void sameErrorsAsBindingResult() {
+        Item item = new Item(" ", 0, 10000);
+
+        BindingResult bindingResult = new BeanPropertyBindingResult(item, "item");
+        itemValidator.validate(item, bindingResult);
+
+        CompactErrors errors = CompactErrors.acquire("item", item);
+        try {
+            itemValidator.validate(item, errors);
+
+            assertThat(errors.getErrorCount()).isEqualTo(bindingResult.getErrorCount());
+            assertThat(errors.hasFieldErrors("price")).isTrue();
+            assertThat(codes(errors)).isEqualTo(codes(bindingResult));
+        } finally {
+            errors.release();
+        }
+    }
+
+    @Test
+    void writeJson() throws IOException {
+        Item item = new Item("itemA", 1000, 1);
+
+        CompactErrors errors = CompactErrors.acquire("item", item);
+        StringWriter json = new StringWriter();
+        try {
+            itemValidator.validate(item, errors);
+            JsonGenerator generator = new ObjectMapper().getFactory().createGenerator(json);
+            errors.writeJson(generator);
+        } finally {
+            errors.release();
+        }
+
+        assertThat(json.toString()).isEqualTo("{\"errors\":[{\"code\":\"totalPriceMin\",\"args\":[10000,1000]}]}");
+    }
+
+    @Test
+    void reusedPerThread() {
+        CompactErrors first = CompactErrors.acquire("item", new Item());
+        first.reject("totalPriceMin");
+        first.release();
+
+        CompactErrors second = CompactErrors.acquire("item", new Item());
+        try {
+            assertThat(second).isSameAs(first);
+            assertThat(second.hasErrors()).isFalse();
+            // 사용 중일 때는 다른 인스턴스를 준다.
+            assertThat(CompactErrors.acquire("item", new Item())).isNotSameAs(second);
+        } finally {
+            second.release();
+        }
+    }
+
+    private String codes(org.springframework.validation.Errors errors) {
+        return errors.getAllErrors().stream()
+                .map(ObjectError::getCode)
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,89 @@
+package hello.itemservice.validation;
+
+import hello.itemservice.web.validation.compiled.CompiledFormValidator;
+import hello.itemservice.web.validation.form.ItemSaveForm;
+import hello.itemservice.web.validation.form.ItemUpdateForm;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import javax.validation.Validation;
+import javax.validation.ValidatorFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompiledFormValidatorTest {
+
+    ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
+    CompiledFormValidator compiledValidator = new CompiledFormValidator(factory);
+    SpringValidatorAdapter beanValidator = new SpringValidatorAdapter(factory.getValidator());
+
+    @Test
+    void sameFieldErrorsAsBeanValidation() {
+        ItemSaveForm form = new ItemSaveForm();
+        form.setItemName(" ");
+        form.setPrice(0);
+        form.setQuantity(10000);
+
+        assertThat(describe(validate(compiledValidator, form))).isEqualTo(describe(validate(beanValidator, form)));
+    }
+
+    @Test
+    void nullFields() {
+        ItemUpdateForm form = new ItemUpdateForm();
+
+        BindingResult compiled = validate(compiledValidator, form);
+
+        assertThat(describe(compiled)).isEqualTo(describe(validate(beanValidator, form)));
+        assertThat(compiled.getFieldError("id").getCodes()).containsExactly(
+                "NotNull.item.id",
+                "NotNull.id",
+                "NotNull.java.lang.Long",
+                "NotNull"
+        );
+    }
+
+    @Test
+    void rangeArguments() {
+        ItemSaveForm form = new ItemSaveForm();
+        form.setItemName("itemA");
+        form.setPrice(100);
+        form.setQuantity(10);
+
+        FieldError error = validate(compiledValidator, form).getFieldError("price");
+
+        // Range={0}, {2} ~ {1} 허용 -> {1}=max, {2}=min
+        assertThat(error.getCode()).isEqualTo("Range");
+        assertThat(Arrays.copyOfRange(error.getArguments(), 1, 3)).containsExactly(1000000L, 1000L);
+    }
+
+    @Test
+    void validForm() {
+        ItemSaveForm form = new ItemSaveForm();
+        form.setItemName("itemA");
+        form.setPrice(10000);
+        form.setQuantity(10);
+
+        assertThat(validate(compiledValidator, form).hasErrors()).isFalse();
+    }
+
+    private BindingResult validate(org.springframework.validation.Validator validator, Object target) {
+        BindingResult bindingResult = new BeanPropertyBindingResult(target, "item");
+        validator.validate(target, bindingResult);
+        return bindingResult;
+    }
+
+    private List<String> describe(BindingResult bindingResult) {
+        return bindingResult.getFieldErrors().stream()
+                .sorted(Comparator.comparing(FieldError::getField).thenComparing(FieldError::getCode))
+                .map(error -> error.getField() + ":" + Arrays.toString(error.getCodes())
+                        + ":" + Arrays.toString(Arrays.copyOfRange(error.getArguments(), 1, error.getArguments().length)))
+                .collect(Collectors.toList());
+    }
+}
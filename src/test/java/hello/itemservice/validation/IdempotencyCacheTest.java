@@ -0,0 +1,137 @@
+package hello.itemservice.validation;
+
+import hello.itemservice.web.validation.idempotency.IdempotencyCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+    @Test
+    void duplicateReturnsStoredResult() {
+        //given
+        IdempotencyCache cache = new IdempotencyCache(100, Duration.ofMinutes(1));
+        AtomicInteger calls = new AtomicInteger();
+
+        //when
+        Integer first = cache.execute("add", "key", calls::incrementAndGet);
+        Integer second = cache.execute("add", "key", calls::incrementAndGet);
+        Integer otherScope = cache.execute("save", "key", calls::incrementAndGet);
+
+        //then
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isEqualTo(1);
+        assertThat(otherScope).isEqualTo(2);
+        assertThat(cache.<Integer>getIfCompleted("add", "key")).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentDuplicatesRunOnce() throws Exception {
+        //given
+        IdempotencyCache cache = new IdempotencyCache(100, Duration.ofMinutes(1));
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        //when
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> cache.execute("add", "key", () -> {
+                await(release);
+                return calls.incrementAndGet();
+            })));
+        }
+        Thread.sleep(50);
+        release.countDown();
+
+        //then
+        for (Future<Integer> result : results) {
+            assertThat(result.get()).isEqualTo(1);
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    void failureIsNotStored() {
+        //given
+        IdempotencyCache cache = new IdempotencyCache(100, Duration.ofMinutes(1));
+
+        //when
+        assertThatThrownBy(() -> cache.execute("add", "key", () -> {
+            throw new IllegalStateException("저장 실패");
+        })).isInstanceOf(IllegalStateException.class);
+
+        //then
+        assertThat(cache.<Object>getIfCompleted("add", "key")).isNull();
+        assertThat(cache.execute("add", "key", () -> "retried")).isEqualTo("retried");
+    }
+
+    @Test
+    void evictsOldestKeysAndExpiredKeys() throws InterruptedException {
+        //given
+        IdempotencyCache bounded = new IdempotencyCache(2, Duration.ofMinutes(1));
+        IdempotencyCache expiring = new IdempotencyCache(100, Duration.ofMillis(10));
+
+        //when
+        bounded.execute("add", "a", () -> 1);
+        bounded.execute("add", "b", () -> 2);
+        bounded.execute("add", "c", () -> 3);
+        expiring.execute("add", "a", () -> 1);
+        Thread.sleep(20);
+
+        //then
+        assertThat(bounded.<Integer>getIfCompleted("add", "a")).isNull();
+        assertThat(bounded.<Integer>getIfCompleted("add", "c")).isEqualTo(3);
+        assertThat(expiring.<Integer>getIfCompleted("add", "a")).isNull();
+        assertThat(expiring.execute("add", "a", () -> 2)).isEqualTo(2);
+    }
+
+    @Test
+    void inFlightKeyIsNotEvictedForCapacity() throws Exception {
+        //given - maxKeys를 넘도록 다른 키들이 끝나는 동안 "a"는 처리 중이다.
+        IdempotencyCache cache = new IdempotencyCache(1, Duration.ofMinutes(1));
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Integer> first = executor.submit(() -> cache.execute("add", "a", () -> {
+            started.countDown();
+            await(release);
+            return calls.incrementAndGet();
+        }));
+        started.await();
+        cache.execute("add", "b", () -> 2);
+        cache.execute("add", "c", () -> 3);
+
+        //when
+        Future<Integer> retry = executor.submit(() -> cache.execute("add", "a", calls::incrementAndGet));
+        Thread.sleep(50);
+        release.countDown();
+
+        //then
+        assertThat(first.get()).isEqualTo(1);
+        assertThat(retry.get()).isEqualTo(1);
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(cache.<Integer>getIfCompleted("add", "b")).isNull();
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
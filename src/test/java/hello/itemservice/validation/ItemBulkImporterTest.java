@@ -0,0 +1,86 @@
+package hello.itemservice.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.itemservice.domain.item.ItemRepository;
+import hello.itemservice.web.validation.bulk.ItemBulkImporter;
+import hello.itemservice.web.validation.rule.ItemRuleEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ItemBulkImporterTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    ItemRepository itemRepository = new ItemRepository();
+    ItemBulkImporter importer = new ItemBulkImporter(objectMapper,
+            new ItemRuleEngine(new ClassPathResource("validation/item-rules.json"), Duration.ZERO), itemRepository);
+
+    @AfterEach
+    void afterEach() {
+        itemRepository.clearStore();
+    }
+
+    @Test
+    void jsonArray() throws IOException {
+        String body = "[" +
+                "{\"itemName\":\"itemA\",\"price\":10000,\"quantity\":10}," +
+                "{\"itemName\":\" \",\"price\":10000,\"quantity\":10}," +
+                "{\"itemName\":\"itemC\",\"price\":1000,\"quantity\":1}" +
+                "]";
+
+        JsonNode response = importItems(body);
+
+        assertThat(response.get("saved").asInt()).isEqualTo(1);
+        assertThat(response.get("failed").asInt()).isEqualTo(2);
+        JsonNode results = response.get("results");
+        assertThat(itemRepository.findById(results.get(0).get("id").asLong()).getItemName()).isEqualTo("itemA");
+        assertThat(results.get(1).get("errors").get(0).get("field").asText()).isEqualTo("itemName");
+        assertThat(results.get(1).get("errors").get(0).get("code").asText()).isEqualTo("required");
+        assertThat(results.get(2).get("errors").get(0).get("code").asText()).isEqualTo("totalPriceMin");
+    }
+
+    @Test
+    void ndjsonWithTypeMismatch() throws IOException {
+        String body = "{\"itemName\":\"itemA\",\"price\":10000,\"quantity\":10}\n" +
+                "{\"itemName\":\"itemB\",\"price\":\"abc\",\"quantity\":10}\n" +
+                "{\"itemName\":\"itemC\",\"price\":20000,\"quantity\":20}\n";
+
+        JsonNode response = importItems(body);
+
+        JsonNode results = response.get("results");
+        assertThat(results.size()).isEqualTo(3);
+        assertThat(results.get(1).get("index").asInt()).isEqualTo(1);
+        assertThat(results.get(1).get("errors").get(0).get("field").asText()).isEqualTo("price");
+        assertThat(results.get(1).get("errors").get(0).get("code").asText()).isEqualTo("typeMismatch");
+        assertThat(response.get("saved").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void moreThanOneBatch() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1234; i++) {
+            body.append("{\"itemName\":\"item").append(i).append("\",\"price\":10000,\"quantity\":10}\n");
+        }
+
+        JsonNode response = importItems(body.toString());
+
+        assertThat(response.get("saved").asInt()).isEqualTo(1234);
+        assertThat(response.get("results").get(1233).get("index").asInt()).isEqualTo(1233);
+        assertThat(itemRepository.findAll()).hasSize(1234);
+    }
+
+    private JsonNode importItems(String body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        importer.importItems(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+}
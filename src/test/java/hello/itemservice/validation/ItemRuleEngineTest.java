@@ -0,0 +1,166 @@
+package hello.itemservice.validation;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.domain.item.SaveCheck;
+import hello.itemservice.domain.item.UpdateCheck;
+import hello.itemservice.web.validation.ItemValidator;
+import hello.itemservice.web.validation.form.ItemSaveForm;
+import hello.itemservice.web.validation.rule.ItemLimits;
+import hello.itemservice.web.validation.rule.ItemRuleEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.ObjectError;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemRuleEngineTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void groups() {
+        //given
+        ItemRuleEngine ruleEngine = new ItemRuleEngine(new ClassPathResource("validation/item-rules.json"), Duration.ZERO);
+        Item item = new Item("itemA", 1000, 10000);
+
+        //when
+        String saveCodes = codes(ruleEngine, item, SaveCheck.class);
+        String updateCodes = codes(ruleEngine, item, UpdateCheck.class);
+
+        //then
+        // 수량 최대값은 등록할 때만, id는 수정할 때만 검사한다.
+        assertThat(saveCodes).isEqualTo("max");
+        assertThat(updateCodes).isEqualTo("required");
+    }
+
+    @Test
+    void unsupportedTarget() {
+        //given
+        ItemRuleEngine ruleEngine = new ItemRuleEngine(new ClassPathResource("validation/item-rules.json"), Duration.ZERO);
+        String target = "itemA";
+
+        //when
+        BindingResult bindingResult = new BeanPropertyBindingResult(target, "item");
+
+        //then
+        assertThat(ruleEngine.supports(String.class)).isFalse();
+        assertThat(ruleEngine.supports(null)).isFalse();
+        assertThatThrownBy(() -> ruleEngine.validate(target, bindingResult, SaveCheck.class))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ruleEngine.validate(target, bindingResult))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void totalPriceMinUsesLong() {
+        //given
+        ItemRuleEngine ruleEngine = new ItemRuleEngine(new ClassPathResource("validation/item-rules.json"), Duration.ZERO);
+        ItemSaveForm form = new ItemSaveForm();
+        form.setItemName("itemA");
+        form.setPrice(1000);
+        form.setQuantity(5);
+
+        //when
+        BindingResult bindingResult = new BeanPropertyBindingResult(form, "item");
+        ruleEngine.validate(form, bindingResult, SaveCheck.class);
+
+        //then
+        assertThat(bindingResult.getGlobalError().getCode()).isEqualTo("totalPriceMin");
+        assertThat(bindingResult.getGlobalError().getArguments()).containsExactly(10000, 5000L);
+    }
+
+    @Test
+    void reload() throws IOException {
+        //given
+        Path rules = directory.resolve("item-rules.json");
+        write(rules, 9999);
+        ItemRuleEngine ruleEngine = new ItemRuleEngine(new FileSystemResource(rules), Duration.ZERO);
+        Item item = new Item("itemA", 10000, 500);
+        assertThat(codes(ruleEngine, item, SaveCheck.class)).isEmpty();
+
+        //when
+        write(rules, 100);
+        boolean reloaded = ruleEngine.reload();
+
+        //then
+        assertThat(reloaded).isTrue();
+        assertThat(codes(ruleEngine, item, SaveCheck.class)).isEqualTo("max");
+    }
+
+    @Test
+    void defaultRulesMatchDefaultLimits() {
+        //given
+        ItemRuleEngine ruleEngine = new ItemRuleEngine(new ClassPathResource("validation/item-rules.json"), Duration.ZERO);
+
+        //when
+        ItemLimits limits = ruleEngine.getLimits();
+
+        //then
+        assertThat(limits).usingRecursiveComparison().isEqualTo(ItemLimits.DEFAULT);
+    }
+
+    @Test
+    void reloadChangesItemValidatorLimits() throws IOException {
+        //given
+        Path rules = directory.resolve("item-rules.json");
+        write(rules, 9999);
+        ItemRuleEngine ruleEngine = new ItemRuleEngine(new FileSystemResource(rules), Duration.ZERO);
+        ItemValidator itemValidator = new ItemValidator(ItemValidator.Mode.FULL, ruleEngine);
+        Item item = new Item("itemA", 10000, 500);
+        assertThat(itemValidator.isValid(item)).isTrue();
+
+        //when
+        write(rules, 100);
+        ruleEngine.reload();
+
+        //then
+        BindingResult bindingResult = new BeanPropertyBindingResult(item, "item");
+        itemValidator.validate(item, bindingResult);
+        assertThat(itemValidator.isValid(item)).isFalse();
+        assertThat(bindingResult.getFieldError("quantity").getArguments()).containsExactly(100);
+    }
+
+    @Test
+    void invalidRulesKeepPreviousPlan() throws IOException {
+        //given
+        Path rules = directory.resolve("item-rules.json");
+        write(rules, 100);
+        ItemRuleEngine ruleEngine = new ItemRuleEngine(new FileSystemResource(rules), Duration.ZERO);
+
+        //when
+        Files.writeString(rules, "[{\"field\": \"weight\", \"constraint\": \"max\", \"code\": \"max\"}]");
+        boolean reloaded = ruleEngine.reload();
+
+        //then
+        assertThat(reloaded).isFalse();
+        assertThat(ruleEngine.getRuleCount()).isEqualTo(2);
+        assertThat(codes(ruleEngine, new Item("itemA", 10000, 500), SaveCheck.class)).isEqualTo("max");
+    }
+
+    private static void write(Path rules, int maxQuantity) throws IOException {
+        Files.writeString(rules, "["
+                + "{\"field\": \"itemName\", \"constraint\": \"notBlank\", \"code\": \"required\", \"groups\": [\"SaveCheck\"]},"
+                + "{\"field\": \"quantity\", \"constraint\": \"max\", \"params\": {\"value\": " + maxQuantity + "},"
+                + " \"code\": \"max\", \"groups\": [\"SaveCheck\"]}"
+                + "]");
+    }
+
+    private static String codes(ItemRuleEngine ruleEngine, Object target, Class<?> group) {
+        BindingResult bindingResult = new BeanPropertyBindingResult(target, "item");
+        ruleEngine.validate(target, bindingResult, group);
+        return bindingResult.getAllErrors().stream()
+                .map(ObjectError::getCode)
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,61 @@
+package hello.itemservice.validation;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.web.validation.ItemValidator;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.ObjectError;
+
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ItemValidatorModeTest {
+
+    Item invalidItem = new Item(" ", 100, 10);
+
+    @Test
+    void full() {
+        assertThat(codes(ItemValidator.Mode.FULL, invalidItem)).isEqualTo("required,range,totalPriceMin");
+    }
+
+    @Test
+    void failFast() {
+        assertThat(codes(ItemValidator.Mode.FAIL_FAST, invalidItem)).isEqualTo("required");
+    }
+
+    @Test
+    void shortCircuit() {
+        assertThat(codes(ItemValidator.Mode.SHORT_CIRCUIT, invalidItem)).isEqualTo("required,range");
+        // 가격, 수량이 맞으면 totalPriceMin도 검사한다.
+        assertThat(codes(ItemValidator.Mode.SHORT_CIRCUIT, new Item("itemA", 1000, 5))).isEqualTo("totalPriceMin");
+    }
+
+    @Test
+    void isValidMatchesValidate() {
+        ItemValidator itemValidator = new ItemValidator();
+        Item[] items = {
+                new Item("itemA", 10000, 10),
+                new Item("itemA", 1000, 5),
+                new Item(null, 10000, 10),
+                new Item("itemA", null, 10),
+                new Item("itemA", 10000, 10001),
+                invalidItem
+        };
+
+        for (Item item : items) {
+            BindingResult bindingResult = new BeanPropertyBindingResult(item, "item");
+            itemValidator.validate(item, bindingResult);
+            assertThat(itemValidator.isValid(item)).isEqualTo(!bindingResult.hasErrors());
+        }
+    }
+
+    private static String codes(ItemValidator.Mode mode, Item item) {
+        BindingResult bindingResult = new BeanPropertyBindingResult(item, "item");
+        new ItemValidator(mode).validate(item, bindingResult);
+        return bindingResult.getAllErrors().stream()
+                .map(ObjectError::getCode)
+                .collect(Collectors.joining(","));
+    }
+}
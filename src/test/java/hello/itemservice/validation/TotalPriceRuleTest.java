@@ -0,0 +1,67 @@
+package hello.itemservice.validation;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.web.validation.ItemValidator;
+import hello.itemservice.web.validation.TotalPriceRule;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TotalPriceRuleTest {
+
+    @Test
+    void totalPriceDoesNotOverflow() {
+        // int로 곱하면 300,000 * 9,999 = -1,295,267,296 이 된다.
+        assertThat(TotalPriceRule.totalPrice(300_000, 9_999)).isEqualTo(2_999_700_000L);
+        assertThat(TotalPriceRule.isValid(300_000, 9_999, 10000)).isTrue();
+        assertThat(TotalPriceRule.isValid(1_000_000, 9_999, 10000)).isTrue();
+    }
+
+    @Test
+    void itemValidatorAcceptsLargeTotal() {
+        //given
+        ItemValidator itemValidator = new ItemValidator();
+        Item item = new Item("itemA", 300_000, 9_999);
+        BindingResult bindingResult = new BeanPropertyBindingResult(item, "item");
+
+        //when
+        itemValidator.validate(item, bindingResult);
+
+        //then
+        assertThat(bindingResult.hasErrors()).isFalse();
+        assertThat(itemValidator.isValid(item)).isTrue();
+    }
+
+    @Test
+    void validateRejectsWithLongTotal() {
+        //given
+        Item item = new Item("itemA", 1000, 5);
+        BindingResult bindingResult = new BeanPropertyBindingResult(item, "item");
+
+        //when
+        boolean valid = TotalPriceRule.validate(item.getPrice(), item.getQuantity(), 10000, bindingResult);
+
+        //then
+        assertThat(valid).isFalse();
+        assertThat(bindingResult.getGlobalError().getCode()).isEqualTo("totalPriceMin");
+        assertThat(bindingResult.getGlobalError().getArguments()).containsExactly(10000, 5000L);
+        assertThat(TotalPriceRule.validate(null, 5, 10000, bindingResult)).isTrue();
+    }
+
+    @Test
+    void validateAll() {
+        //given
+        int[] prices = {10000, 1000, 300_000, 0, 1000};
+        int[] quantities = {1, 5, 9_999, 0, -1};
+        boolean[] valid = {true, true, true, false, true};
+
+        //when
+        int rejected = TotalPriceRule.validateAll(prices, quantities, valid, prices.length, 10000);
+
+        //then
+        assertThat(rejected).isEqualTo(2);
+        assertThat(valid).containsExactly(true, false, true, false, false);
+    }
+}
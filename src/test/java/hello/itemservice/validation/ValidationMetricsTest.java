@@ -0,0 +1,74 @@
+package hello.itemservice.validation;
+
+import hello.itemservice.domain.item.Item;
+import hello.itemservice.web.validation.ItemValidator;
+import hello.itemservice.web.validation.metrics.ValidationMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Validator;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ValidationMetricsTest {
+
+    ValidationMetrics validationMetrics = new ValidationMetrics();
+
+    @Test
+    void recordsLatencyAndErrorCodes() {
+        //given
+        Validator validator = validationMetrics.instrument("ItemValidator", new ItemValidator());
+        Item item = new Item(null, 100, 1);
+        BindingResult bindingResult = new BeanPropertyBindingResult(item, "item");
+
+        //when
+        validator.validate(item, bindingResult);
+        validationMetrics.recordErrors("v2.addItem", bindingResult);
+
+        //then
+        Map<String, Object> snapshot = validationMetrics.snapshot();
+        assertThat(latencies(snapshot).get("ItemValidator.Item")).containsEntry("count", 1L);
+        assertThat(errors(snapshot).get("v2.addItem"))
+                .containsEntry("itemName.required", 1L)
+                .containsEntry("price.range", 1L)
+                .containsEntry("totalPriceMin", 1L);
+    }
+
+    @Test
+    void mergesAllThreads() throws InterruptedException {
+        //given
+        int threads = 4;
+        int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        //when
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    validationMetrics.record("v4.addItem.totalPriceMin", validationMetrics.start());
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        //then
+        assertThat(latencies(validationMetrics.snapshot()).get("v4.addItem.totalPriceMin"))
+                .containsEntry("count", (long) threads * perThread);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> latencies(Map<String, Object> snapshot) {
+        return (Map<String, Map<String, Object>>) snapshot.get("latencies");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Long>> errors(Map<String, Object> snapshot) {
+        return (Map<String, Map<String, Long>>) snapshot.get("errors");
+    }
+}
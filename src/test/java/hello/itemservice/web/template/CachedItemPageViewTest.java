@@ -0,0 +1,117 @@
+package hello.itemservice.web.template;
+
+import hello.itemservice.domain.item.Item;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.View;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CachedItemPageViewTest {
+
+    AtomicInteger renders = new AtomicInteger();
+    ItemPageCache itemPageCache = new ItemPageCache(100);
+    View view = new CachedItemPageView("validation/v4/item", new CountingView(), itemPageCache);
+
+    @Test
+    void sameItemIsServedFromCache() throws Exception {
+        //given
+        Item item = item(1L, 0L, "itemA", 10000, 10);
+        render(item, false);
+
+        //when
+        MockHttpServletResponse response = render(item(1L, 0L, "itemA", 10000, 10), false);
+
+        //then
+        assertThat(renders.get()).isEqualTo(1);
+        assertThat(response.getContentAsString()).isEqualTo("itemA:10000:10");
+        assertThat(response.getContentType()).startsWith("text/html");
+    }
+
+    @Test
+    void updatedItemIsRenderedAgain() throws Exception {
+        //given
+        render(item(1L, 0L, "itemA", 10000, 10), false);
+
+        //when
+        MockHttpServletResponse response = render(item(1L, 1L, "itemA", 20000, 10), false);
+        render(item(1L, 1L, "itemA", 20000, 10), true);
+
+        //then
+        assertThat(renders.get()).isEqualTo(3);
+        assertThat(response.getContentAsString()).isEqualTo("itemA:20000:10");
+    }
+
+    @Test
+    void itemWithoutVersionIsNotCached() throws Exception {
+        //given
+        render(item(1L, null, "itemA", 10000, 10), false);
+
+        //when
+        render(item(1L, null, "itemA", 10000, 10), false);
+
+        //then
+        assertThat(renders.get()).isEqualTo(2);
+        assertThat(itemPageCache.stats()).containsEntry("entries", 0);
+    }
+
+    @Test
+    void leastRecentlyUsedPageIsEvicted() throws Exception {
+        //given
+        ItemPageCache smallCache = new ItemPageCache(1);
+        View smallView = new CachedItemPageView("validation/v4/item", new CountingView(), smallCache);
+        render(smallView, item(1L, 0L, "itemA", 10000, 10));
+        render(smallView, item(2L, 0L, "itemB", 10000, 10));
+
+        //when
+        render(smallView, item(1L, 0L, "itemA", 10000, 10));
+
+        //then
+        assertThat(renders.get()).isEqualTo(3);
+        assertThat(smallCache.stats()).containsEntry("entries", 1).containsEntry("evictions", 2L);
+    }
+
+    private MockHttpServletResponse render(Item item, boolean status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/validation/v4/items/" + item.getId());
+        if (status) {
+            request.setParameter("status", "true");
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.render(Map.of("item", item), request, response);
+        return response;
+    }
+
+    private static void render(View view, Item item) throws Exception {
+        view.render(Map.of("item", item), new MockHttpServletRequest("GET", "/validation/v4/items/" + item.getId()),
+                new MockHttpServletResponse());
+    }
+
+    private static Item item(Long id, Long version, String itemName, Integer price, Integer quantity) {
+        Item item = new Item(itemName, price, quantity);
+        item.setId(id);
+        item.setVersion(version);
+        return item;
+    }
+
+    private class CountingView implements View {
+
+        @Override
+        public String getContentType() {
+            return "text/html;charset=UTF-8";
+        }
+
+        @Override
+        public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) throws Exception {
+            renders.incrementAndGet();
+            Item item = (Item) model.get("item");
+            response.setContentType(getContentType());
+            response.getWriter().write(item.getItemName() + ":" + item.getPrice() + ":" + item.getQuantity());
+        }
+    }
+}